@@ -2,6 +2,13 @@ package com.skanga.config;
 
 import org.springframework.stereotype.Component;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 // Configuration class
 @Component
@@ -12,6 +19,7 @@ public class ResearchConfiguration {
     private String baseUrl = "https://api.inceptionlabs.ai/v1";
     private boolean useToolCalling = false;
     private int maxWebResearchLoops = 3;
+    private int searchBreadth = 1;
     private String searchApi = "duckduckgo";
     private boolean fetchFullPage = false;
     private boolean stripThinkingTokens = true;
@@ -22,7 +30,54 @@ public class ResearchConfiguration {
     // Search API keys
     private String tavilyApiKey = "";
     private String perplexityApiKey = "";
-    private String searxngUrl = "http://localhost:8888";
+    // Blank leaves SearXNG unconfigured, so federated search skips it
+    private String searxngUrl = "";
+
+    // Executor that runs research jobs
+    private Executor executor = new Executor();
+
+    // In-memory store for asynchronous research jobs
+    private Jobs jobs = new Jobs();
+
+    // Cache of finished research reports
+    private ResultCache resultCache = new ResultCache();
+
+    // Cache of LLM responses keyed by prompt
+    private LlmCache llmCache = new LlmCache();
+
+    // Per-role model overrides; unset fields fall back to the settings above
+    private Models models = new Models();
+
+    // Request and token quotas for LLM calls, per provider
+    private LlmRateLimit llmRateLimit = new LlmRateLimit();
+
+    // Adaptive limit on concurrent calls to self-hosted LLM backends
+    private LlmConcurrency llmConcurrency = new LlmConcurrency();
+
+    // Cache of search results per provider
+    private SearchCache searchCache = new SearchCache();
+
+    // Full-page fetching of search results
+    private Fetch fetch = new Fetch();
+    private PageCache pageCache = new PageCache();
+
+    // Hedged search requests against a secondary provider
+    private Hedge hedge = new Hedge();
+
+    // Meta-search across several providers when searchApi is "federated"
+    private Federated federated = new Federated();
+
+    // Per-provider circuit breakers in front of every search provider
+    private Breaker breaker = new Breaker();
+
+    // Token counting and packing of search results into prompts
+    private Context context = new Context();
+
+    // How each loop's sources are folded into the running summary
+    private Summarization summarization = new Summarization();
+
+    // Optional early stop once research loops stop adding information
+    private Convergence convergence = new Convergence();
 
     // Getters and setters
     public String getLlmProvider() {
@@ -75,6 +130,14 @@ public class ResearchConfiguration {
         this.maxWebResearchLoops = maxWebResearchLoops;
     }
 
+    public int getSearchBreadth() {
+        return searchBreadth;
+    }
+
+    public void setSearchBreadth(int searchBreadth) {
+        this.searchBreadth = searchBreadth;
+    }
+
     public String getSearchApi() {
         return searchApi;
     }
@@ -130,6 +193,970 @@ public class ResearchConfiguration {
     public void setSearxngUrl(String searxngUrl) {
         this.searxngUrl = searxngUrl;
     }
-}
 
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(Jobs jobs) {
+        this.jobs = jobs;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public LlmCache getLlmCache() {
+        return llmCache;
+    }
+
+    public void setLlmCache(LlmCache llmCache) {
+        this.llmCache = llmCache;
+    }
+
+    public Convergence getConvergence() {
+        return convergence;
+    }
+
+    public void setConvergence(Convergence convergence) {
+        this.convergence = convergence;
+    }
+
+    public Models getModels() {
+        return models;
+    }
+
+    public void setModels(Models models) {
+        this.models = models;
+    }
+
+    public LlmRateLimit getLlmRateLimit() {
+        return llmRateLimit;
+    }
+
+    public void setLlmRateLimit(LlmRateLimit llmRateLimit) {
+        this.llmRateLimit = llmRateLimit;
+    }
+
+    public LlmConcurrency getLlmConcurrency() {
+        return llmConcurrency;
+    }
+
+    public void setLlmConcurrency(LlmConcurrency llmConcurrency) {
+        this.llmConcurrency = llmConcurrency;
+    }
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    public void setSearchCache(SearchCache searchCache) {
+        this.searchCache = searchCache;
+    }
+
+    public Fetch getFetch() {
+        return fetch;
+    }
+
+    public void setFetch(Fetch fetch) {
+        this.fetch = fetch;
+    }
+
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    public void setPageCache(PageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    public Hedge getHedge() {
+        return hedge;
+    }
+
+    public void setHedge(Hedge hedge) {
+        this.hedge = hedge;
+    }
+
+    public Federated getFederated() {
+        return federated;
+    }
+
+    public void setFederated(Federated federated) {
+        this.federated = federated;
+    }
+
+    public Breaker getBreaker() {
+        return breaker;
+    }
+
+    public void setBreaker(Breaker breaker) {
+        this.breaker = breaker;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public void setContext(Context context) {
+        this.context = context;
+    }
+
+    public Summarization getSummarization() {
+        return summarization;
+    }
+
+    public void setSummarization(Summarization summarization) {
+        this.summarization = summarization;
+    }
+
+    /**
+     * Settings for the executor that runs research jobs.
+     * threadType is either "virtual" or "platform".
+     */
+    public static class Executor {
+        private String threadType = "virtual";
+        private int maxInFlight = 32;
+        private int queueCapacity = 100;
+
+        public String getThreadType() {
+            return threadType;
+        }
+
+        public void setThreadType(String threadType) {
+            this.threadType = threadType;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * Settings for the job store behind /api/research/jobs.
+     * Finished jobs are evicted after ttl, and the oldest finished jobs go first once maxJobs is reached.
+     */
+    public static class Jobs {
+        private int maxJobs = 1000;
+        private Duration ttl = Duration.ofHours(1);
+
+        public int getMaxJobs() {
+            return maxJobs;
+        }
+
+        public void setMaxJobs(int maxJobs) {
+            this.maxJobs = maxJobs;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Settings for the research report cache.
+     * Reports are kept for ttl, at most maxEntries are retained (least recently used go first),
+     * and each report is persisted under directory so the cache survives restarts.
+     */
+    public static class ResultCache {
+        private boolean enabled = true;
+        private String directory = "cache/reports";
+        private Duration ttl = Duration.ofHours(24);
+        private int maxEntries = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * On-disk HTTP cache for full-page fetches, bounded by the total size of its entries.
+     */
+    public static class PageCache {
+        private boolean enabled = true;
+        private String directory = "cache/pages";
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class LlmCache {
+        private boolean enabled = true;
+        private int maxEntries = 1000;
+        // Blank keeps the cache in memory only
+        private String directory = "";
+        // Total size of the disk tier; least recently used responses are evicted first
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+        // Per-role switches
+        private boolean queryGenerator = true;
+        private boolean summarizer = true;
+        private boolean reflection = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public boolean isQueryGenerator() {
+            return queryGenerator;
+        }
+
+        public void setQueryGenerator(boolean queryGenerator) {
+            this.queryGenerator = queryGenerator;
+        }
+
+        public boolean isSummarizer() {
+            return summarizer;
+        }
+
+        public void setSummarizer(boolean summarizer) {
+            this.summarizer = summarizer;
+        }
+
+        public boolean isReflection() {
+            return reflection;
+        }
+
+        public void setReflection(boolean reflection) {
+            this.reflection = reflection;
+        }
+    }
+
+    public static class SearchCache {
+        private boolean enabled = true;
+        private int maxEntries = 2000;
+        private Duration defaultTtl = Duration.ofHours(1);
+        // TTL per search API; APIs not listed use defaultTtl
+        private Map<String, Duration> ttl = new LinkedHashMap<>(Map.of(
+                "duckduckgo", Duration.ofHours(6),
+                "tavily", Duration.ofHours(1),
+                "perplexity", Duration.ofMinutes(15)));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getDefaultTtl() {
+            return defaultTtl;
+        }
+
+        public void setDefaultTtl(Duration defaultTtl) {
+            this.defaultTtl = defaultTtl;
+        }
 
+        public Map<String, Duration> getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Map<String, Duration> ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration ttlFor(String searchApi) {
+            return ttl.getOrDefault(searchApi, defaultTtl);
+        }
+    }
+
+    public static class Fetch {
+        private int maxConcurrent = 16;
+        private int maxPerHost = 2;
+        private Duration timeout = Duration.ofSeconds(10);
+        private DataSize maxBytes = DataSize.ofMegabytes(2);
+        // Responses declaring a larger Content-Length are not read at all
+        private DataSize maxContentLength = DataSize.ofMegabytes(10);
+        // How long URLs found to be unfetchable are skipped
+        private Duration negativeCacheTtl = Duration.ofHours(6);
+        // Drop navigation, footers, sidebars and link lists, keeping only the main content
+        private boolean mainContentOnly = true;
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxPerHost() {
+            return maxPerHost;
+        }
+
+        public void setMaxPerHost(int maxPerHost) {
+            this.maxPerHost = maxPerHost;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public DataSize getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(DataSize maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public DataSize getMaxContentLength() {
+            return maxContentLength;
+        }
+
+        public void setMaxContentLength(DataSize maxContentLength) {
+            this.maxContentLength = maxContentLength;
+        }
+
+        public Duration getNegativeCacheTtl() {
+            return negativeCacheTtl;
+        }
+
+        public void setNegativeCacheTtl(Duration negativeCacheTtl) {
+            this.negativeCacheTtl = negativeCacheTtl;
+        }
+
+        public boolean isMainContentOnly() {
+            return mainContentOnly;
+        }
+
+        public void setMainContentOnly(boolean mainContentOnly) {
+            this.mainContentOnly = mainContentOnly;
+        }
+    }
+
+    /**
+     * Hedged search requests. When the primary provider has not answered within the given
+     * percentile of its recent latencies, the query is also sent to the secondary provider and
+     * the first answer wins. Until minSamples latencies are known, initialDelay is used instead.
+     * The delay never drops below minDelay, which caps the extra load on slow-but-steady providers.
+     */
+    public static class Hedge {
+        private boolean enabled = true;
+        private String secondary = "duckduckgo";
+        private double percentile = 95;
+        private int window = 200;
+        private int minSamples = 20;
+        private Duration initialDelay = Duration.ofSeconds(3);
+        private Duration minDelay = Duration.ofMillis(250);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getSecondary() {
+            return secondary;
+        }
+
+        public void setSecondary(String secondary) {
+            this.secondary = secondary;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public int getWindow() {
+            return window;
+        }
+
+        public void setWindow(int window) {
+            this.window = window;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public Duration getInitialDelay() {
+            return initialDelay;
+        }
+
+        public void setInitialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+    }
+
+    /**
+     * Federated search, used when searchApi is "federated". The query goes to every listed
+     * provider that is configured; whatever has answered within timeBudget is merged with
+     * reciprocal-rank fusion and the topK pages are kept. rankConstant is the k in 1 / (k + rank).
+     */
+    public static class Federated {
+        private List<String> providers = new ArrayList<>(List.of("duckduckgo", "searxng", "tavily", "perplexity"));
+        private int topK = 8;
+        private Duration timeBudget = Duration.ofSeconds(5);
+        private int rankConstant = 60;
+
+        public List<String> getProviders() {
+            return providers;
+        }
+
+        public void setProviders(List<String> providers) {
+            this.providers = providers;
+        }
+
+        public int getTopK() {
+            return topK;
+        }
+
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+
+        public Duration getTimeBudget() {
+            return timeBudget;
+        }
+
+        public void setTimeBudget(Duration timeBudget) {
+            this.timeBudget = timeBudget;
+        }
+
+        public int getRankConstant() {
+            return rankConstant;
+        }
+
+        public void setRankConstant(int rankConstant) {
+            this.rankConstant = rankConstant;
+        }
+    }
+
+    /**
+     * Circuit breakers for search providers. Each one judges the last window calls of its provider
+     * and opens once at least minCalls are known and either failureRateThreshold percent failed or
+     * slowCallRateThreshold percent took longer than slowCallDuration. An open provider is skipped
+     * for openDuration, then halfOpenCalls trial searches decide whether it closes again.
+     */
+    public static class Breaker {
+        private boolean enabled = true;
+        private int window = 20;
+        private int minCalls = 10;
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 80;
+        private Duration slowCallDuration = Duration.ofSeconds(10);
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWindow() {
+            return window;
+        }
+
+        public void setWindow(int window) {
+            this.window = window;
+        }
+
+        public int getMinCalls() {
+            return minCalls;
+        }
+
+        public void setMinCalls(int minCalls) {
+            this.minCalls = minCalls;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public Duration getSlowCallDuration() {
+            return slowCallDuration;
+        }
+
+        public void setSlowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+    }
+
+    /**
+     * How search results are fitted into prompts. tokenizer is "auto" (the model's BPE
+     * vocabulary for OpenAI models, an estimate otherwise), "approximate", or a jtokkit
+     * encoding such as "cl100k_base". budgetTokens is shared across a loop's sources by
+     * relevance; 0 means maxTokensPerSource for each source.
+     */
+    public static class Context {
+        private String tokenizer = "auto";
+        private int budgetTokens = 0;
+
+        public String getTokenizer() {
+            return tokenizer;
+        }
+
+        public void setTokenizer(String tokenizer) {
+            this.tokenizer = tokenizer;
+        }
+
+        public int getBudgetTokens() {
+            return budgetTokens;
+        }
+
+        public void setBudgetTokens(int budgetTokens) {
+            this.budgetTokens = budgetTokens;
+        }
+    }
+
+    /**
+     * Summarization of each loop's sources. "single" sends the running summary and every source
+     * in one prompt. "map-reduce" first condenses each source, or each chunk of up to chunkTokens,
+     * into notes with at most fanOut LLM calls at once, then merges the notes into the running
+     * summary in one call. "auto" uses map-reduce when full pages are fetched.
+     */
+    public static class Summarization {
+        public static final String SINGLE = "single";
+        public static final String MAP_REDUCE = "map-reduce";
+        public static final String AUTO = "auto";
+
+        private String mode = AUTO;
+        private int fanOut = 4;
+        private int chunkTokens = 1500;
+
+        // Whether this loop's sources are condensed before they are merged into the summary
+        public boolean usesMapReduce(boolean fetchFullPage) {
+            return MAP_REDUCE.equalsIgnoreCase(mode) || (AUTO.equalsIgnoreCase(mode) && fetchFullPage);
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public int getFanOut() {
+            return fanOut;
+        }
+
+        public void setFanOut(int fanOut) {
+            this.fanOut = fanOut;
+        }
+
+        public int getChunkTokens() {
+            return chunkTokens;
+        }
+
+        public void setChunkTokens(int chunkTokens) {
+            this.chunkTokens = chunkTokens;
+        }
+    }
+
+    /**
+     * The model behind each research role. Query generation and reflection are short
+     * structured tasks a small, fast model handles well; the summarizer may need a larger one.
+     */
+    public static class Models {
+        private RoleModel queryGenerator = new RoleModel();
+        private RoleModel reflection = new RoleModel();
+        private RoleModel summarizer = new RoleModel();
+
+        public RoleModel getQueryGenerator() {
+            return queryGenerator;
+        }
+
+        public void setQueryGenerator(RoleModel queryGenerator) {
+            this.queryGenerator = queryGenerator;
+        }
+
+        public RoleModel getReflection() {
+            return reflection;
+        }
+
+        public void setReflection(RoleModel reflection) {
+            this.reflection = reflection;
+        }
+
+        public RoleModel getSummarizer() {
+            return summarizer;
+        }
+
+        public void setSummarizer(RoleModel summarizer) {
+            this.summarizer = summarizer;
+        }
+    }
+
+    /**
+     * Model settings for one role. Blank strings use llmProvider, modelName, baseUrl and apiKey.
+     * A null temperature means 0.0 for OpenAI-compatible providers and the provider's default
+     * otherwise; a null maxOutputTokens means the provider's default.
+     */
+    public static class RoleModel {
+        private String provider = "";
+        private String modelName = "";
+        private String baseUrl = "";
+        private String apiKey = "";
+        private Double temperature;
+        private Integer maxOutputTokens;
+
+        public String getProvider() {
+            return provider;
+        }
+
+        public void setProvider(String provider) {
+            this.provider = provider;
+        }
+
+        public String getModelName() {
+            return modelName;
+        }
+
+        public void setModelName(String modelName) {
+            this.modelName = modelName;
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        public void setApiKey(String apiKey) {
+            this.apiKey = apiKey;
+        }
+
+        public Double getTemperature() {
+            return temperature;
+        }
+
+        public void setTemperature(Double temperature) {
+            this.temperature = temperature;
+        }
+
+        public Integer getMaxOutputTokens() {
+            return maxOutputTokens;
+        }
+
+        public void setMaxOutputTokens(Integer maxOutputTokens) {
+            this.maxOutputTokens = maxOutputTokens;
+        }
+    }
+
+    public static class LlmRateLimit {
+        private boolean enabled = true;
+        // Per provider; 0 means no limit until the provider's rate-limit headers report one
+        private int requestsPerMinute = 0;
+        private int tokensPerMinute = 0;
+        // Times a call rejected with HTTP 429 is queued again before the error is passed on
+        private int maxRetries = 3;
+        // Wait after a 429 that gave no retry time; doubles on each further retry
+        private Duration retryBackoff = Duration.ofSeconds(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getRequestsPerMinute() {
+            return requestsPerMinute;
+        }
+
+        public void setRequestsPerMinute(int requestsPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+        }
+
+        public int getTokensPerMinute() {
+            return tokensPerMinute;
+        }
+
+        public void setTokensPerMinute(int tokensPerMinute) {
+            this.tokensPerMinute = tokensPerMinute;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+    }
+
+    public static class LlmConcurrency {
+        private boolean enabled = true;
+        // Providers whose backends get a limit; hosted APIs are left to llmRateLimit
+        private List<String> providers = new ArrayList<>(List.of("ollama", "lmstudio"));
+        private int initialLimit = 4;
+        private int minLimit = 1;
+        private int maxLimit = 32;
+        // A call slower than this multiple of the backend's unloaded latency counts as overload
+        private double latencyTolerance = 2.0;
+        // Factor the limit is cut by on overload
+        private double backoffRatio = 0.9;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getProviders() {
+            return providers;
+        }
+
+        public void setProviders(List<String> providers) {
+            this.providers = providers;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+
+        public void setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+    }
+
+    public static class Convergence {
+        private boolean enabled = false;
+        // Stop once a loop's information gain (0 to 1) falls below this
+        private double minGain = 0.2;
+        // Loops always run before stopping early is considered
+        private int minLoops = 2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getMinGain() {
+            return minGain;
+        }
+
+        public void setMinGain(double minGain) {
+            this.minGain = minGain;
+        }
+
+        public int getMinLoops() {
+            return minLoops;
+        }
+
+        public void setMinLoops(int minLoops) {
+            this.minLoops = minLoops;
+        }
+    }
+}
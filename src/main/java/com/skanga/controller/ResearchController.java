@@ -1,74 +1,87 @@
 package com.skanga.controller;
 
+import com.skanga.model.ResearchEvent;
+import com.skanga.model.ResearchJob;
+import com.skanga.model.ResearchRequest;
+import com.skanga.service.ResearchExecutor;
+import com.skanga.service.ResearchJobService;
 import com.skanga.service.ResearchService;
 import com.skanga.config.ResearchConfiguration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 // REST Controller with debug logging
 @RestController
 @RequestMapping("/api/research")
 public class ResearchController {
     private static final Logger logger = LoggerFactory.getLogger(ResearchController.class);
+    private static final long STREAM_TIMEOUT_MS = 600_000;
+    private static final long DEADLINE_GRACE_MS = 30_000;
     private final ResearchService researchService;
     private final ResearchConfiguration config;
+    private final ResearchExecutor researchExecutor;
+    private final ResearchJobService researchJobService;
 
-    public ResearchController(ResearchService researchService, ResearchConfiguration config) {
+    public ResearchController(ResearchService researchService, ResearchConfiguration config,
+                              ResearchExecutor researchExecutor, ResearchJobService researchJobService) {
         this.researchService = researchService;
         this.config = config;
+        this.researchExecutor = researchExecutor;
+        this.researchJobService = researchJobService;
     }
 
     @PostMapping("/conduct")
-    public CompletableFuture<Map<String, String>> conductResearch(@RequestBody Map<String, Object> request) {
+    public DeferredResult<Map<String, String>> conductResearch(@RequestBody Map<String, Object> request) {
         logger.info("=== ResearchController: Starting research request ===");
         logger.info("Request body: {}", request);
         logger.info("Request keys: {}", request.keySet());
 
         String topic = (String) request.get("topic");
-        Object researchStepsObj = request.get("researchSteps");
-        Integer researchSteps = null;
-        
-        logger.info("Raw researchStepsObj: {} (type: {})", researchStepsObj, 
-                   researchStepsObj != null ? researchStepsObj.getClass() : "null");
-        
-        if (researchStepsObj != null) {
-            if (researchStepsObj instanceof Integer) {
-                researchSteps = (Integer) researchStepsObj;
-                logger.info("Parsed Integer researchSteps: {}", researchSteps);
-            } else if (researchStepsObj instanceof String) {
-                try {
-                    researchSteps = Integer.parseInt((String) researchStepsObj);
-                    logger.info("Parsed String researchSteps: {}", researchSteps);
-                } catch (NumberFormatException e) {
-                    logger.warn("Invalid research steps format: {}", researchStepsObj);
-                }
-            } else if (researchStepsObj instanceof Double) {
-                researchSteps = ((Double) researchStepsObj).intValue();
-                logger.info("Parsed Double researchSteps: {}", researchSteps);
-            }
-        }
+        Integer researchSteps = parseResearchSteps(request.get("researchSteps"));
+        boolean bypassCache = parseBypassCache(request.get("bypassCache"));
+        Long deadlineMs = parseDeadlineMs(request.get("deadlineMs"));
         
         logger.info("Research topic: {}", topic);
         logger.info("Final research steps override: {}", researchSteps);
 
+        // With a deadline the servlet timeout must not fire before the partial result is ready
+        DeferredResult<Map<String, String>> deferredResult = deadlineMs != null
+                ? new DeferredResult<>(deadlineMs + DEADLINE_GRACE_MS) : new DeferredResult<>();
         if (topic == null || topic.trim().isEmpty()) {
             logger.error("Invalid topic provided: {}", topic);
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", "Missing required field: topic");
             errorResponse.put("status", "failed");
-            return CompletableFuture.completedFuture(errorResponse);
+            deferredResult.setResult(errorResponse);
+            return deferredResult;
         }
 
         logger.info("Calling ResearchService.conductResearch with topic: {} and steps: {}", 
                   topic, researchSteps);
 
-        return researchService.conductResearch(topic.trim(), researchSteps)
+        ResearchRequest researchRequest = new ResearchRequest(topic.trim(), researchSteps);
+        researchRequest.setBypassCache(bypassCache);
+        researchRequest.setDeadlineMs(deadlineMs);
+        CompletableFuture<String> research = researchService.conductResearch(researchRequest);
+        // Stop the job when the request times out or the client disconnects
+        deferredResult.onTimeout(() -> research.cancel(true));
+        deferredResult.onError(error -> research.cancel(true));
+        research
                 .thenApply(result -> {
                     logger.info("=== ResearchController: Research completed successfully ===");
                     logger.debug("Result length: {} characters", result.length());
@@ -79,27 +92,224 @@ public class ResearchController {
                     return response;
                 })
                 .exceptionally(throwable -> {
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable;
+                    if (cause instanceof RejectedExecutionException) {
+                        logger.warn("=== ResearchController: Research rejected, executor is saturated ===");
+                        Map<String, String> rejectedResponse = new HashMap<>();
+                        rejectedResponse.put("error", cause.getMessage());
+                        rejectedResponse.put("status", "rejected");
+                        return rejectedResponse;
+                    }
                     logger.error("=== ResearchController: Research failed ===", throwable);
                     Map<String, String> errorResponse = new HashMap<>();
                     errorResponse.put("error", throwable.getMessage());
                     errorResponse.put("status", "failed");
                     return errorResponse;
+                })
+                .thenAccept(deferredResult::setResult);
+        return deferredResult;
+    }
+
+    private Integer parseResearchSteps(Object researchStepsObj) {
+        Integer researchSteps = null;
+        
+        logger.info("Raw researchStepsObj: {} (type: {})", researchStepsObj, 
+                   researchStepsObj != null ? researchStepsObj.getClass() : "null");
+        
+        if (researchStepsObj != null) {
+            if (researchStepsObj instanceof Integer) {
+                researchSteps = (Integer) researchStepsObj;
+                logger.info("Parsed Integer researchSteps: {}", researchSteps);
+            } else if (researchStepsObj instanceof String) {
+                try {
+                    researchSteps = Integer.parseInt((String) researchStepsObj);
+                    logger.info("Parsed String researchSteps: {}", researchSteps);
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid research steps format: {}", researchStepsObj);
+                }
+            } else if (researchStepsObj instanceof Double) {
+                researchSteps = ((Double) researchStepsObj).intValue();
+                logger.info("Parsed Double researchSteps: {}", researchSteps);
+            }
+        }
+        return researchSteps;
+    }
+
+    private boolean parseBypassCache(Object bypassCacheObj) {
+        if (bypassCacheObj instanceof Boolean) {
+            return (Boolean) bypassCacheObj;
+        }
+        return bypassCacheObj instanceof String && Boolean.parseBoolean((String) bypassCacheObj);
+    }
+
+    // Positive number of milliseconds, or null for no deadline
+    private Long parseDeadlineMs(Object deadlineMsObj) {
+        Long deadlineMs = null;
+        if (deadlineMsObj instanceof Number) {
+            deadlineMs = ((Number) deadlineMsObj).longValue();
+        } else if (deadlineMsObj instanceof String) {
+            try {
+                deadlineMs = Long.parseLong((String) deadlineMsObj);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid deadline format: {}", deadlineMsObj);
+            }
+        }
+        return deadlineMs != null && deadlineMs > 0 ? deadlineMs : null;
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> submitJob(@RequestBody Map<String, Object> request) {
+        logger.info("=== ResearchController: Submitting research job ===");
+        String topic = (String) request.get("topic");
+        Integer researchSteps = parseResearchSteps(request.get("researchSteps"));
+
+        Map<String, Object> response = new HashMap<>();
+        if (topic == null || topic.trim().isEmpty()) {
+            logger.error("Invalid topic provided: {}", topic);
+            response.put("error", "Missing required field: topic");
+            response.put("status", "failed");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            ResearchRequest researchRequest = new ResearchRequest(topic.trim(), researchSteps);
+            researchRequest.setBypassCache(parseBypassCache(request.get("bypassCache")));
+            researchRequest.setDeadlineMs(parseDeadlineMs(request.get("deadlineMs")));
+            ResearchJob job = researchJobService.submit(researchRequest);
+            response.put("jobId", job.getId());
+            response.put("status", job.getStatus().getValue());
+            return ResponseEntity.accepted().body(response);
+        } catch (RejectedExecutionException e) {
+            logger.warn("=== ResearchController: Research job rejected: {} ===", e.getMessage());
+            response.put("error", e.getMessage());
+            response.put("status", "rejected");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ResearchJob> getJob(@PathVariable("jobId") String jobId) {
+        return researchJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<ResearchJob> cancelJob(@PathVariable("jobId") String jobId) {
+        logger.info("=== ResearchController: Cancelling research job {} ===", jobId);
+        return researchJobService.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamResearch(@RequestParam("topic") String topic,
+                                     @RequestParam(value = "researchSteps", required = false) Integer researchSteps,
+                                     @RequestParam(value = "bypassCache", defaultValue = "false") boolean bypassCache,
+                                     @RequestParam(value = "deadlineMs", required = false) Long deadlineMs) {
+        logger.info("=== ResearchController: Starting streamed research for topic: {} (steps: {}) ===",
+                topic, researchSteps);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        if (topic.trim().isEmpty()) {
+            sendEvent(emitter, ResearchEvent.Type.ERROR.getValue(), Map.of("message", "Missing required field: topic"));
+            emitter.complete();
+            return emitter;
+        }
+
+        // Nobody else is waiting on a streamed job, so a client that goes away cancels it
+        AtomicReference<CompletableFuture<String>> researchRef = new AtomicReference<>();
+        Runnable cancelResearch = () -> {
+            CompletableFuture<String> running = researchRef.get();
+            if (running != null && running.cancel(true)) {
+                logger.info("=== ResearchController: Stream client disconnected, research cancelled ===");
+            }
+        };
+        ResearchRequest researchRequest = new ResearchRequest(topic.trim(), researchSteps);
+        researchRequest.setBypassCache(bypassCache);
+        researchRequest.setDeadlineMs(parseDeadlineMs(deadlineMs));
+        CompletableFuture<String> research = researchService.conductResearch(researchRequest,
+                event -> {
+                    if (!sendEvent(emitter, event.getType().getValue(), event.getData())) {
+                        cancelResearch.run();
+                    }
                 });
+        researchRef.set(research);
+
+        emitter.onTimeout(() -> {
+            cancelResearch.run();
+            emitter.complete();
+        });
+        emitter.onError(error -> cancelResearch.run());
+        research.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause() : throwable;
+                if (cause instanceof RejectedExecutionException) {
+                    sendEvent(emitter, ResearchEvent.Type.ERROR.getValue(),
+                            Map.of("message", String.valueOf(cause.getMessage()), "status", "rejected"));
+                }
+                logger.warn("=== ResearchController: Streamed research failed: {} ===", cause.getMessage());
+            }
+            emitter.complete();
+        });
+        return emitter;
+    }
+
+    private boolean sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Could not send SSE event {}: {}", name, e.getMessage());
+            return false;
+        }
     }
 
     @GetMapping("/health")
-    public Map<String, String> health() {
+    public Map<String, Object> health() {
         logger.debug("Health check requested");
-        Map<String, String> response = new HashMap<>();
+        Map<String, Object> response = new HashMap<>();
         response.put("status", "healthy");
         response.put("timestamp", LocalDate.now().toString());
         response.put("provider", config.getLlmProvider());
         response.put("model", config.getModelName());
         response.put("base_url", config.getBaseUrl());
         response.put("api_key_status", config.getApiKey() != null && !config.getApiKey().isEmpty() ? "configured" : "missing");
+        response.put("search_providers", researchService.getSearchProviderHealth());
         return response;
     }
 
+    @GetMapping("/metrics")
+    public Map<String, Object> metrics() {
+        logger.debug("Metrics requested");
+        Map<String, Object> executor = new HashMap<>();
+        executor.put("threadType", researchExecutor.getThreadType());
+        executor.put("maxInFlight", researchExecutor.getMaxInFlight());
+        executor.put("queueCapacity", researchExecutor.getQueueCapacity());
+        executor.put("activeJobs", researchExecutor.getActiveCount());
+        executor.put("queueDepth", researchExecutor.getQueueDepth());
+        executor.put("completedJobs", researchExecutor.getCompletedCount());
+        executor.put("rejectedJobs", researchExecutor.getRejectedCount());
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("timestamp", LocalDate.now().toString());
+        metrics.put("executor", executor);
+        metrics.put("jobs", researchJobService.getStats());
+        metrics.put("coalescing", researchService.getCoalescingStats());
+        metrics.put("cache", researchService.getCacheStats());
+        metrics.put("llmCache", researchService.getLlmCacheStats());
+        metrics.put("llmRateLimit", researchService.getLlmRateLimitStats());
+        metrics.put("llmConcurrency", researchService.getLlmConcurrencyStats());
+        metrics.put("searchCache", researchService.getSearchCacheStats());
+        metrics.put("searchHedging", researchService.getSearchHedgingStats());
+        metrics.put("searchFederation", researchService.getSearchFederationStats());
+        metrics.put("pageCache", researchService.getPageCacheStats());
+        metrics.put("fetchScreening", researchService.getFetchScreeningStats());
+        return metrics;
+    }
+
     @GetMapping("/debug")
     public Map<String, Object> debug() {
         logger.info("Debug endpoint accessed");
@@ -113,6 +323,7 @@ public class ResearchController {
         configMap.put("baseUrl", config.getBaseUrl());
         configMap.put("apiKeyStatus", (config.getApiKey() != null && !config.getApiKey().isEmpty()) ? "[SET]" : "[NOT SET]");
         configMap.put("maxWebResearchLoops", config.getMaxWebResearchLoops());
+        configMap.put("searchBreadth", config.getSearchBreadth());
         configMap.put("searchApi", config.getSearchApi());
         configMap.put("maxTokensPerSource", config.getMaxTokensPerSource());
         debug.put("config", configMap);
@@ -0,0 +1,10 @@
+package com.skanga.exception;
+
+/**
+ * Thrown when a research phase cannot finish within the request's time budget.
+ */
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
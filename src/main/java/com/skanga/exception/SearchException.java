@@ -4,6 +4,10 @@ package com.skanga.exception;
  * Base exception for all search‑related errors.
  */
 public class SearchException extends RuntimeException {
+    public SearchException(String message) {
+        super(message);
+    }
+
     public SearchException(String message, Throwable cause) {
         super(message, cause);
     }
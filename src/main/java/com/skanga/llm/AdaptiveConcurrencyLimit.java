@@ -0,0 +1,186 @@
+package com.skanga.llm;
+
+import com.skanga.config.ResearchConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for one LLM backend that adapts to its latency (AIMD). The backend's
+ * unloaded latency is tracked as a slowly rising minimum of the samples. A call that finishes
+ * within latencyTolerance of it while the backend was busy raises the limit by 1/limit, so
+ * about one extra slot per round of calls; a slower call or a failure cuts the limit by
+ * backoffRatio, at most once per round. Callers over the limit wait in strict arrival order.
+ */
+class AdaptiveConcurrencyLimit {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimit.class);
+    // How fast the unloaded-latency estimate rises per sample, so it follows a backend that got slower for good
+    private static final double BASELINE_DRIFT = 0.005;
+
+    private final String name;
+    private final ResearchConfiguration.LlmConcurrency config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Deque<Object> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private double baseline = -1;
+    private long lastDecrease;
+    private long completed;
+    private long overloads;
+    private int maxQueueDepth;
+
+    AdaptiveConcurrencyLimit(String name, ResearchConfiguration.LlmConcurrency config) {
+        this.name = name;
+        this.config = config;
+        this.limit = Math.clamp(config.getInitialLimit(), minLimit(), maxLimit());
+        this.lastDecrease = System.nanoTime();
+    }
+
+    /**
+     * Waits until this caller is first in line and the backend has a free slot. The permit
+     * must be handed back through exactly one of onSuccess, onFailure or onCancelled.
+     */
+    Permit acquire() throws InterruptedException {
+        Object ticket = new Object();
+        lock.lock();
+        try {
+            queue.addLast(ticket);
+            maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+            try {
+                while (queue.peekFirst() != ticket || inFlight >= (int) limit) {
+                    changed.await();
+                }
+            } catch (InterruptedException e) {
+                queue.remove(ticket);
+                changed.signalAll();
+                throw e;
+            }
+            queue.removeFirst();
+            inFlight++;
+            // The next in line may fit too
+            changed.signalAll();
+            return new Permit(System.nanoTime(), inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // sampleNanos is the call's latency, per output token when the backend reports them
+    void onSuccess(Permit permit, double sampleNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            completed++;
+            if (baseline < 0) {
+                baseline = sampleNanos;
+            }
+            if (sampleNanos > baseline * config.getLatencyTolerance()) {
+                decrease(permit);
+            } else if (permit.inFlight() * 2 >= limit) {
+                // Only a busy backend shows whether more calls would still be fast
+                limit = Math.min(maxLimit(), limit + 1 / limit);
+            }
+            baseline = Math.min(sampleNanos, baseline * (1 + BASELINE_DRIFT));
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onFailure(Permit permit) {
+        lock.lock();
+        try {
+            inFlight--;
+            completed++;
+            decrease(permit);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The caller gave up (deadline or cancellation); says nothing about the backend
+    void onCancelled(Permit permit) {
+        lock.lock();
+        try {
+            inFlight--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Calls started before the last cut ran under the old limit, so they do not cut it again
+    private void decrease(Permit permit) {
+        overloads++;
+        if (permit.startNanos() - lastDecrease <= 0) {
+            return;
+        }
+        double reduced = Math.max(minLimit(), limit * config.getBackoffRatio());
+        if ((int) reduced != (int) limit) {
+            logger.info("Concurrency limit for {}: {} -> {}", name, (int) limit, (int) reduced);
+        }
+        limit = reduced;
+        lastDecrease = System.nanoTime();
+    }
+
+    private int minLimit() {
+        return Math.max(1, config.getMinLimit());
+    }
+
+    private int maxLimit() {
+        return Math.max(minLimit(), config.getMaxLimit());
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Current limit, calls in flight and waiting, and the latency the limit is judged against
+    Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("limit", (int) limit);
+            stats.put("inFlight", inFlight);
+            stats.put("queueDepth", queue.size());
+            stats.put("maxQueueDepth", maxQueueDepth);
+            stats.put("completed", completed);
+            stats.put("overloads", overloads);
+            if (baseline >= 0) {
+                stats.put("baselineLatencyMs", baseline / TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * When a call got its slot and how many calls were in flight with it.
+     */
+    record Permit(long startNanos, int inFlight) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.skanga.llm;
+
+import com.skanga.util.DiskStore;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * ChatModel decorator that answers repeated requests from an LlmResponseCache.
+ * The key is a hash of the provider, the effective request parameters (the model defaults
+ * overridden by the request) and the full message list, so any change in prompt, model or
+ * temperature is a miss. Only plain text responses are cached.
+ */
+public class CachingChatModel implements ChatModel {
+    private final ChatModel delegate;
+    private final String provider;
+    private final LlmRole role;
+    private final LlmResponseCache cache;
+
+    public CachingChatModel(ChatModel delegate, String provider, LlmRole role, LlmResponseCache cache) {
+        this.delegate = delegate;
+        this.provider = provider;
+        this.role = role;
+        this.cache = cache;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        String key = cacheKey(chatRequest);
+        Optional<LlmResponseCache.CachedResponse> cached = cache.get(role, key);
+        if (cached.isPresent()) {
+            LlmResponseCache.CachedResponse response = cached.get();
+            return ChatResponse.builder()
+                    .aiMessage(AiMessage.from(response.text()))
+                    .modelName(response.modelName())
+                    .finishReason(response.finishReason() != null ? FinishReason.valueOf(response.finishReason()) : null)
+                    .build();
+        }
+
+        ChatResponse response = delegate.chat(chatRequest);
+        AiMessage aiMessage = response.aiMessage();
+        if (aiMessage != null && aiMessage.text() != null && !aiMessage.hasToolExecutionRequests()) {
+            cache.put(key, new LlmResponseCache.CachedResponse(aiMessage.text(), response.modelName(),
+                    response.finishReason() != null ? response.finishReason().name() : null));
+        }
+        return response;
+    }
+
+    String cacheKey(ChatRequest chatRequest) {
+        ChatRequestParameters defaults = delegate.defaultRequestParameters();
+        ChatRequestParameters effective = defaults != null
+                ? defaults.overrideWith(chatRequest.parameters()) : chatRequest.parameters();
+        return DiskStore.sha256(provider, String.valueOf(effective),
+                ChatMessageSerializer.messagesToJson(chatRequest.messages()));
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
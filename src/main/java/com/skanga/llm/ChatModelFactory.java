@@ -0,0 +1,149 @@
+package com.skanga.llm;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.model.LLMProvider;
+import dev.langchain4j.model.anthropic.AnthropicChatModel;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the ChatModel used by each research role.
+ * Each role can name its own provider, model, base URL, temperature and output limit under
+ * research.models; roles whose settings come out the same share one provider client. Roles
+ * with caching enabled get their client wrapped in a CachingChatModel, outside the rate limiter
+ * so cache hits use no provider quota. Self-hosted backends also get an adaptive concurrency
+ * limit, innermost so that only the call itself holds a slot.
+ */
+@Component
+public class ChatModelFactory {
+    private static final Logger logger = LoggerFactory.getLogger(ChatModelFactory.class);
+    private final ResearchConfiguration config;
+    private final LlmResponseCache responseCache;
+    private final LlmRateLimiter rateLimiter;
+    private final LlmConcurrencyLimiter concurrencyLimiter;
+    private final Map<ModelSettings, ChatModel> chatModels = new HashMap<>();
+
+    public ChatModelFactory(ResearchConfiguration config, LlmResponseCache responseCache,
+                            LlmRateLimiter rateLimiter, LlmConcurrencyLimiter concurrencyLimiter) {
+        this.config = config;
+        this.responseCache = responseCache;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public synchronized ChatModel forRole(LlmRole role) {
+        ModelSettings settings = settingsFor(role);
+        ChatModel chatModel = chatModels.computeIfAbsent(settings, key -> {
+            String backend = key.provider() + "|" + key.baseUrl();
+            return rateLimiter.guard(concurrencyLimiter.guard(createChatModel(key), key.provider(), backend), backend);
+        });
+        logger.info("{} uses {}", role.getValue(), settings);
+        if (responseCache.isEnabled(role)) {
+            logger.info("Caching {} responses", role.getValue());
+            return new CachingChatModel(chatModel, settings.provider() + "|" + settings.baseUrl(),
+                    role, responseCache);
+        }
+        return chatModel;
+    }
+
+    // The role's settings from research.models, with blank fields taken from the top-level LLM settings
+    public ModelSettings settingsFor(LlmRole role) {
+        return settingsFor(config, role);
+    }
+
+    // Also used where a role's model matters without a client, such as picking its tokenizer
+    public static ModelSettings settingsFor(ResearchConfiguration config, LlmRole role) {
+        ResearchConfiguration.RoleModel roleModel = switch (role) {
+            case QUERY_GENERATOR -> config.getModels().getQueryGenerator();
+            case REFLECTION -> config.getModels().getReflection();
+            case SUMMARIZER -> config.getModels().getSummarizer();
+        };
+        return new ModelSettings(
+                orDefault(roleModel.getProvider(), config.getLlmProvider()),
+                orDefault(roleModel.getModelName(), config.getModelName()),
+                orDefault(roleModel.getBaseUrl(), config.getBaseUrl()),
+                orDefault(roleModel.getApiKey(), config.getApiKey()),
+                roleModel.getTemperature(),
+                roleModel.getMaxOutputTokens());
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value == null || value.isBlank() ? fallback : value.trim();
+    }
+
+    public LlmResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public LlmRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public LlmConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    private ChatModel createChatModel(ModelSettings settings) {
+        logger.debug("=== ChatModelFactory: Creating ChatModel ===");
+        LLMProvider provider = LLMProvider.fromString(settings.provider());
+
+        // Validate configuration
+        if (settings.baseUrl() == null || settings.baseUrl().trim().isEmpty()) {
+            logger.error("Base URL cannot be null or empty");
+            throw new IllegalArgumentException("Base URL cannot be null or empty");
+        }
+
+        if (settings.modelName() == null || settings.modelName().trim().isEmpty()) {
+            logger.error("Model name cannot be null or empty");
+            throw new IllegalArgumentException("Model name cannot be null or empty");
+        }
+
+        logger.info("Creating ChatModel with provider: {}, model: {}, baseUrl: {}",
+                provider, settings.modelName(), settings.baseUrl());
+
+        return switch (provider) {
+            case OPENAI, GROQ, INCEPTION, OLLAMA, OPENROUTER, LMSTUDIO -> OpenAiChatModel.builder()
+                    .baseUrl(settings.baseUrl())
+                    .apiKey(settings.apiKey())
+                    .modelName(settings.modelName())
+                    .temperature(settings.temperature() != null ? settings.temperature() : 0.0)
+                    .maxTokens(settings.maxOutputTokens())
+                    .build();
+            case ANTHROPIC -> AnthropicChatModel.builder()
+                    .apiKey(settings.apiKey())
+                    .modelName(settings.modelName())
+                    .temperature(settings.temperature())
+                    .maxTokens(settings.maxOutputTokens())
+                    .build();
+            case GEMINI -> GoogleAiGeminiChatModel.builder()
+                    .apiKey(settings.apiKey())
+                    .modelName(settings.modelName())
+                    .temperature(settings.temperature())
+                    .maxOutputTokens(settings.maxOutputTokens())
+                    .build();
+            default -> {
+                logger.error("Unsupported LLM provider: {}", settings.provider());
+                throw new IllegalArgumentException("Unsupported LLM provider: " + settings.provider());
+            }
+        };
+    }
+
+    /**
+     * Resolved model settings for a role; equal settings share a client.
+     */
+    public record ModelSettings(String provider, String modelName, String baseUrl, String apiKey,
+                                Double temperature, Integer maxOutputTokens) {
+        // Keeps the API key out of logs and metadata
+        @Override
+        public String toString() {
+            return provider + "/" + modelName;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.skanga.llm;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * ChatModel decorator that holds a slot of its backend's AdaptiveConcurrencyLimit for the
+ * length of each call and reports how the call went. Latency is divided by the output tokens
+ * when the backend reports them, so long answers are not mistaken for overload.
+ */
+class ConcurrencyLimitedChatModel implements ChatModel {
+    private final ChatModel delegate;
+    private final AdaptiveConcurrencyLimit limit;
+
+    ConcurrencyLimitedChatModel(ChatModel delegate, AdaptiveConcurrencyLimit limit) {
+        this.delegate = delegate;
+        this.limit = limit;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        AdaptiveConcurrencyLimit.Permit permit;
+        try {
+            permit = limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while queued for the LLM backend");
+        }
+        ChatResponse response;
+        try {
+            response = delegate.chat(chatRequest);
+        } catch (RuntimeException e) {
+            if (e instanceof CancellationException || Thread.currentThread().isInterrupted()) {
+                limit.onCancelled(permit);
+            } else {
+                limit.onFailure(permit);
+            }
+            throw e;
+        }
+        double latency = System.nanoTime() - permit.startNanos();
+        Integer outputTokens = response.tokenUsage() != null ? response.tokenUsage().outputTokenCount() : null;
+        limit.onSuccess(permit, outputTokens != null && outputTokens > 0 ? latency / outputTokens : latency);
+        return response;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
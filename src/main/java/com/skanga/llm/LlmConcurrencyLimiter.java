@@ -0,0 +1,56 @@
+package com.skanga.llm;
+
+import com.skanga.config.ResearchConfiguration;
+import dev.langchain4j.model.chat.ChatModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive concurrency limits for self-hosted LLM backends such as Ollama and LM Studio, where
+ * one machine serves every research job and too many parallel calls slow all of them down.
+ * Each backend, told apart by provider and base URL, gets one AdaptiveConcurrencyLimit shared
+ * by all roles that use it. Providers not listed in research.llmConcurrency.providers pass through.
+ */
+@Component
+public class LlmConcurrencyLimiter {
+    private final ResearchConfiguration.LlmConcurrency config;
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LlmConcurrencyLimiter(ResearchConfiguration config) {
+        this(config.getLlmConcurrency());
+    }
+
+    public LlmConcurrencyLimiter(ResearchConfiguration.LlmConcurrency config) {
+        this.config = config;
+    }
+
+    // Whether calls to provider go through a concurrency limit
+    public boolean appliesTo(String provider) {
+        return config.isEnabled() && config.getProviders().stream()
+                .anyMatch(name -> name.trim().equalsIgnoreCase(provider));
+    }
+
+    // chatModel with its calls limited per backend; unchanged for providers without a limit
+    public ChatModel guard(ChatModel chatModel, String provider, String backend) {
+        if (!appliesTo(provider)) {
+            return chatModel;
+        }
+        return new ConcurrencyLimitedChatModel(chatModel,
+                limits.computeIfAbsent(backend, name -> new AdaptiveConcurrencyLimit(name, config)));
+    }
+
+    // Current limit, in-flight calls and queue depth of every limited backend
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", config.isEnabled());
+        Map<String, Object> backends = new LinkedHashMap<>();
+        limits.forEach((name, limit) -> backends.put(name, limit.getStats()));
+        stats.put("backends", backends);
+        return stats;
+    }
+}
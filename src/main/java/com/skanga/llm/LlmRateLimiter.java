@@ -0,0 +1,53 @@
+package com.skanga.llm;
+
+import com.skanga.config.ResearchConfiguration;
+import dev.langchain4j.model.chat.ChatModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dispatcher in front of every LLM provider. Each provider, told apart by name and base
+ * URL, gets one ProviderQuota that all research jobs and roles draw from, so concurrent jobs
+ * queue behind each other instead of bursting past the provider's limits and failing with 429.
+ */
+@Component
+public class LlmRateLimiter {
+    private final ResearchConfiguration.LlmRateLimit config;
+    private final Map<String, ProviderQuota> quotas = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LlmRateLimiter(ResearchConfiguration config) {
+        this(config.getLlmRateLimit());
+    }
+
+    public LlmRateLimiter(ResearchConfiguration.LlmRateLimit config) {
+        this.config = config;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    // chatModel with its calls dispatched through provider's quota; unchanged when rate limiting is off
+    public ChatModel guard(ChatModel chatModel, String provider) {
+        if (!isEnabled()) {
+            return chatModel;
+        }
+        return new RateLimitedChatModel(chatModel, quotas.computeIfAbsent(provider,
+                name -> new ProviderQuota(name, config.getRequestsPerMinute(), config.getTokensPerMinute())), config);
+    }
+
+    // Limits, queue depth, queue wait and 429s of every provider called so far
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        Map<String, Object> providers = new LinkedHashMap<>();
+        quotas.forEach((name, quota) -> providers.put(name, quota.getStats()));
+        stats.put("providers", providers);
+        return stats;
+    }
+}
@@ -0,0 +1,151 @@
+package com.skanga.llm;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.util.LruDiskStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier store for LLM responses, keyed by a hash of the full request.
+ * The memory tier is an LRU map bounded by maxEntries; the optional disk tier keeps one file per
+ * response, bounded by maxDiskBytes with LRU eviction, and is consulted on a memory miss, so
+ * responses survive restarts.
+ * Hits and misses are counted per role.
+ */
+@Component
+public class LlmResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(LlmResponseCache.class);
+
+    private final Set<LlmRole> enabledRoles;
+    private final int maxEntries;
+    private final LruDiskStore diskStore;
+    private final Map<LlmRole, LongAdder> hits = new EnumMap<>(LlmRole.class);
+    private final Map<LlmRole, LongAdder> misses = new EnumMap<>(LlmRole.class);
+
+    // Access ordered for LRU eviction; guarded by "this"
+    private final LinkedHashMap<String, CachedResponse> memory;
+
+    @Autowired
+    public LlmResponseCache(ResearchConfiguration config) {
+        this(enabledRoles(config.getLlmCache()), config.getLlmCache().getMaxEntries(),
+                config.getLlmCache().getDirectory() == null || config.getLlmCache().getDirectory().isBlank()
+                        ? null : Path.of(config.getLlmCache().getDirectory()),
+                config.getLlmCache().getMaxSize().toBytes());
+    }
+
+    // A null directory keeps the cache in memory only
+    public LlmResponseCache(Set<LlmRole> enabledRoles, int maxEntries, Path directory, long maxDiskBytes) {
+        this.enabledRoles = maxEntries > 0 && !enabledRoles.isEmpty()
+                ? EnumSet.copyOf(enabledRoles) : EnumSet.noneOf(LlmRole.class);
+        this.maxEntries = maxEntries;
+        this.diskStore = !this.enabledRoles.isEmpty() && directory != null && maxDiskBytes > 0
+                ? new LruDiskStore(directory, maxDiskBytes) : null;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > LlmResponseCache.this.maxEntries;
+            }
+        };
+        for (LlmRole role : LlmRole.values()) {
+            hits.put(role, new LongAdder());
+            misses.put(role, new LongAdder());
+        }
+        logger.info("=== LlmResponseCache: roles={}, maxEntries={}, directory={}, maxDiskBytes={} ===",
+                this.enabledRoles, maxEntries, directory, maxDiskBytes);
+    }
+
+    private static Set<LlmRole> enabledRoles(ResearchConfiguration.LlmCache config) {
+        Set<LlmRole> roles = EnumSet.noneOf(LlmRole.class);
+        if (config.isEnabled()) {
+            if (config.isQueryGenerator()) {
+                roles.add(LlmRole.QUERY_GENERATOR);
+            }
+            if (config.isSummarizer()) {
+                roles.add(LlmRole.SUMMARIZER);
+            }
+            if (config.isReflection()) {
+                roles.add(LlmRole.REFLECTION);
+            }
+        }
+        return roles;
+    }
+
+    public boolean isEnabled(LlmRole role) {
+        return enabledRoles.contains(role);
+    }
+
+    public Optional<CachedResponse> get(LlmRole role, String key) {
+        CachedResponse response;
+        synchronized (this) {
+            response = memory.get(key);
+        }
+        if (response == null && diskStore != null) {
+            response = diskStore.read(key, CachedResponse.class).orElse(null);
+            if (response != null) {
+                synchronized (this) {
+                    memory.put(key, response);
+                }
+            }
+        }
+        (response != null ? hits : misses).get(role).increment();
+        return Optional.ofNullable(response);
+    }
+
+    public void put(String key, CachedResponse response) {
+        synchronized (this) {
+            memory.put(key, response);
+        }
+        if (diskStore != null) {
+            diskStore.write(key, response);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("size", memory.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("diskTier", diskStore != null);
+        if (diskStore != null) {
+            stats.put("diskSize", diskStore.size());
+            stats.put("diskBytes", diskStore.bytes());
+            stats.put("maxDiskBytes", diskStore.getMaxBytes());
+            stats.put("diskEvictions", diskStore.evictions());
+        }
+        long totalHits = 0;
+        long totalMisses = 0;
+        Map<String, Object> roles = new LinkedHashMap<>();
+        for (LlmRole role : LlmRole.values()) {
+            long roleHits = hits.get(role).sum();
+            long roleMisses = misses.get(role).sum();
+            Map<String, Object> roleStats = new LinkedHashMap<>();
+            roleStats.put("enabled", isEnabled(role));
+            roleStats.put("hits", roleHits);
+            roleStats.put("misses", roleMisses);
+            roles.put(role.getValue(), roleStats);
+            totalHits += roleHits;
+            totalMisses += roleMisses;
+        }
+        stats.put("hits", totalHits);
+        stats.put("misses", totalMisses);
+        stats.put("hitRate", totalHits + totalMisses == 0 ? 0.0 : (double) totalHits / (totalHits + totalMisses));
+        stats.put("roles", roles);
+        return stats;
+    }
+
+    // The parts of a chat response worth replaying
+    public record CachedResponse(String text, String modelName, String finishReason) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.skanga.llm;
+
+// The distinct jobs the LLM does during research; each can be configured separately
+public enum LlmRole {
+    QUERY_GENERATOR("queryGenerator"),
+    SUMMARIZER("summarizer"),
+    REFLECTION("reflection");
+
+    private final String value;
+
+    LlmRole(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
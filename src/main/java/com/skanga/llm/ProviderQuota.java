@@ -0,0 +1,245 @@
+package com.skanga.llm;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Request and token quotas of one LLM provider, as two per-minute buckets that refill
+ * continuously. A call reserves one request and its estimated tokens and is told how long to
+ * wait; buckets may go below zero, so callers are served in the order they reserved. Limits
+ * and remaining quota reported by the provider's x-ratelimit-* headers tighten the buckets, and
+ * a 429 pauses the provider for every caller. All state is guarded by "this".
+ */
+class ProviderQuota {
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    // Parts of an OpenAI-style reset time such as "6m0s", "1.5s" or "20ms"
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final String name;
+    private final Bucket requests;
+    private final Bucket tokens;
+    private long pausedUntil;
+    private int waiting;
+    private long calls;
+    private long queuedCalls;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private long rateLimited;
+    private long refunded;
+    private long failed;
+
+    ProviderQuota(String name, int requestsPerMinute, int tokensPerMinute) {
+        long now = System.nanoTime();
+        this.name = name;
+        this.requests = new Bucket(requestsPerMinute, now);
+        this.tokens = new Bucket(tokensPerMinute, now);
+        this.pausedUntil = now;
+    }
+
+    String name() {
+        return name;
+    }
+
+    // Reserves a request and estimatedTokens, returning the nanoseconds to wait before sending it
+    synchronized long reserve(long estimatedTokens) {
+        long now = System.nanoTime();
+        long wait = Math.max(0, pausedUntil - now);
+        wait = Math.max(wait, requests.reserve(1, now));
+        wait = Math.max(wait, tokens.reserve(estimatedTokens, now));
+        calls++;
+        if (wait > 0) {
+            queuedCalls++;
+        }
+        return wait;
+    }
+
+    synchronized void waitStarted() {
+        waiting++;
+    }
+
+    synchronized void waitEnded(long waitedNanos) {
+        waiting--;
+        totalWaitNanos += waitedNanos;
+        maxWaitNanos = Math.max(maxWaitNanos, waitedNanos);
+    }
+
+    // Settles the token estimate against the usage the provider reported, then applies its rate-limit headers
+    synchronized void onResponse(long estimatedTokens, Integer usedTokens, Map<String, List<String>> headers) {
+        long now = System.nanoTime();
+        if (usedTokens != null) {
+            tokens.adjust(estimatedTokens - usedTokens, now);
+        }
+        if (headers == null || headers.isEmpty()) {
+            return;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        headers.forEach((header, list) -> {
+            if (header != null && list != null && !list.isEmpty()) {
+                values.put(header.toLowerCase(Locale.ROOT), list.getFirst());
+            }
+        });
+        apply(values, "requests", requests, now);
+        apply(values, "tokens", tokens, now);
+    }
+
+    private void apply(Map<String, String> headers, String kind, Bucket bucket, long now) {
+        Long limit = parseLong(headers.get("x-ratelimit-limit-" + kind));
+        if (limit != null) {
+            bucket.limitTo(limit, now);
+        }
+        Long remaining = parseLong(headers.get("x-ratelimit-remaining-" + kind));
+        if (remaining != null) {
+            bucket.remaining(remaining, now);
+            long reset = parseDuration(headers.get("x-ratelimit-reset-" + kind));
+            if (remaining == 0 && reset > 0) {
+                pausedUntil = Math.max(pausedUntil, now + reset);
+            }
+        }
+    }
+
+    // A 429 came back: hold every caller for retryAfterNanos and give back the call's token estimate
+    synchronized void onRateLimited(long estimatedTokens, long retryAfterNanos) {
+        long now = System.nanoTime();
+        rateLimited++;
+        tokens.adjust(estimatedTokens, now);
+        pausedUntil = Math.max(pausedUntil, now + retryAfterNanos);
+    }
+
+    // A reserved call was given up while queued, or failed without being rate limited: give back its reservation
+    synchronized void refund(long estimatedTokens) {
+        long now = System.nanoTime();
+        refunded++;
+        requests.unreserve(1, now);
+        tokens.unreserve(estimatedTokens, now);
+    }
+
+    // A call ran out of retries and its error was passed on
+    synchronized void onFailed() {
+        failed++;
+    }
+
+    // Current limits, callers waiting now, and how often and how long calls queued
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requestsPerMinute", Math.round(requests.perMinute));
+        stats.put("tokensPerMinute", Math.round(tokens.perMinute));
+        stats.put("waiting", waiting);
+        stats.put("calls", calls);
+        stats.put("queuedCalls", queuedCalls);
+        stats.put("queueWaitMs", TimeUnit.NANOSECONDS.toMillis(totalWaitNanos));
+        stats.put("averageQueueWaitMs", calls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / calls));
+        stats.put("maxQueueWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+        stats.put("rateLimited", rateLimited);
+        stats.put("refunded", refunded);
+        stats.put("failed", failed);
+        long pausedFor = pausedUntil - System.nanoTime();
+        if (pausedFor > 0) {
+            stats.put("pausedForMs", TimeUnit.NANOSECONDS.toMillis(pausedFor));
+        }
+        return stats;
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Nanoseconds in an OpenAI-style duration; a bare number is seconds. 0 when it cannot be read
+    static long parseDuration(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        try {
+            return (long) (Double.parseDouble(text) * TimeUnit.SECONDS.toNanos(1));
+        } catch (NumberFormatException e) {
+            // Not a bare number
+        }
+        double nanos = 0;
+        Matcher part = DURATION_PART.matcher(text);
+        while (part.find()) {
+            double amount = Double.parseDouble(part.group(1));
+            nanos += switch (part.group(2)) {
+                case "h" -> amount * TimeUnit.HOURS.toNanos(1);
+                case "m" -> amount * TimeUnit.MINUTES.toNanos(1);
+                case "s" -> amount * TimeUnit.SECONDS.toNanos(1);
+                default -> amount * TimeUnit.MILLISECONDS.toNanos(1);
+            };
+        }
+        return (long) nanos;
+    }
+
+    /**
+     * One per-minute quota. A limit of 0 means unlimited until limitTo sets one.
+     */
+    private static final class Bucket {
+        private final double configured;
+        private double perMinute;
+        private double available;
+        private long updatedAt;
+
+        Bucket(double perMinute, long now) {
+            this.configured = Math.max(0, perMinute);
+            this.perMinute = this.configured;
+            this.available = this.configured;
+            this.updatedAt = now;
+        }
+
+        // A call larger than the whole quota is charged the whole quota, so it still gets through
+        long reserve(long amount, long now) {
+            if (perMinute <= 0) {
+                return 0;
+            }
+            refill(now);
+            available -= Math.min(amount, perMinute);
+            return available >= 0 ? 0 : (long) (-available / perMinute * NANOS_PER_MINUTE);
+        }
+
+        // Gives back what reserve took for amount
+        void unreserve(long amount, long now) {
+            adjust((long) Math.min(amount, perMinute), now);
+        }
+
+        void adjust(long amount, long now) {
+            if (perMinute > 0) {
+                refill(now);
+                available = Math.min(perMinute, available + amount);
+            }
+        }
+
+        // The provider's limit, or the configured one where that is lower
+        void limitTo(long limit, long now) {
+            double target = configured > 0 ? Math.min(configured, limit) : limit;
+            if (target <= 0 || target == perMinute) {
+                return;
+            }
+            refill(now);
+            available = perMinute <= 0 ? target : Math.min(available, target);
+            perMinute = target;
+        }
+
+        // The provider knows of less quota than we do when something else shares the key
+        void remaining(long remaining, long now) {
+            if (perMinute > 0) {
+                refill(now);
+                available = Math.min(available, remaining);
+            }
+        }
+
+        private void refill(long now) {
+            available = Math.min(perMinute, available + (double) (now - updatedAt) * perMinute / NANOS_PER_MINUTE);
+            updatedAt = now;
+        }
+    }
+}
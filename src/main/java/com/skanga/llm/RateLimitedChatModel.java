@@ -0,0 +1,166 @@
+package com.skanga.llm;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.token.ApproximateTokenCounter;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.exception.RateLimitException;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiChatResponseMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ChatModel decorator that sends each call through its provider's ProviderQuota. A call first
+ * reserves a request and an estimate of its tokens (prompt plus the output limit) and sleeps
+ * until its turn; a 429 pauses the provider and queues the call again, up to maxRetries times.
+ * A call cancelled while queued, or failing for any other reason, gives its reservation back.
+ * Successful OpenAI-compatible responses carry the provider's rate-limit headers, which keep
+ * the quota in step with the provider. Error responses reach us without headers, so the retry
+ * time is taken from the error message ("try again in 7.5s") or from the configured backoff.
+ */
+class RateLimitedChatModel implements ChatModel {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitedChatModel.class);
+    private static final Pattern RETRY_HINT = Pattern.compile("(?i)(?:try again|retry) in (\\d+(?:\\.\\d+)?)\\s*(ms|s)");
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ChatModel delegate;
+    private final ProviderQuota quota;
+    private final ResearchConfiguration.LlmRateLimit config;
+
+    RateLimitedChatModel(ChatModel delegate, ProviderQuota quota, ResearchConfiguration.LlmRateLimit config) {
+        this.delegate = delegate;
+        this.quota = quota;
+        this.config = config;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        long estimatedTokens = estimateTokens(chatRequest);
+        for (int attempt = 0; ; attempt++) {
+            await(quota.reserve(estimatedTokens), estimatedTokens);
+            ChatResponse response;
+            try {
+                response = delegate.chat(chatRequest);
+            } catch (RuntimeException e) {
+                if (!isRateLimit(e)) {
+                    quota.refund(estimatedTokens);
+                    throw e;
+                }
+                if (attempt >= config.getMaxRetries()) {
+                    quota.onFailed();
+                    throw e;
+                }
+                long retryAfter = retryAfterNanos(e, attempt);
+                logger.warn("{} rate limited the call, retrying in {} ms", quota.name(),
+                        TimeUnit.NANOSECONDS.toMillis(retryAfter));
+                quota.onRateLimited(estimatedTokens, retryAfter);
+                continue;
+            }
+            Integer usedTokens = response.tokenUsage() != null ? response.tokenUsage().totalTokenCount() : null;
+            Map<String, List<String>> headers = response.metadata() instanceof OpenAiChatResponseMetadata openAi
+                    && openAi.rawHttpResponse() != null ? openAi.rawHttpResponse().headers() : null;
+            quota.onResponse(estimatedTokens, usedTokens, headers);
+            return response;
+        }
+    }
+
+    private void await(long waitNanos, long estimatedTokens) {
+        if (waitNanos <= 0) {
+            return;
+        }
+        quota.waitStarted();
+        long start = System.nanoTime();
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            quota.refund(estimatedTokens);
+            throw new CancellationException("Interrupted while queued for " + quota.name());
+        } finally {
+            quota.waitEnded(System.nanoTime() - start);
+        }
+    }
+
+    long estimateTokens(ChatRequest chatRequest) {
+        long tokens = 0;
+        for (ChatMessage message : chatRequest.messages()) {
+            tokens += ApproximateTokenCounter.INSTANCE.count(textOf(message));
+        }
+        ChatRequestParameters defaults = delegate.defaultRequestParameters();
+        ChatRequestParameters effective = defaults != null
+                ? defaults.overrideWith(chatRequest.parameters()) : chatRequest.parameters();
+        if (effective != null && effective.maxOutputTokens() != null) {
+            tokens += effective.maxOutputTokens();
+        }
+        return tokens;
+    }
+
+    private static String textOf(ChatMessage message) {
+        return switch (message) {
+            case SystemMessage system -> system.text();
+            case UserMessage user -> String.join("\n", user.contents().stream()
+                    .filter(TextContent.class::isInstance)
+                    .map(content -> ((TextContent) content).text())
+                    .toList());
+            case AiMessage ai -> ai.text() != null ? ai.text() : "";
+            default -> String.valueOf(message);
+        };
+    }
+
+    private static boolean isRateLimit(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RateLimitException
+                    || cause instanceof HttpException http && http.statusCode() == TOO_MANY_REQUESTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The wait the provider asked for in its error message, else the backoff doubled per retry
+    private long retryAfterNanos(Throwable error, int attempt) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null) {
+                Matcher hint = RETRY_HINT.matcher(cause.getMessage());
+                if (hint.find()) {
+                    return ProviderQuota.parseDuration(hint.group(1) + hint.group(2).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return config.getRetryBackoff().toNanos() << Math.min(attempt, 10);
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
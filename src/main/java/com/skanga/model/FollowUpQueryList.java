@@ -0,0 +1,25 @@
+package com.skanga.model;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Several follow-up queries, one per knowledge gap
+public class FollowUpQueryList {
+    @JsonProperty("follow_up_queries")
+    @JsonAlias({"followUpQueries", "follow-up-queries", "followup_queries", "queries"})
+    private List<FollowUpQuery> followUpQueries = new ArrayList<>();
+
+    public FollowUpQueryList() {
+    }
+
+    public List<FollowUpQuery> getFollowUpQueries() {
+        return followUpQueries;
+    }
+
+    public void setFollowUpQueries(List<FollowUpQuery> followUpQueries) {
+        this.followUpQueries = followUpQueries;
+    }
+}
@@ -0,0 +1,66 @@
+package com.skanga.model;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Progress event emitted while a research job moves through its phases
+public class ResearchEvent {
+    private final Type type;
+    private final Map<String, Object> data;
+    private final LocalDateTime timestamp;
+
+    public ResearchEvent(Type type, Map<String, Object> data) {
+        this.type = type;
+        this.data = new LinkedHashMap<>(data);
+        this.timestamp = LocalDateTime.now();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "ResearchEvent{" +
+                "type=" + type +
+                ", data=" + data +
+                '}';
+    }
+
+    // Event types, named as they appear on the SSE stream
+    public enum Type {
+        STARTED("started"),
+        QUERY_GENERATED("query-generated"),
+        SEARCH_STARTED("search-started"),
+        SEARCH_FINISHED("search-finished"),
+        SOURCES_FOUND("sources-found"),
+        SUMMARY_UPDATED("summary-updated"),
+        REFLECTION_GAP("reflection-gap"),
+        DONE("done"),
+        ERROR("error");
+
+        private final String value;
+
+        Type(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package com.skanga.model;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class ResearchMetadata {
+    // Why the research loop ended
+    public static final String STOP_MAX_LOOPS = "maxLoops";
+    public static final String STOP_CONVERGED = "converged";
+    public static final String STOP_DEADLINE = "deadline";
+
     private LocalDateTime date;
     private long totalTimeTaken;
     private int loopCount;
@@ -10,6 +20,12 @@ public class ResearchMetadata {
     private int llmCallCount;
     private String llmProvider;
     private String modelName;
+    private boolean partial;
+    private Long remainingBudgetMs;
+    private Map<String, Long> stageTimings = new LinkedHashMap<>();
+    private Map<String, RoleCalls> llmCallsByRole = new LinkedHashMap<>();
+    private String stopReason;
+    private List<Double> informationGain = new ArrayList<>();
 
     public ResearchMetadata() {
         this.date = LocalDateTime.now();
@@ -71,11 +87,84 @@ public class ResearchMetadata {
         this.modelName = modelName;
     }
 
+    // True when the deadline cut the research short
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    // Unused part of the request deadline, or null when the request had none
+    public Long getRemainingBudgetMs() {
+        return remainingBudgetMs;
+    }
+
+    public void setRemainingBudgetMs(Long remainingBudgetMs) {
+        this.remainingBudgetMs = remainingBudgetMs;
+    }
+
+    // One of the STOP_ constants
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    public void setStopReason(String stopReason) {
+        this.stopReason = stopReason;
+    }
+
+    // Information gain (0 to 1) of each loop that was followed by reflection, in loop order
+    public List<Double> getInformationGain() {
+        return informationGain;
+    }
+
+    public void setInformationGain(List<Double> informationGain) {
+        this.informationGain = informationGain;
+    }
+
+    public void addInformationGain(double gain) {
+        informationGain.add(gain);
+    }
+
+    // Milliseconds spent in each research stage, summed over all loops, in the order stages first ran
+    public Map<String, Long> getStageTimings() {
+        return stageTimings;
+    }
+
+    public void setStageTimings(Map<String, Long> stageTimings) {
+        this.stageTimings = stageTimings;
+    }
+
+    public void addStageTime(String stage, long millis) {
+        stageTimings.merge(stage, millis, Long::sum);
+    }
+
+    // LLM calls and their latency for each role (queryGenerator, summarizer, reflection), in the order roles first ran
+    public Map<String, RoleCalls> getLlmCallsByRole() {
+        return llmCallsByRole;
+    }
+
+    public void setLlmCallsByRole(Map<String, RoleCalls> llmCallsByRole) {
+        this.llmCallsByRole = llmCallsByRole;
+    }
+
+    // Names the model a role uses, so its calls can be told apart when roles use different models
+    public synchronized void setRoleModel(String role, String model) {
+        llmCallsByRole.computeIfAbsent(role, r -> new RoleCalls()).setModel(model);
+    }
+
+    // Counts one LLM call by role, including in the total; map-stage calls arrive from several threads
+    public synchronized void recordLlmCall(String role, long millis) {
+        llmCallCount++;
+        llmCallsByRole.computeIfAbsent(role, r -> new RoleCalls()).record(millis);
+    }
+
     public void incrementSearchCallCount() {
         this.searchCallCount++;
     }
 
-    public void incrementLlmCallCount() {
+    public synchronized void incrementLlmCallCount() {
         this.llmCallCount++;
     }
 
@@ -89,6 +178,92 @@ public class ResearchMetadata {
         sb.append("- LLM Call Count: ").append(llmCallCount).append("\n");
         sb.append("- LLM Provider: ").append(llmProvider).append("\n");
         sb.append("- Model Name: ").append(modelName);
+        if (!stageTimings.isEmpty()) {
+            sb.append("\n- Stage Timings: ");
+            stageTimings.forEach((stage, millis) -> sb.append(stage).append(' ').append(millis).append(" ms, "));
+            sb.setLength(sb.length() - 2);
+        }
+        if (llmCallsByRole.values().stream().anyMatch(calls -> calls.getCalls() > 0)) {
+            sb.append("\n- LLM Calls By Role: ");
+            llmCallsByRole.forEach((role, calls) -> {
+                if (calls.getCalls() > 0) {
+                    sb.append(role);
+                    if (calls.getModel() != null) {
+                        sb.append(" (").append(calls.getModel()).append(')');
+                    }
+                    sb.append(' ').append(calls.getCalls()).append(" calls, avg ")
+                            .append(calls.getAverageLatencyMs()).append(" ms, ");
+                }
+            });
+            sb.setLength(sb.length() - 2);
+        }
+        if (stopReason != null) {
+            sb.append("\n- Stop Reason: ").append(stopReason);
+        }
+        if (!informationGain.isEmpty()) {
+            sb.append("\n- Information Gain: ");
+            informationGain.forEach(gain -> sb.append(String.format(Locale.ROOT, "%.2f", gain)).append(", "));
+            sb.setLength(sb.length() - 2);
+        }
+        if (remainingBudgetMs != null) {
+            sb.append("\n- Remaining Budget: ").append(remainingBudgetMs).append(" ms");
+        }
+        if (partial) {
+            sb.append("\n- Partial Result: deadline reached before research completed");
+        }
         return sb.toString();
     }
+
+    /**
+     * Calls made for one LLM role and their latency.
+     */
+    public static class RoleCalls {
+        private String model;
+        private int calls;
+        private long totalLatencyMs;
+        private long maxLatencyMs;
+
+        void record(long millis) {
+            calls++;
+            totalLatencyMs += millis;
+            maxLatencyMs = Math.max(maxLatencyMs, millis);
+        }
+
+        // provider/model the role ran on, or null when the models were supplied directly
+        public String getModel() {
+            return model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+
+        public void setCalls(int calls) {
+            this.calls = calls;
+        }
+
+        public long getTotalLatencyMs() {
+            return totalLatencyMs;
+        }
+
+        public void setTotalLatencyMs(long totalLatencyMs) {
+            this.totalLatencyMs = totalLatencyMs;
+        }
+
+        public long getMaxLatencyMs() {
+            return maxLatencyMs;
+        }
+
+        public void setMaxLatencyMs(long maxLatencyMs) {
+            this.maxLatencyMs = maxLatencyMs;
+        }
+
+        public long getAverageLatencyMs() {
+            return calls == 0 ? 0 : totalLatencyMs / calls;
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.skanga.model;
+
+// Options for a single research run; null researchSteps means the configured default
+public class ResearchRequest {
+    private String topic;
+    private Integer researchSteps;
+    private boolean bypassCache;
+    private Long deadlineMs;
+
+    public ResearchRequest() {
+    }
+
+    public ResearchRequest(String topic, Integer researchSteps) {
+        this.topic = topic;
+        this.researchSteps = researchSteps;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public Integer getResearchSteps() {
+        return researchSteps;
+    }
+
+    public void setResearchSteps(Integer researchSteps) {
+        this.researchSteps = researchSteps;
+    }
+
+    // Skip the report cache lookup; the fresh result is still cached
+    public boolean isBypassCache() {
+        return bypassCache;
+    }
+
+    public void setBypassCache(boolean bypassCache) {
+        this.bypassCache = bypassCache;
+    }
+
+    // Time budget for the whole run; when it runs out the best summary so far is returned, marked partial
+    public Long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    public void setDeadlineMs(Long deadlineMs) {
+        this.deadlineMs = deadlineMs;
+    }
+
+    @Override
+    public String toString() {
+        return "ResearchRequest{" +
+                "topic='" + topic + '\'' +
+                ", researchSteps=" + researchSteps +
+                ", bypassCache=" + bypassCache +
+                ", deadlineMs=" + deadlineMs +
+                '}';
+    }
+}
@@ -0,0 +1,25 @@
+package com.skanga.model;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Several search queries generated in one LLM call
+public class SearchQueryList {
+    @JsonProperty("queries")
+    @JsonAlias({"queries", "searchQueries", "search_queries"})
+    private List<SearchQuery> queries = new ArrayList<>();
+
+    public SearchQueryList() {
+    }
+
+    public List<SearchQuery> getQueries() {
+        return queries;
+    }
+
+    public void setQueries(List<SearchQuery> queries) {
+        this.queries = queries;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.List;
 public class SummaryState {
     private String researchTopic;
     private String searchQuery;
+    private List<String> searchQueries = new ArrayList<>();
     private String runningSummary;
     private List<String> sourcesGathered = new ArrayList<>();
     private List<String> webResearchResults = new ArrayList<>();
@@ -33,6 +34,20 @@ public class SummaryState {
 
     public void setSearchQuery(String searchQuery) {
         this.searchQuery = searchQuery;
+        this.searchQueries = new ArrayList<>();
+        if (searchQuery != null) {
+            this.searchQueries.add(searchQuery);
+        }
+    }
+
+    // All queries for the current loop; searchQuery is always the first of them
+    public List<String> getSearchQueries() {
+        return searchQueries;
+    }
+
+    public void setSearchQueries(List<String> searchQueries) {
+        this.searchQueries = new ArrayList<>(searchQueries);
+        this.searchQuery = searchQueries.isEmpty() ? null : searchQueries.getFirst();
     }
 
     public String getRunningSummary() {
@@ -0,0 +1,214 @@
+package com.skanga.search;
+
+import com.skanga.config.ResearchConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker for one search provider. While closed, the outcomes of its most recent calls
+ * are kept in a ring; once enough of them failed or were slow it opens and turns calls away
+ * without trying. After the open duration a few trial calls are let through (half-open): if they
+ * do well it closes with a clean window, otherwise it opens again. All state is guarded by "this".
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    // Weight of the newest latency in the moving average used to rank providers
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final ResearchConfiguration.Breaker config;
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int size;
+    private int failures;
+    private int slowCalls;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsCompleted;
+    private int trialFailures;
+    private int trialSlowCalls;
+    private long opened;
+    private long rejected;
+    private double averageLatencyMillis = -1;
+
+    public CircuitBreaker(String name, ResearchConfiguration.Breaker config) {
+        this.name = name;
+        this.config = config;
+        int window = Math.max(1, config.getWindow());
+        this.failed = new boolean[window];
+        this.slow = new boolean[window];
+    }
+
+    /**
+     * Whether a call may go ahead; a permitted call must be followed by exactly one of
+     * onSuccess, onFailure or onCancelled. Open breakers refuse, and half-open ones permit
+     * only their trial calls.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && openElapsed()) {
+            transitionTo(State.HALF_OPEN);
+        }
+        boolean permitted = switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> {
+                if (trialsStarted < trialCalls()) {
+                    trialsStarted++;
+                    yield true;
+                }
+                yield false;
+            }
+            case OPEN -> false;
+        };
+        if (!permitted) {
+            rejected++;
+        }
+        return permitted;
+    }
+
+    // Whether tryAcquire would permit a call now, without taking a trial slot
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> trialsStarted < trialCalls();
+            case OPEN -> openElapsed();
+        };
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && openElapsed()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized void onSuccess(long elapsedMillis) {
+        averageLatencyMillis = averageLatencyMillis < 0 ? elapsedMillis
+                : LATENCY_WEIGHT * elapsedMillis + (1 - LATENCY_WEIGHT) * averageLatencyMillis;
+        record(false, isSlow(elapsedMillis));
+    }
+
+    public synchronized void onFailure(long elapsedMillis) {
+        record(true, isSlow(elapsedMillis));
+    }
+
+    /**
+     * A call cancelled by its caller says nothing about failures, but one that had already run
+     * past the slow-call duration is still counted as slow.
+     */
+    public synchronized void onCancelled(long elapsedMillis) {
+        if (isSlow(elapsedMillis)) {
+            record(false, true);
+        } else if (state == State.HALF_OPEN && trialsStarted > trialsCompleted) {
+            trialsStarted--;
+        }
+    }
+
+    private void record(boolean isFailure, boolean isSlow) {
+        switch (state) {
+            case CLOSED -> {
+                if (size == failed.length) {
+                    failures -= failed[next] ? 1 : 0;
+                    slowCalls -= slow[next] ? 1 : 0;
+                } else {
+                    size++;
+                }
+                failed[next] = isFailure;
+                slow[next] = isSlow;
+                failures += isFailure ? 1 : 0;
+                slowCalls += isSlow ? 1 : 0;
+                next = (next + 1) % failed.length;
+                if (size >= Math.max(1, config.getMinCalls()) && overThreshold(failures, slowCalls, size)) {
+                    transitionTo(State.OPEN);
+                }
+            }
+            case HALF_OPEN -> {
+                trialsCompleted++;
+                trialFailures += isFailure ? 1 : 0;
+                trialSlowCalls += isSlow ? 1 : 0;
+                if (overThreshold(trialFailures, trialSlowCalls, trialCalls())) {
+                    transitionTo(State.OPEN);
+                } else if (trialsCompleted >= trialCalls()) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case OPEN -> {
+                // Calls started before the breaker opened; the decision is already made
+            }
+        }
+    }
+
+    private boolean overThreshold(int failureCount, int slowCount, int calls) {
+        return failureCount * 100 >= config.getFailureRateThreshold() * calls
+                || slowCount * 100 >= config.getSlowCallRateThreshold() * calls;
+    }
+
+    private void transitionTo(State target) {
+        logger.info("Circuit breaker for {}: {} -> {}", name, state, target);
+        state = target;
+        trialsStarted = 0;
+        trialsCompleted = 0;
+        trialFailures = 0;
+        trialSlowCalls = 0;
+        if (target == State.OPEN) {
+            openedAt = System.nanoTime();
+            opened++;
+        } else if (target == State.CLOSED) {
+            next = 0;
+            size = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+
+    private boolean openElapsed() {
+        return System.nanoTime() - openedAt >= config.getOpenDuration().toNanos();
+    }
+
+    private boolean isSlow(long elapsedMillis) {
+        return elapsedMillis >= config.getSlowCallDuration().toMillis();
+    }
+
+    private int trialCalls() {
+        return Math.max(1, config.getHalfOpenCalls());
+    }
+
+    // Moving average latency of successful calls, or -1 until one has succeeded
+    public synchronized double getAverageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+
+    // Share of failed calls in the current window
+    public synchronized double getFailureRate() {
+        return size == 0 ? 0.0 : (double) failures / size;
+    }
+
+    // State, failure and slow-call rates over the window, and how often the breaker opened or refused calls
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("state", getState().name());
+        map.put("calls", size);
+        map.put("failureRate", getFailureRate());
+        map.put("slowCallRate", size == 0 ? 0.0 : (double) slowCalls / size);
+        map.put("timesOpened", opened);
+        map.put("rejectedCalls", rejected);
+        if (state == State.OPEN && !openElapsed()) {
+            long remainingNanos = config.getOpenDuration().toNanos() - (System.nanoTime() - openedAt);
+            map.put("retryInMs", TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+        }
+        if (averageLatencyMillis >= 0) {
+            map.put("averageLatencyMs", Math.round(averageLatencyMillis));
+        }
+        return map;
+    }
+}
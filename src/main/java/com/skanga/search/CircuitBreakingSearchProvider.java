@@ -0,0 +1,83 @@
+package com.skanga.search;
+
+import com.skanga.exception.SearchException;
+import com.skanga.model.SearchAPI;
+import com.skanga.model.SearchResult;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A provider behind its circuit breaker. While the breaker is open searches fail at once with
+ * a SearchException instead of waiting on a provider that is down; every search that does run
+ * reports its outcome and duration to the breaker. The future returned is the delegate's own,
+ * so cancelling it still cancels the request.
+ */
+final class CircuitBreakingSearchProvider implements SearchProvider {
+    private final SearchProvider delegate;
+    private final CircuitBreaker breaker;
+
+    CircuitBreakingSearchProvider(SearchProvider delegate, CircuitBreaker breaker) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+    }
+
+    CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    @Override
+    public SearchAPI api() {
+        return delegate.api();
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public CompletableFuture<List<SearchResult>> search(String query, int maxResults) {
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new SearchException(name() + " circuit breaker is open"));
+        }
+        long startedAt = System.nanoTime();
+        CompletableFuture<List<SearchResult>> search;
+        try {
+            search = delegate.search(query, maxResults);
+        } catch (RuntimeException e) {
+            breaker.onFailure(0);
+            throw e;
+        }
+        search.whenComplete((results, error) -> {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                breaker.onSuccess(elapsedMillis);
+            } else if (cause instanceof CancellationException) {
+                breaker.onCancelled(elapsedMillis);
+            } else {
+                breaker.onFailure(elapsedMillis);
+            }
+        });
+        return search;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable() && breaker.isCallPermitted();
+    }
+
+    @Override
+    public int defaultMaxResults() {
+        return delegate.defaultMaxResults();
+    }
+}
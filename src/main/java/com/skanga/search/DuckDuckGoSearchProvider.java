@@ -0,0 +1,157 @@
+package com.skanga.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.skanga.model.SearchAPI;
+import com.skanga.model.SearchResult;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * DuckDuckGo Instant Answer API, which is free but often has nothing for long queries.
+ * When it returns no answer the HTML results page is scraped instead.
+ */
+public class DuckDuckGoSearchProvider extends HttpSearchProvider {
+    private static final Logger logger = LoggerFactory.getLogger(DuckDuckGoSearchProvider.class);
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    public DuckDuckGoSearchProvider(HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    @Override
+    public SearchAPI api() {
+        return SearchAPI.DUCKDUCKGO;
+    }
+
+    @Override
+    public CompletableFuture<List<SearchResult>> search(String query, int maxResults) {
+        logger.info("=== DuckDuckGo search for: {} ===", query);
+        String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("https://api.duckduckgo.com/?q=" + encodedQuery
+                        + "&format=json&no_redirect=1&no_html=1&skip_disambig=1"))
+                .header("User-Agent", USER_AGENT)
+                .timeout(TIMEOUT)
+                .GET()
+                .build();
+
+        CompletableFuture<List<SearchResult>> search = new CompletableFuture<>();
+        return completeWith(search, exchange(request, search).thenCompose(response -> {
+            if (response.statusCode() != 200) {
+                logger.warn("DuckDuckGo API returned status: {}", response.statusCode());
+                return htmlSearch(query, maxResults, search);
+            }
+            List<SearchResult> results;
+            try {
+                results = parseInstantAnswer(response.body(), query, maxResults);
+            } catch (IOException e) {
+                logger.error("Error parsing DuckDuckGo response", e);
+                return htmlSearch(query, maxResults, search);
+            }
+            if (results.isEmpty()) {
+                logger.info("No results from DuckDuckGo API, trying web search fallback");
+                return htmlSearch(query, maxResults, search);
+            }
+            logger.info("Returning {} DuckDuckGo search results", results.size());
+            return CompletableFuture.completedFuture(results);
+        }));
+    }
+
+    /**
+     * A provider that goes straight to the HTML results page. It shares no endpoint with the
+     * Instant Answer API, which makes it the hedge target when DuckDuckGo is the primary.
+     */
+    public SearchProvider htmlOnly() {
+        return new SearchProvider() {
+            @Override
+            public SearchAPI api() {
+                return SearchAPI.DUCKDUCKGO;
+            }
+
+            @Override
+            public String name() {
+                return "duckduckgo-html";
+            }
+
+            @Override
+            public CompletableFuture<List<SearchResult>> search(String query, int maxResults) {
+                CompletableFuture<List<SearchResult>> search = new CompletableFuture<>();
+                return completeWith(search, htmlSearch(query, maxResults, search));
+            }
+        };
+    }
+
+    private List<SearchResult> parseInstantAnswer(String body, String query, int maxResults) throws IOException {
+        JsonNode jsonResponse = objectMapper.readTree(body);
+        List<SearchResult> results = new ArrayList<>();
+
+        String abstractText = jsonResponse.path("AbstractText").asText();
+        if (!abstractText.isEmpty()) {
+            results.add(new SearchResult(
+                    "DuckDuckGo Instant Answer: " + query,
+                    abstractText,
+                    jsonResponse.has("AbstractURL") ? jsonResponse.get("AbstractURL").asText() : "https://duckduckgo.com",
+                    0.9
+            ));
+        }
+
+        for (JsonNode topic : jsonResponse.path("RelatedTopics")) {
+            if (results.size() >= maxResults) {
+                break;
+            }
+            if (topic.has("Text") && topic.has("FirstURL")) {
+                String text = topic.get("Text").asText();
+                results.add(new SearchResult(
+                        "Related: " + (text.length() > 60 ? text.substring(0, 60) + "..." : text),
+                        text,
+                        topic.get("FirstURL").asText(),
+                        0.7
+                ));
+            }
+        }
+        return results.size() > maxResults ? new ArrayList<>(results.subList(0, maxResults)) : results;
+    }
+
+    // Scrape the HTML results page; an empty list means DuckDuckGo found nothing
+    private CompletableFuture<List<SearchResult>> htmlSearch(String query, int maxResults, CompletableFuture<?> search) {
+        logger.info("Performing fallback web search for: {}", query);
+        String searchUrl = "https://html.duckduckgo.com/html/?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(searchUrl))
+                .header("User-Agent", USER_AGENT)
+                .timeout(TIMEOUT)
+                .GET()
+                .build();
+
+        return send(request, search).thenApply(html -> {
+            Document doc = Jsoup.parse(html, searchUrl);
+            List<SearchResult> results = new ArrayList<>();
+            for (Element result : doc.select(".result")) {
+                if (results.size() >= maxResults) {
+                    break;
+                }
+                Element titleElement = result.selectFirst(".result__title a");
+                Element snippetElement = result.selectFirst(".result__snippet");
+                if (titleElement != null && snippetElement != null) {
+                    results.add(new SearchResult(titleElement.text(), snippetElement.text(),
+                            titleElement.attr("href"), 0.8));
+                }
+            }
+            return results;
+        });
+    }
+}
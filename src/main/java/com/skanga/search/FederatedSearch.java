@@ -0,0 +1,108 @@
+package com.skanga.search;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.model.SearchResult;
+import com.skanga.util.SearchUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Meta-search: one query sent to several providers at once, their rankings merged with
+ * reciprocal-rank fusion. Providers that have not answered when the time budget runs out are
+ * cancelled and left out, so a slow engine costs recall for that query but never latency.
+ */
+public class FederatedSearch {
+    private static final Logger logger = LoggerFactory.getLogger(FederatedSearch.class);
+
+    private final ResearchConfiguration.Federated config;
+    private final LongAdder searches = new LongAdder();
+    private final Map<String, ProviderStats> stats = new ConcurrentHashMap<>();
+
+    public FederatedSearch(ResearchConfiguration.Federated config) {
+        this.config = config;
+    }
+
+    /**
+     * Fused top-k results from the providers that answered within the time budget, each scored by
+     * its fused rank. Failed and late providers are skipped, so the future only fails when cancelled;
+     * cancelling it cancels the searches still running.
+     */
+    public CompletableFuture<List<SearchResult>> search(List<SearchProvider> providers, String query) {
+        searches.increment();
+        Map<SearchProvider, CompletableFuture<List<SearchResult>>> calls = new LinkedHashMap<>();
+        for (SearchProvider provider : providers) {
+            CompletableFuture<List<SearchResult>> call;
+            try {
+                call = provider.search(query, config.getTopK());
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            calls.put(provider, call);
+        }
+
+        CompletableFuture<List<SearchResult>> fused = CompletableFuture
+                .allOf(calls.values().toArray(new CompletableFuture[0]))
+                .exceptionally(error -> null)
+                .completeOnTimeout(null, config.getTimeBudget().toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> fuse(calls, query));
+        // Stop whatever is still running once the fused answer is in, or the caller gave up
+        fused.whenComplete((results, error) -> calls.values().forEach(call -> call.cancel(true)));
+        return fused;
+    }
+
+    private List<SearchResult> fuse(Map<SearchProvider, CompletableFuture<List<SearchResult>>> calls, String query) {
+        List<List<SearchResult>> answered = new ArrayList<>();
+        List<String> dropped = new ArrayList<>();
+        calls.forEach((provider, call) -> {
+            ProviderStats providerStats = stats.computeIfAbsent(provider.name(), name -> new ProviderStats());
+            if (!call.isDone()) {
+                providerStats.late.increment();
+                dropped.add(provider.name() + " (late)");
+            } else if (call.isCompletedExceptionally()) {
+                providerStats.failed.increment();
+                dropped.add(provider.name() + " (failed)");
+            } else {
+                providerStats.answered.increment();
+                answered.add(call.join());
+            }
+        });
+        List<SearchResult> results = SearchUtils.reciprocalRankFusion(answered, config.getRankConstant(), config.getTopK());
+        logger.info("Federated search for '{}': {} results fused from {} providers{}", query, results.size(),
+                answered.size(), dropped.isEmpty() ? "" : ", dropped " + dropped);
+        return results;
+    }
+
+    // Searches run, and per provider how often it answered in time, failed or was too slow
+    public Map<String, Object> getStats() {
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("searches", searches.sum());
+        all.put("timeBudgetMs", config.getTimeBudget().toMillis());
+        stats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> all.put(entry.getKey(), entry.getValue().toMap()));
+        return all;
+    }
+
+    private static final class ProviderStats {
+        private final LongAdder answered = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder late = new LongAdder();
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("answered", answered.sum());
+            map.put("failed", failed.sum());
+            map.put("late", late.sum());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.skanga.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skanga.exception.SearchException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Base for providers that call a JSON or HTML endpoint over the shared HttpClient.
+ * Each search returns a future of its own and ties its HTTP exchanges to it, so cancelling
+ * the search (a hedged request that lost, a cancelled research job) aborts them too.
+ */
+abstract class HttpSearchProvider implements SearchProvider {
+    static final String USER_AGENT = "Mozilla/5.0 (compatible; SearchService/1.0)";
+
+    protected final HttpClient httpClient;
+    protected final ObjectMapper objectMapper = new ObjectMapper();
+
+    protected HttpSearchProvider(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    // Start an exchange that is aborted if the search it belongs to is cancelled
+    protected CompletableFuture<HttpResponse<String>> exchange(HttpRequest request, CompletableFuture<?> search) {
+        CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        search.whenComplete((result, error) -> {
+            if (search.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return exchange;
+    }
+
+    // Body of a 200 response; any other status fails the future
+    protected CompletableFuture<String> send(HttpRequest request, CompletableFuture<?> search) {
+        return exchange(request, search).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new SearchException(name() + " returned status " + response.statusCode());
+            }
+            return response.body();
+        });
+    }
+
+    // Complete the search with the outcome of the stage that produces its results
+    protected static <T> CompletableFuture<T> completeWith(CompletableFuture<T> search, CompletionStage<? extends T> stage) {
+        stage.whenComplete((result, error) -> {
+            if (error == null) {
+                search.complete(result);
+            } else {
+                search.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+        return search;
+    }
+
+    protected static String domainOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+}
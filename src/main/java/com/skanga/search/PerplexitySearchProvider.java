@@ -0,0 +1,106 @@
+package com.skanga.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.skanga.exception.SearchException;
+import com.skanga.model.SearchAPI;
+import com.skanga.model.SearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Perplexity chat completions with online search: one synthesized answer plus its citations
+public class PerplexitySearchProvider extends HttpSearchProvider {
+    private static final Logger logger = LoggerFactory.getLogger(PerplexitySearchProvider.class);
+
+    private final String apiKey;
+
+    public PerplexitySearchProvider(HttpClient httpClient, String apiKey) {
+        super(httpClient);
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public SearchAPI api() {
+        return SearchAPI.PERPLEXITY;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    @Override
+    public CompletableFuture<List<SearchResult>> search(String query, int maxResults) {
+        logger.info("=== Perplexity search for: {} ===", query);
+        if (!isConfigured()) {
+            return CompletableFuture.failedFuture(new SearchException("Perplexity API key not configured"));
+        }
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", "llama-3.1-sonar-small-128k-online");
+        requestBody.put("messages", List.of(Map.of("role", "user", "content", query)));
+        requestBody.put("max_tokens", 1000);
+        requestBody.put("temperature", 0.2);
+        requestBody.put("top_p", 0.9);
+        requestBody.put("return_citations", true);
+        requestBody.put("search_domain_filter", new ArrayList<>());
+        requestBody.put("return_images", false);
+        requestBody.put("return_related_questions", false);
+        requestBody.put("search_recency_filter", "month");
+
+        String jsonBody;
+        try {
+            jsonBody = objectMapper.writeValueAsString(requestBody);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new SearchException("Failed to build Perplexity request", e));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("https://api.perplexity.ai/chat/completions"))
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .build();
+
+        CompletableFuture<List<SearchResult>> search = new CompletableFuture<>();
+        return completeWith(search, send(request, search).thenApply(body -> parse(body, query, maxResults)));
+    }
+
+    private List<SearchResult> parse(String body, String query, int maxResults) {
+        List<SearchResult> results = new ArrayList<>();
+        try {
+            JsonNode jsonResponse = objectMapper.readTree(body);
+
+            JsonNode content = jsonResponse.path("choices").path(0).path("message").path("content");
+            if (!content.isMissingNode()) {
+                results.add(new SearchResult("Perplexity AI Response: " + query, content.asText(),
+                        "https://perplexity.ai", 0.9));
+            }
+
+            for (JsonNode citation : jsonResponse.path("citations")) {
+                if (results.size() >= maxResults) {
+                    break;
+                }
+                String url = citation.asText();
+                results.add(new SearchResult("Source: " + domainOf(url),
+                        "Referenced source from Perplexity search", url, 0.7));
+            }
+        } catch (JsonProcessingException e) {
+            throw new SearchException("Failed to parse Perplexity response", e);
+        }
+
+        logger.info("Returning {} Perplexity search results", results.size());
+        return results;
+    }
+}
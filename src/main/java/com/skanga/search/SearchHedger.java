@@ -0,0 +1,275 @@
+package com.skanga.search;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.model.SearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedged search requests. The query goes to the primary provider; if it has not answered
+ * within a percentile of its recent latencies, the same query also goes to the secondary and
+ * the first answer wins while the other request is cancelled. A primary that fails outright
+ * is retried on the secondary at once. Latencies, hedge rate and wins are tracked per provider.
+ */
+public class SearchHedger {
+    private static final Logger logger = LoggerFactory.getLogger(SearchHedger.class);
+
+    private final ResearchConfiguration.Hedge config;
+    private final Map<String, ProviderStats> stats = new ConcurrentHashMap<>();
+
+    public SearchHedger(ResearchConfiguration.Hedge config) {
+        this.config = config;
+    }
+
+    /**
+     * Search the primary, hedging to the secondary when it is slow or failing. A null secondary
+     * means no hedge and no fallback. The future fails only when every provider tried has failed,
+     * and cancelling it cancels the requests still running.
+     */
+    public CompletableFuture<Answer> search(SearchProvider primary, SearchProvider secondary, String query, int maxResults) {
+        return new HedgedCall(primary, secondary, query, maxResults).start();
+    }
+
+    // Delay after which a search on this provider is hedged
+    public long hedgeDelayMillis(SearchProvider provider) {
+        long delay = statsFor(provider).latencies.percentile(config.getPercentile(), config.getMinSamples())
+                .orElse(config.getInitialDelay().toMillis());
+        return Math.max(delay, config.getMinDelay().toMillis());
+    }
+
+    // Per provider: searches as primary, how many were hedged or fell back, and whose answers were used
+    public Map<String, Object> getStats() {
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("enabled", config.isEnabled());
+        all.put("percentile", config.getPercentile());
+        stats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> all.put(entry.getKey(), entry.getValue().toMap()));
+        return all;
+    }
+
+    private ProviderStats statsFor(SearchProvider provider) {
+        return stats.computeIfAbsent(provider.name(), name -> new ProviderStats(config.getWindow()));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Results and the provider that produced them.
+     */
+    public record Answer(SearchProvider provider, List<SearchResult> results) {
+    }
+
+    // One hedged search; the attempt fields and flags are guarded by "this"
+    private final class HedgedCall {
+        private final SearchProvider primary;
+        private final SearchProvider secondary;
+        private final String query;
+        private final int maxResults;
+        private final CompletableFuture<Answer> answer = new CompletableFuture<>();
+        private CompletableFuture<List<SearchResult>> primaryAttempt;
+        private CompletableFuture<List<SearchResult>> secondaryAttempt;
+        private Throwable primaryError;
+        private boolean secondaryFailed;
+
+        HedgedCall(SearchProvider primary, SearchProvider secondary, String query, int maxResults) {
+            this.primary = primary;
+            this.secondary = secondary;
+            this.query = query;
+            this.maxResults = maxResults;
+        }
+
+        CompletableFuture<Answer> start() {
+            statsFor(primary).requests.increment();
+            // Once there is an answer, or the caller gives up, nothing else needs to run
+            answer.whenComplete((result, error) -> cancelAttempts());
+            launch(primary, false);
+            if (secondary != null && config.isEnabled()) {
+                long delay = hedgeDelayMillis(primary);
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> hedge(delay));
+            }
+            return answer;
+        }
+
+        private void hedge(long delay) {
+            synchronized (this) {
+                if (answer.isDone() || secondaryAttempt != null) {
+                    return;
+                }
+                secondaryAttempt = new CompletableFuture<>();
+            }
+            logger.info("{} has not answered in {} ms, hedging with {}", primary.name(), delay, secondary.name());
+            statsFor(primary).hedged.increment();
+            launch(secondary, true);
+        }
+
+        private void fallBack() {
+            synchronized (this) {
+                if (answer.isDone() || secondaryAttempt != null) {
+                    return;
+                }
+                secondaryAttempt = new CompletableFuture<>();
+            }
+            logger.warn("{} search failed, falling back to {}", primary.name(), secondary.name());
+            statsFor(primary).fallbacks.increment();
+            launch(secondary, true);
+        }
+
+        private void launch(SearchProvider provider, boolean isSecondary) {
+            long startedAt = System.nanoTime();
+            CompletableFuture<List<SearchResult>> attempt;
+            try {
+                attempt = provider.search(query, maxResults);
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                if (isSecondary) {
+                    secondaryAttempt = attempt;
+                } else {
+                    primaryAttempt = attempt;
+                }
+            }
+            if (answer.isDone()) {
+                attempt.cancel(true);
+            }
+            attempt.whenComplete((results, error) -> completed(provider, isSecondary, startedAt, results, error));
+        }
+
+        private void completed(SearchProvider provider, boolean isSecondary, long startedAt,
+                               List<SearchResult> results, Throwable error) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            Throwable cause = error == null ? null : unwrap(error);
+            if (cause == null) {
+                statsFor(provider).latencies.record(elapsedMillis);
+                if (answer.complete(new Answer(provider, results))) {
+                    statsFor(provider).wins.increment();
+                    if (isSecondary) {
+                        statsFor(provider).hedgeWins.increment();
+                    }
+                }
+                return;
+            }
+            if (cause instanceof CancellationException) {
+                // A primary that lost the race took at least this long; leaving it out would skew
+                // the window towards fast answers and make hedging ever more eager
+                if (!isSecondary && answer.isDone() && !answer.isCancelled()) {
+                    statsFor(provider).latencies.record(elapsedMillis);
+                }
+                return;
+            }
+            boolean fallBack = false;
+            boolean failed;
+            synchronized (this) {
+                if (isSecondary) {
+                    secondaryFailed = true;
+                    failed = primaryError != null;
+                } else {
+                    primaryError = cause;
+                    fallBack = secondary != null && secondaryAttempt == null;
+                    failed = secondary == null || secondaryFailed;
+                }
+            }
+            if (isSecondary) {
+                logger.warn("{} search failed", provider.name(), cause);
+            }
+            if (fallBack) {
+                fallBack();
+            } else if (failed) {
+                answer.completeExceptionally(primaryError);
+            }
+        }
+
+        private void cancelAttempts() {
+            CompletableFuture<List<SearchResult>> first;
+            CompletableFuture<List<SearchResult>> second;
+            synchronized (this) {
+                first = primaryAttempt;
+                second = secondaryAttempt;
+            }
+            if (first != null) {
+                first.cancel(true);
+            }
+            if (second != null) {
+                second.cancel(true);
+            }
+        }
+    }
+
+    private static final class ProviderStats {
+        private final LatencyWindow latencies;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder hedged = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+        private final LongAdder wins = new LongAdder();
+        private final LongAdder hedgeWins = new LongAdder();
+
+        ProviderStats(int window) {
+            this.latencies = new LatencyWindow(window);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            long requestCount = requests.sum();
+            map.put("requests", requestCount);
+            map.put("hedged", hedged.sum());
+            map.put("hedgeRate", requestCount == 0 ? 0.0 : (double) hedged.sum() / requestCount);
+            map.put("fallbacks", fallbacks.sum());
+            map.put("wins", wins.sum());
+            map.put("hedgeWins", hedgeWins.sum());
+            map.put("latencySamples", latencies.size());
+            latencies.percentile(50, 1).ifPresent(p50 -> map.put("latencyP50Ms", p50));
+            latencies.percentile(95, 1).ifPresent(p95 -> map.put("latencyP95Ms", p95));
+            return map;
+        }
+    }
+
+    // The most recent latencies of one provider, in milliseconds
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.samples = new long[Math.max(1, capacity)];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        // Nearest-rank percentile, or empty until minSamples latencies are known
+        OptionalLong percentile(double percentile, int minSamples) {
+            long[] sorted;
+            synchronized (this) {
+                if (size == 0 || size < minSamples) {
+                    return OptionalLong.empty();
+                }
+                sorted = Arrays.copyOf(samples, size);
+            }
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * sorted.length);
+            return OptionalLong.of(sorted[Math.max(0, rank - 1)]);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.skanga.search;
+
+import com.skanga.model.SearchAPI;
+import com.skanga.model.SearchResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A web search backend. Searches are non-blocking: search returns at once and the future
+ * completes when the provider answers. Failures complete the future exceptionally, usually
+ * with a SearchException; choosing a fallback is left to the caller.
+ */
+public interface SearchProvider {
+
+    SearchAPI api();
+
+    // Name used in logs and metrics; differs from the SearchAPI value for alternative endpoints
+    default String name() {
+        return api().getValue();
+    }
+
+    CompletableFuture<List<SearchResult>> search(String query, int maxResults);
+
+    // Whether the provider has what it needs to run, such as an API key
+    default boolean isConfigured() {
+        return true;
+    }
+
+    // Whether a search would be attempted right now; false while the provider's circuit breaker is open
+    default boolean isAvailable() {
+        return isConfigured();
+    }
+
+    // Results requested when the caller has no preference
+    default int defaultMaxResults() {
+        return 3;
+    }
+}
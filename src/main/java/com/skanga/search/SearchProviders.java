@@ -0,0 +1,182 @@
+package com.skanga.search;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.model.SearchAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+/**
+ * One SearchProvider per SearchAPI, all built on a single non-blocking HttpClient so they
+ * share its connection pool. The switch in create is exhaustive, so a new SearchAPI value
+ * does not compile until it has a provider. Unless research.breaker is disabled, every
+ * provider sits behind its own circuit breaker and fallbacks are chosen by breaker health.
+ */
+@Component
+public class SearchProviders {
+    private static final Logger logger = LoggerFactory.getLogger(SearchProviders.class);
+
+    private final Map<SearchAPI, SearchProvider> providers = new EnumMap<>(SearchAPI.class);
+    private final SearchProvider duckDuckGoHtml;
+    private final Map<String, CircuitBreaker> breakers = new LinkedHashMap<>();
+
+    @Autowired
+    public SearchProviders(ResearchConfiguration config) {
+        this(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                // Response handling (JSON parsing, HTML scraping) runs on virtual threads
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build(), config);
+    }
+
+    public SearchProviders(HttpClient httpClient, ResearchConfiguration config) {
+        SearchProvider htmlOnly = null;
+        for (SearchAPI api : SearchAPI.values()) {
+            SearchProvider provider = create(api, httpClient, config);
+            if (provider instanceof DuckDuckGoSearchProvider duckDuckGo) {
+                htmlOnly = duckDuckGo.htmlOnly();
+            }
+            providers.put(api, guarded(provider, config.getBreaker()));
+        }
+        this.duckDuckGoHtml = guarded(htmlOnly, config.getBreaker());
+        logger.info("=== SearchProviders: registered {}, configured {} ===", providers.keySet(),
+                configured().stream().map(SearchProvider::api).toList());
+    }
+
+    private static SearchProvider create(SearchAPI api, HttpClient httpClient, ResearchConfiguration config) {
+        return switch (api) {
+            case DUCKDUCKGO -> new DuckDuckGoSearchProvider(httpClient);
+            case TAVILY -> new TavilySearchProvider(httpClient, config.getTavilyApiKey());
+            case PERPLEXITY -> new PerplexitySearchProvider(httpClient, config.getPerplexityApiKey());
+            case SEARXNG -> new SearxngSearchProvider(httpClient, config.getSearxngUrl());
+        };
+    }
+
+    private SearchProvider guarded(SearchProvider provider, ResearchConfiguration.Breaker breakerConfig) {
+        if (!breakerConfig.isEnabled()) {
+            return provider;
+        }
+        CircuitBreaker breaker = new CircuitBreaker(provider.name(), breakerConfig);
+        breakers.put(provider.name(), breaker);
+        return new CircuitBreakingSearchProvider(provider, breaker);
+    }
+
+    public SearchProvider get(SearchAPI api) {
+        return providers.get(api);
+    }
+
+    /**
+     * The provider that backs up searches on primary, for hedging and fallback. Unknown or
+     * unconfigured names mean DuckDuckGo. When that is the primary itself, its HTML endpoint is
+     * used instead so the two requests do not share an endpoint. If the chosen provider's breaker
+     * is not closed, the healthiest other provider takes its place. A blank name means none.
+     */
+    public SearchProvider secondaryFor(SearchProvider primary, String secondaryApi) {
+        if (secondaryApi == null || secondaryApi.isBlank()) {
+            return null;
+        }
+        SearchProvider secondary;
+        try {
+            secondary = providers.get(SearchAPI.fromString(secondaryApi.trim()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown secondary search API: {}, using DuckDuckGo", secondaryApi);
+            secondary = providers.get(SearchAPI.DUCKDUCKGO);
+        }
+        if (!secondary.isConfigured()) {
+            secondary = providers.get(SearchAPI.DUCKDUCKGO);
+        }
+        if (secondary.name().equals(primary.name())) {
+            secondary = primary.api() == SearchAPI.DUCKDUCKGO ? duckDuckGoHtml : providers.get(SearchAPI.DUCKDUCKGO);
+        }
+        if (secondary.isAvailable() && stateOf(secondary) == CircuitBreaker.State.CLOSED) {
+            return secondary;
+        }
+        List<SearchProvider> fallbacks = fallbacksFor(primary);
+        return fallbacks.isEmpty() ? secondary : fallbacks.getFirst();
+    }
+
+    /**
+     * Providers that could stand in for primary right now, healthiest first: closed breakers
+     * before half-open ones, then by failure rate and by average latency. Providers whose
+     * breaker is open or that lack their settings are left out.
+     */
+    public List<SearchProvider> fallbacksFor(SearchProvider primary) {
+        List<SearchProvider> candidates = new ArrayList<>(configured());
+        candidates.add(duckDuckGoHtml);
+        return candidates.stream()
+                .filter(provider -> !provider.name().equals(primary.name()))
+                .filter(SearchProvider::isAvailable)
+                .sorted(Comparator.comparing(this::stateOf)
+                        .thenComparingDouble(this::failureRateOf)
+                        .thenComparingDouble(this::latencyOf))
+                .toList();
+    }
+
+    private CircuitBreaker.State stateOf(SearchProvider provider) {
+        CircuitBreaker breaker = breakers.get(provider.name());
+        return breaker == null ? CircuitBreaker.State.CLOSED : breaker.getState();
+    }
+
+    private double failureRateOf(SearchProvider provider) {
+        CircuitBreaker breaker = breakers.get(provider.name());
+        return breaker == null ? 0.0 : breaker.getFailureRate();
+    }
+
+    // Providers without a successful search yet rank after those with a known latency
+    private double latencyOf(SearchProvider provider) {
+        CircuitBreaker breaker = breakers.get(provider.name());
+        double latency = breaker == null ? -1 : breaker.getAverageLatencyMillis();
+        return latency < 0 ? Double.MAX_VALUE : latency;
+    }
+
+    // Every provider, in SearchAPI order
+    public List<SearchProvider> all() {
+        return List.copyOf(providers.values());
+    }
+
+    // The named providers that can run with the current configuration; unknown names are skipped
+    public List<SearchProvider> configured(List<String> names) {
+        Set<SearchAPI> selected = EnumSet.noneOf(SearchAPI.class);
+        for (String name : names) {
+            try {
+                selected.add(SearchAPI.fromString(name.trim()));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring unknown search API: {}", name);
+            }
+        }
+        return configured().stream().filter(provider -> selected.contains(provider.api())).toList();
+    }
+
+    // Providers that can run with the current configuration, in SearchAPI order
+    public List<SearchProvider> configured() {
+        return providers.values().stream().filter(SearchProvider::isConfigured).toList();
+    }
+
+    // Circuit breaker state and recent failure and slow-call rates of every configured provider
+    public Map<String, Object> getBreakerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        List<SearchProvider> guarded = new ArrayList<>(configured());
+        guarded.add(duckDuckGoHtml);
+        for (SearchProvider provider : guarded) {
+            CircuitBreaker breaker = breakers.get(provider.name());
+            if (breaker != null) {
+                stats.put(provider.name(), breaker.getStats());
+            }
+        }
+        return stats;
+    }
+}
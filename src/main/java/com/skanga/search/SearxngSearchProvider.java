@@ -0,0 +1,94 @@
+package com.skanga.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.skanga.exception.SearchException;
+import com.skanga.model.SearchAPI;
+import com.skanga.model.SearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Self-hosted SearXNG meta-search instance. The instance must have the JSON output format
+ * enabled (search.formats in its settings.yml).
+ */
+public class SearxngSearchProvider extends HttpSearchProvider {
+    private static final Logger logger = LoggerFactory.getLogger(SearxngSearchProvider.class);
+
+    private final String baseUrl;
+
+    public SearxngSearchProvider(HttpClient httpClient, String baseUrl) {
+        super(httpClient);
+        this.baseUrl = baseUrl == null ? null : baseUrl.replaceAll("/+$", "");
+    }
+
+    @Override
+    public SearchAPI api() {
+        return SearchAPI.SEARXNG;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return baseUrl != null && !baseUrl.isBlank();
+    }
+
+    @Override
+    public CompletableFuture<List<SearchResult>> search(String query, int maxResults) {
+        logger.info("=== SearXNG search for: {} ===", query);
+        if (!isConfigured()) {
+            return CompletableFuture.failedFuture(new SearchException("SearXNG URL not configured"));
+        }
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/search?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8)
+                            + "&format=json"))
+                    .header("User-Agent", USER_AGENT)
+                    .header("Accept", "application/json")
+                    .timeout(Duration.ofSeconds(15))
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new SearchException("Invalid SearXNG URL: " + baseUrl, e));
+        }
+
+        CompletableFuture<List<SearchResult>> search = new CompletableFuture<>();
+        return completeWith(search, send(request, search).thenApply(body -> parse(body, maxResults)));
+    }
+
+    private List<SearchResult> parse(String body, int maxResults) {
+        List<SearchResult> results = new ArrayList<>();
+        try {
+            for (JsonNode result : objectMapper.readTree(body).path("results")) {
+                if (results.size() >= maxResults) {
+                    break;
+                }
+                String title = result.path("title").asText();
+                String url = result.path("url").asText();
+                if (title.isEmpty() || url.isEmpty()) {
+                    continue;
+                }
+                String content = result.path("content").asText();
+                // SearXNG merges engine scores without an upper bound; keep them comparable with other providers
+                double score = Math.min(1.0, result.path("score").asDouble(0.5));
+                results.add(new SearchResult(title, content.isEmpty() ? title : content, url, score));
+            }
+        } catch (JsonProcessingException e) {
+            throw new SearchException("Failed to parse SearXNG response", e);
+        }
+
+        logger.info("Returning {} SearXNG search results", results.size());
+        return results;
+    }
+}
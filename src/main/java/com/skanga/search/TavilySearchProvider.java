@@ -0,0 +1,109 @@
+package com.skanga.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.skanga.exception.SearchException;
+import com.skanga.model.SearchAPI;
+import com.skanga.model.SearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Tavily search API: an AI answer followed by ranked results
+public class TavilySearchProvider extends HttpSearchProvider {
+    private static final Logger logger = LoggerFactory.getLogger(TavilySearchProvider.class);
+
+    private final String apiKey;
+
+    public TavilySearchProvider(HttpClient httpClient, String apiKey) {
+        super(httpClient);
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public SearchAPI api() {
+        return SearchAPI.TAVILY;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    @Override
+    public int defaultMaxResults() {
+        return 5;
+    }
+
+    @Override
+    public CompletableFuture<List<SearchResult>> search(String query, int maxResults) {
+        logger.info("=== Tavily search for: {} ===", query);
+        if (!isConfigured()) {
+            return CompletableFuture.failedFuture(new SearchException("Tavily API key not configured"));
+        }
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("api_key", apiKey);
+        requestBody.put("query", query);
+        requestBody.put("search_depth", "basic");
+        requestBody.put("max_results", maxResults);
+        requestBody.put("include_answer", true);
+        requestBody.put("include_domains", new ArrayList<>());
+        requestBody.put("exclude_domains", new ArrayList<>());
+
+        String jsonBody;
+        try {
+            jsonBody = objectMapper.writeValueAsString(requestBody);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new SearchException("Failed to build Tavily request", e));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("https://api.tavily.com/search"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .build();
+
+        CompletableFuture<List<SearchResult>> search = new CompletableFuture<>();
+        return completeWith(search, send(request, search).thenApply(body -> parse(body, query, maxResults)));
+    }
+
+    private List<SearchResult> parse(String body, String query, int maxResults) {
+        List<SearchResult> results = new ArrayList<>();
+        try {
+            JsonNode jsonResponse = objectMapper.readTree(body);
+
+            // Add answer if available
+            String answer = jsonResponse.path("answer").asText();
+            if (!answer.isEmpty()) {
+                results.add(new SearchResult("Tavily AI Answer: " + query, answer, "https://tavily.com", 0.95));
+            }
+
+            for (JsonNode result : jsonResponse.path("results")) {
+                if (results.size() >= maxResults) {
+                    break;
+                }
+                String title = result.has("title") ? result.get("title").asText() : "Untitled";
+                String content = result.has("content") ? result.get("content").asText() : "";
+                String url = result.has("url") ? result.get("url").asText() : "";
+                double score = result.has("score") ? result.get("score").asDouble() : 0.5;
+                results.add(new SearchResult(title, content, url, score));
+            }
+        } catch (JsonProcessingException e) {
+            throw new SearchException("Failed to parse Tavily response", e);
+        }
+
+        logger.info("Returning {} Tavily search results", results.size());
+        return results;
+    }
+}
@@ -0,0 +1,138 @@
+package com.skanga.service;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.model.SearchResult;
+import com.skanga.util.SearchUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures how much each research loop added, to stop the loop once further loops would only
+ * repeat what is known. A loop's information gain is the mean of three shares, each from 0 to 1:
+ * its sources not seen in earlier loops, how much of the running summary changed (Jaccard
+ * distance of word pairs), and how unlike earlier queries the next follow-up queries are (one
+ * minus the highest Jaccard similarity of their words). One instance per research run.
+ */
+class ConvergenceMonitor {
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private final ResearchConfiguration.Convergence config;
+    private final Set<String> seenSources = new HashSet<>();
+    private final List<Set<String>> earlierQueries = new ArrayList<>();
+    private String previousSummary = "";
+    private double lastGain = 1.0;
+    private String lastDetail = "";
+
+    ConvergenceMonitor(ResearchConfiguration.Convergence config) {
+        this.config = config;
+    }
+
+    // Queries searched before any loop has been measured
+    void recordQueries(List<String> queries) {
+        for (String query : queries) {
+            earlierQueries.add(words(query));
+        }
+    }
+
+    /**
+     * Information gain of the loop that found results and produced summary, given the follow-up
+     * queries chosen for the next loop. Those queries then count as earlier ones.
+     */
+    double measure(List<SearchResult> results, String summary, List<String> nextQueries) {
+        double newSources = newSourceShare(results);
+        double summaryChange = 1.0 - jaccard(pairs(previousSummary), pairs(summary));
+        double queryNovelty = queryNovelty(nextQueries);
+        previousSummary = summary == null ? "" : summary;
+        recordQueries(nextQueries);
+        lastGain = (newSources + summaryChange + queryNovelty) / 3;
+        lastDetail = String.format(Locale.ROOT, "new sources %.2f, summary change %.2f, query novelty %.2f",
+                newSources, summaryChange, queryNovelty);
+        return lastGain;
+    }
+
+    // Whether the last measured loop added too little to justify another one
+    boolean hasConverged(int loopsCompleted) {
+        return config.isEnabled() && loopsCompleted >= Math.max(1, config.getMinLoops())
+                && lastGain < config.getMinGain();
+    }
+
+    // The parts of the last gain, for logs and the stop reason
+    String lastDetail() {
+        return lastDetail;
+    }
+
+    private double newSourceShare(List<SearchResult> results) {
+        if (results == null || results.isEmpty()) {
+            return 0.0;
+        }
+        int fresh = 0;
+        for (SearchResult result : results) {
+            if (result.getUrl() != null && seenSources.add(SearchUtils.canonicalUrl(result.getUrl()))) {
+                fresh++;
+            }
+        }
+        return (double) fresh / results.size();
+    }
+
+    private double queryNovelty(List<String> queries) {
+        if (queries == null || queries.isEmpty()) {
+            return 0.0;
+        }
+        double novelty = 0;
+        for (String query : queries) {
+            Set<String> queryWords = words(query);
+            double closest = 0;
+            for (Set<String> earlier : earlierQueries) {
+                closest = Math.max(closest, jaccard(queryWords, earlier));
+            }
+            novelty += 1.0 - closest;
+        }
+        return novelty / queries.size();
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        if (text != null) {
+            Matcher word = WORD.matcher(text.toLowerCase(Locale.ROOT));
+            while (word.find()) {
+                words.add(word.group());
+            }
+        }
+        return words;
+    }
+
+    // Adjacent word pairs, so rewording counts as change even when the vocabulary stays the same
+    private static Set<String> pairs(String text) {
+        Set<String> pairs = new HashSet<>();
+        if (text == null) {
+            return pairs;
+        }
+        Matcher word = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        String previous = null;
+        while (word.find()) {
+            String current = word.group();
+            pairs.add(previous == null ? current : previous + " " + current);
+            previous = current;
+        }
+        return pairs;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+        int shared = 0;
+        for (String item : a) {
+            if (b.contains(item)) {
+                shared++;
+            }
+        }
+        return (double) shared / (a.size() + b.size() - shared);
+    }
+}
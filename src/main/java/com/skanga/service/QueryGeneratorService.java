@@ -1,6 +1,7 @@
 package com.skanga.service;
 
 import com.skanga.model.SearchQuery;
+import com.skanga.model.SearchQueryList;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.UserMessage;
 import dev.langchain4j.service.V;
@@ -27,5 +28,30 @@ interface QueryGeneratorService {
         Return your response as JSON with the exact format specified.
         """)
     SearchQuery generateQuery(@V("researchTopic") String researchTopic, @V("currentDate") String currentDate);
-}
 
+    @SystemMessage("""
+        You are a research query generator. Generate several complementary search queries for web research.
+        Current date: {{currentDate}}
+        Research topic: {{researchTopic}}
+        
+        Generate {{count}} focused, specific search queries that together cover different aspects of the topic.
+        Avoid queries that overlap heavily with each other; each should retrieve distinct information.
+        
+        Return your response as a JSON object with exactly this structure:
+        {
+          "queries": [
+            {
+              "query": "your generated search query",
+              "rationale": "brief explanation of why this query is effective"
+            }
+          ]
+        }
+        """)
+    @UserMessage("""
+        Generate {{count}} search queries for web research on this topic: {{researchTopic}}
+        
+        Return your response as JSON with the exact format specified.
+        """)
+    SearchQueryList generateQueries(@V("researchTopic") String researchTopic, @V("currentDate") String currentDate,
+                                    @V("count") int count);
+}
@@ -1,6 +1,7 @@
 package com.skanga.service;
 
 import com.skanga.model.FollowUpQuery;
+import com.skanga.model.FollowUpQueryList;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.UserMessage;
 import dev.langchain4j.service.V;
@@ -39,5 +40,43 @@ interface ReflectionService {
         """)
     FollowUpQuery generateFollowUpQuery(@V("runningSummary") String runningSummary,
                                         @V("researchTopic") String researchTopic);
-}
 
+    @SystemMessage("""
+        You are a research analyst. Analyze the current summary and identify knowledge gaps 
+        that need further investigation.
+        
+        Research topic: {{researchTopic}}
+        
+        Your task is to:
+        1. Identify the {{count}} most important pieces of information that are missing or need clarification
+        2. Generate one specific follow-up query for each gap
+        3. Make sure the gaps are distinct so the queries do not retrieve the same information
+        
+        Return your response as a JSON object with exactly this structure:
+        {
+          "follow_up_queries": [
+            {
+              "follow_up_query": "your generated query",
+              "knowledge_gap": "description of the knowledge gap"
+            }
+          ]
+        }
+        
+        IMPORTANT: Use exactly these field names in your JSON response.
+        """)
+    @UserMessage("""
+        <Current Summary>
+        {{runningSummary}}
+        </Current Summary>
+        
+        <Research Topic>
+        {{researchTopic}}
+        </Research Topic>
+        
+        Analyze the current summary and identify {{count}} knowledge gaps. Generate a follow-up web search query for each.
+        Return your response as JSON with the exact format specified above.
+        """)
+    FollowUpQueryList generateFollowUpQueries(@V("runningSummary") String runningSummary,
+                                              @V("researchTopic") String researchTopic,
+                                              @V("count") int count);
+}
@@ -0,0 +1,178 @@
+package com.skanga.service;
+
+import com.skanga.model.ResearchEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Single-flight coalescing of identical concurrent research requests.
+ * The first request for a key starts the research; requests that arrive while it is still running
+ * attach to the same run. On attaching they are replayed its STARTED event and its latest event,
+ * so they see the run as started, and then receive its progress events from then on. Each caller
+ * gets its own future, and the shared run is only cancelled once every caller has cancelled.
+ */
+class ResearchCoalescer {
+    private static final Logger logger = LoggerFactory.getLogger(ResearchCoalescer.class);
+
+    private final Map<ResearchKey, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    CompletableFuture<String> join(ResearchKey key, ResearchProgressListener listener,
+                                   Function<ResearchProgressListener, CompletableFuture<String>> starter) {
+        requests.increment();
+        Flight flight;
+        boolean leader;
+        while (true) {
+            Flight candidate = new Flight();
+            Flight existing = inFlight.putIfAbsent(key, candidate);
+            leader = existing == null;
+            flight = leader ? candidate : existing;
+            if (flight.subscribe(listener)) {
+                break;
+            }
+            // Lost a race with a run that just finished; drop it and try again
+            inFlight.remove(key, flight);
+        }
+
+        CompletableFuture<String> subscriber = new CompletableFuture<>();
+        Flight joined = flight;
+        joined.shared.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                subscriber.completeExceptionally(throwable);
+            } else {
+                subscriber.complete(result);
+            }
+        });
+        subscriber.whenComplete((result, throwable) -> {
+            if (subscriber.isCancelled()) {
+                joined.unsubscribe(listener);
+            }
+        });
+
+        if (leader) {
+            CompletableFuture<String> run = starter.apply(joined::broadcast);
+            joined.start(run);
+            run.whenComplete((result, throwable) -> {
+                joined.close();
+                inFlight.remove(key, joined);
+                if (throwable != null) {
+                    joined.shared.completeExceptionally(throwable);
+                } else {
+                    joined.shared.complete(result);
+                }
+            });
+        } else {
+            coalesced.increment();
+            logger.info("=== ResearchCoalescer: Attached to in-flight research for topic: {} ===", key.topic());
+        }
+        return subscriber;
+    }
+
+    Map<String, Object> getStats() {
+        long total = requests.sum();
+        long hits = coalesced.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", total);
+        stats.put("coalesced", hits);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits / total);
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<String> shared = new CompletableFuture<>();
+        private final List<ResearchProgressListener> listeners = new CopyOnWriteArrayList<>();
+        // Orders replays to new listeners with the run's own events; guards started and latest
+        private final Object events = new Object();
+        private ResearchEvent started;
+        private ResearchEvent latest;
+        private CompletableFuture<String> run;
+        private int subscribers;
+        private boolean closed;
+
+        boolean subscribe(ResearchProgressListener listener) {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                subscribers++;
+            }
+            if (listener != null) {
+                synchronized (events) {
+                    listeners.add(listener);
+                    if (started != null) {
+                        deliver(listener, started);
+                    }
+                    if (latest != null && latest != started) {
+                        deliver(listener, latest);
+                    }
+                }
+            }
+            return true;
+        }
+
+        void unsubscribe(ResearchProgressListener listener) {
+            CompletableFuture<String> toCancel = null;
+            synchronized (this) {
+                if (listener != null) {
+                    listeners.remove(listener);
+                }
+                subscribers--;
+                if (subscribers == 0 && !closed) {
+                    closed = true;
+                    toCancel = run;
+                }
+            }
+            if (toCancel != null) {
+                toCancel.cancel(true);
+            }
+        }
+
+        void start(CompletableFuture<String> run) {
+            boolean abandoned;
+            synchronized (this) {
+                this.run = run;
+                abandoned = closed;
+            }
+            // Every subscriber left before the run was even registered
+            if (abandoned) {
+                run.cancel(true);
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+
+        void broadcast(ResearchEvent event) {
+            synchronized (events) {
+                if (event.getType() == ResearchEvent.Type.STARTED) {
+                    started = event;
+                }
+                latest = event;
+                for (ResearchProgressListener listener : listeners) {
+                    deliver(listener, event);
+                }
+            }
+        }
+
+        // One subscriber's broken listener must not starve the others
+        private static void deliver(ResearchProgressListener listener, ResearchEvent event) {
+            try {
+                listener.onEvent(event);
+            } catch (Exception e) {
+                logger.debug("Progress listener failed for event {}: {}", event.getType(), e.getMessage());
+            }
+        }
+    }
+}
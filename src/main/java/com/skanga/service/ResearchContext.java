@@ -0,0 +1,89 @@
+package com.skanga.service;
+
+import com.skanga.model.ResearchEvent;
+import com.skanga.model.SearchResult;
+import com.skanga.model.SummaryState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+// Per-run state threaded through the phases of one research job
+class ResearchContext {
+    private static final Logger logger = LoggerFactory.getLogger(ResearchContext.class);
+    private final SummaryState state;
+    private final ResearchProgressListener listener;
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private volatile boolean cancelled;
+    private List<SearchResult> loopResults = List.of();
+
+    ResearchContext(SummaryState state, ResearchProgressListener listener) {
+        this(state, listener, null);
+    }
+
+    // A null deadlineMs means the run has no time budget
+    ResearchContext(SummaryState state, ResearchProgressListener listener, Long deadlineMs) {
+        this.state = state;
+        this.listener = listener != null ? listener : ResearchProgressListener.NONE;
+        this.hasDeadline = deadlineMs != null;
+        this.deadlineNanos = hasDeadline ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs) : 0;
+    }
+
+    SummaryState getState() {
+        return state;
+    }
+
+    // Search results of the current loop, before they are formatted for the summarizer
+    List<SearchResult> getLoopResults() {
+        return loopResults;
+    }
+
+    void setLoopResults(List<SearchResult> loopResults) {
+        this.loopResults = loopResults;
+    }
+
+    boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    // Milliseconds left before the deadline, never negative; Long.MAX_VALUE without a deadline
+    long remainingMillis() {
+        if (!hasDeadline) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    // Whether work expected to take the given time can still finish before the deadline
+    boolean fits(long expectedMillis) {
+        return remainingMillis() > expectedMillis;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Called between phases so a cancelled job stops before starting more search or LLM work
+    void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Research cancelled");
+        }
+    }
+
+    // A failing listener (e.g. a disconnected SSE client) must never fail the research itself
+    void emit(ResearchEvent.Type type, Map<String, Object> data) {
+        try {
+            listener.onEvent(new ResearchEvent(type, data));
+        } catch (Exception e) {
+            logger.debug("Progress listener failed for event {}: {}", type, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.skanga.service;
+
+import com.skanga.config.ResearchConfiguration;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded executor for research jobs.
+ * At most maxInFlight jobs run at once; up to queueCapacity more wait in a FIFO queue
+ * and anything beyond that is rejected with a RejectedExecutionException.
+ * Jobs run on virtual threads by default since they spend nearly all their time blocked
+ * on LLM and HTTP calls.
+ */
+@Component
+public class ResearchExecutor implements Executor {
+    private static final Logger logger = LoggerFactory.getLogger(ResearchExecutor.class);
+    private static final long IDLE_KEEP_ALIVE_SECONDS = 60;
+
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService taskExecutor;
+    private final String threadType;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    @Autowired
+    public ResearchExecutor(ResearchConfiguration config) {
+        this(config.getExecutor().getThreadType(),
+                config.getExecutor().getMaxInFlight(),
+                config.getExecutor().getQueueCapacity());
+    }
+
+    public ResearchExecutor(String threadType, int maxInFlight, int queueCapacity) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1");
+        }
+        this.threadType = "platform".equalsIgnoreCase(threadType) ? "platform" : "virtual";
+        this.pool = new ThreadPoolExecutor(maxInFlight, maxInFlight,
+                IDLE_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                createThreadFactory(this.threadType),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Let idle workers exit so an idle node holds no threads
+        this.pool.allowCoreThreadTimeOut(true);
+        this.taskExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("research-task-", 0).factory());
+        logger.info("=== ResearchExecutor: {} threads, maxInFlight={}, queueCapacity={} ===",
+                this.threadType, maxInFlight, queueCapacity);
+    }
+
+    private static ThreadFactory createThreadFactory(String threadType) {
+        if ("platform".equals(threadType)) {
+            return Thread.ofPlatform().name("research-", 0).daemon(true).factory();
+        }
+        return Thread.ofVirtual().name("research-", 0).factory();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        try {
+            pool.execute(command);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            logger.warn("Research job rejected: {} running, {} queued", getActiveCount(), getQueueDepth());
+            throw new RejectedExecutionException("Research capacity exhausted, please retry later", e);
+        }
+    }
+
+    /**
+     * Unbounded virtual-thread executor for short blocking subtasks inside a running job,
+     * such as the parallel searches of one research loop. Subtasks are bounded by the
+     * job that spawns them, so they do not count against maxInFlight.
+     */
+    public ExecutorService getTaskExecutor() {
+        return taskExecutor;
+    }
+
+    public String getThreadType() {
+        return threadType;
+    }
+
+    public int getMaxInFlight() {
+        return pool.getMaximumPoolSize();
+    }
+
+    public int getQueueCapacity() {
+        return pool.getQueue().size() + pool.getQueue().remainingCapacity();
+    }
+
+    // Jobs currently running
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    // Jobs accepted but still waiting for a free slot
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    public long getCompletedCount() {
+        return pool.getCompletedTaskCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("=== ResearchExecutor: Shutting down ===");
+        pool.shutdownNow();
+        taskExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,168 @@
+package com.skanga.service;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.model.ResearchEvent;
+import com.skanga.model.ResearchJob;
+import com.skanga.model.ResearchRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs research as fire-and-forget jobs that clients poll by ID.
+ * Jobs live in a bounded in-memory store: finished jobs expire after the configured TTL and the
+ * oldest finished jobs are evicted first once the store is full.
+ */
+@Service
+public class ResearchJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ResearchJobService.class);
+    private final ResearchService researchService;
+    private final int maxJobs;
+    private final Duration ttl;
+
+    // Insertion ordered so eviction can walk from the oldest job; guarded by "this"
+    private final Map<String, JobEntry> jobs = new LinkedHashMap<>();
+
+    @Autowired
+    public ResearchJobService(ResearchService researchService, ResearchConfiguration config) {
+        this(researchService, config.getJobs().getMaxJobs(), config.getJobs().getTtl());
+    }
+
+    public ResearchJobService(ResearchService researchService, int maxJobs, Duration ttl) {
+        this.researchService = researchService;
+        this.maxJobs = maxJobs;
+        this.ttl = ttl;
+    }
+
+    public ResearchJob submit(String topic, Integer researchSteps) {
+        return submit(new ResearchRequest(topic, researchSteps));
+    }
+
+    /**
+     * Start a research job and return immediately.
+     * Throws RejectedExecutionException when the research executor or the job store is full.
+     */
+    public ResearchJob submit(ResearchRequest request) {
+        String topic = request.getTopic();
+        ResearchJob job = new ResearchJob(UUID.randomUUID().toString(), topic, request.getResearchSteps());
+        synchronized (this) {
+            evictExpired();
+            if (jobs.size() >= maxJobs) {
+                evictOldestFinished();
+            }
+            if (jobs.size() >= maxJobs) {
+                throw new RejectedExecutionException("Too many research jobs, please retry later");
+            }
+        }
+
+        CompletableFuture<String> future = researchService.conductResearch(request,
+                event -> onProgress(job, event));
+        if (future.isCompletedExceptionally() && !future.isCancelled()
+                && future.exceptionNow() instanceof RejectedExecutionException rejected) {
+            throw rejected;
+        }
+
+        synchronized (this) {
+            jobs.put(job.getId(), new JobEntry(job, future));
+        }
+        future.whenComplete((summary, throwable) -> onFinished(job, future, summary, throwable));
+        logger.info("=== ResearchJobService: Submitted job {} for topic: {} ===", job.getId(), topic);
+        return job;
+    }
+
+    public synchronized Optional<ResearchJob> getJob(String jobId) {
+        evictExpired();
+        JobEntry entry = jobs.get(jobId);
+        return entry == null ? Optional.empty() : Optional.of(entry.job());
+    }
+
+    /**
+     * Cancel a job, interrupting its in-flight search and LLM calls.
+     * Returns the job in its resulting state, or empty if the ID is unknown.
+     */
+    public Optional<ResearchJob> cancel(String jobId) {
+        JobEntry entry;
+        synchronized (this) {
+            entry = jobs.get(jobId);
+        }
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.future().cancel(true)) {
+            logger.info("=== ResearchJobService: Cancelled job {} ===", jobId);
+        }
+        return Optional.of(entry.job());
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        evictExpired();
+        Map<ResearchJob.Status, Integer> byStatus = new EnumMap<>(ResearchJob.Status.class);
+        for (JobEntry entry : jobs.values()) {
+            byStatus.merge(entry.job().getStatus(), 1, Integer::sum);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stored", jobs.size());
+        stats.put("maxJobs", maxJobs);
+        for (ResearchJob.Status status : ResearchJob.Status.values()) {
+            stats.put(status.getValue(), byStatus.getOrDefault(status, 0));
+        }
+        return stats;
+    }
+
+    private void onProgress(ResearchJob job, ResearchEvent event) {
+        if (event.getType() == ResearchEvent.Type.STARTED) {
+            job.setStartedAt(LocalDateTime.now());
+            job.setStatus(ResearchJob.Status.RUNNING);
+        }
+        job.setPhase(event.getType().getValue());
+    }
+
+    private void onFinished(ResearchJob job, CompletableFuture<String> future, String summary, Throwable throwable) {
+        job.setCompletedAt(LocalDateTime.now());
+        if (future.isCancelled()) {
+            job.setStatus(ResearchJob.Status.CANCELLED);
+        } else if (throwable != null) {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+            job.setError(cause.getMessage());
+            job.setStatus(ResearchJob.Status.FAILED);
+        } else {
+            job.setSummary(summary);
+            job.setStatus(ResearchJob.Status.COMPLETED);
+        }
+        logger.info("=== ResearchJobService: Job {} finished with status {} ===", job.getId(), job.getStatus());
+    }
+
+    private void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        jobs.values().removeIf(entry -> entry.job().isFinished()
+                && entry.job().getCompletedAt() != null
+                && !entry.job().getCompletedAt().isAfter(cutoff));
+    }
+
+    private void evictOldestFinished() {
+        Iterator<JobEntry> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().job().isFinished()) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private record JobEntry(ResearchJob job, CompletableFuture<String> future) {
+    }
+}
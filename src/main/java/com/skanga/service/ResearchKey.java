@@ -0,0 +1,55 @@
+package com.skanga.service;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.llm.ChatModelFactory;
+import com.skanga.llm.LlmRole;
+import com.skanga.util.DiskStore;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Identity of a research request: two requests with equal keys produce the same report.
+ * The topic is normalized so trivially different spellings of the same topic match.
+ * roleModels describes the model each role runs on, so changing any role's model, endpoint,
+ * temperature or output limit gives a new key.
+ */
+public record ResearchKey(String topic, int researchLoops, int searchBreadth, String llmProvider,
+                          String modelName, String searchApi, boolean fetchFullPage, String roleModels) {
+
+    public static ResearchKey of(String topic, int researchLoops, ResearchConfiguration config,
+                                 Map<LlmRole, ChatModelFactory.ModelSettings> roleSettings) {
+        return new ResearchKey(normalizeTopic(topic), researchLoops, Math.max(1, config.getSearchBreadth()),
+                lower(config.getLlmProvider()), config.getModelName(), lower(config.getSearchApi()),
+                config.isFetchFullPage(), describe(roleSettings));
+    }
+
+    // Stable hash of every field, usable as a file name
+    public String digest() {
+        return DiskStore.sha256(topic, String.valueOf(researchLoops), String.valueOf(searchBreadth),
+                llmProvider, modelName, searchApi, String.valueOf(fetchFullPage), roleModels);
+    }
+
+    // Every setting that shapes a role's output, in role order; API keys are left out
+    private static String describe(Map<LlmRole, ChatModelFactory.ModelSettings> roleSettings) {
+        StringJoiner joiner = new StringJoiner(";");
+        for (LlmRole role : LlmRole.values()) {
+            ChatModelFactory.ModelSettings settings = roleSettings.get(role);
+            if (settings != null) {
+                joiner.add(role.getValue() + "=" + lower(settings.provider()) + "|" + settings.modelName()
+                        + "|" + settings.baseUrl() + "|" + settings.temperature() + "|" + settings.maxOutputTokens());
+            }
+        }
+        return joiner.toString();
+    }
+
+    // Lowercase, trim and collapse internal whitespace
+    public static String normalizeTopic(String topic) {
+        return topic == null ? "" : topic.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
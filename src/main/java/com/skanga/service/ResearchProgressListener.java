@@ -0,0 +1,14 @@
+package com.skanga.service;
+
+import com.skanga.model.ResearchEvent;
+
+/**
+ * Receives progress events from a running research job.
+ * Events from parallel searches may arrive on different threads, so implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface ResearchProgressListener {
+    ResearchProgressListener NONE = event -> { };
+
+    void onEvent(ResearchEvent event);
+}
@@ -0,0 +1,158 @@
+package com.skanga.service;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.util.DiskStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of finished research reports keyed by ResearchKey.
+ * Entries live in an access-ordered in-memory map bounded by maxEntries (LRU eviction) and expire
+ * after the configured TTL. Every entry is also written to its own file under the cache directory
+ * and reloaded on startup, so the cache survives restarts.
+ */
+@Component
+public class ResearchResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(ResearchResultCache.class);
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final DiskStore diskStore;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Access ordered for LRU eviction; guarded by "this"
+    private final LinkedHashMap<String, CachedReport> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public ResearchResultCache(ResearchConfiguration config) {
+        this(config.getResultCache().isEnabled(),
+                config.getResultCache().getDirectory() == null || config.getResultCache().getDirectory().isBlank()
+                        ? null : Path.of(config.getResultCache().getDirectory()),
+                config.getResultCache().getTtl(),
+                config.getResultCache().getMaxEntries());
+    }
+
+    // A null directory keeps the cache in memory only
+    public ResearchResultCache(boolean enabled, Path directory, Duration ttl, int maxEntries) {
+        this.enabled = enabled && maxEntries > 0;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.diskStore = this.enabled && directory != null ? new DiskStore(directory) : null;
+        if (diskStore != null) {
+            loadFromDisk();
+        }
+        logger.info("=== ResearchResultCache: enabled={}, directory={}, ttl={}, maxEntries={}, loaded={} ===",
+                this.enabled, directory, ttl, maxEntries, entries.size());
+    }
+
+    public Optional<String> get(ResearchKey key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String digest = key.digest();
+        CachedReport report;
+        synchronized (this) {
+            report = entries.get(digest);
+            if (report != null && isExpired(report)) {
+                entries.remove(digest);
+                deleteFromDisk(digest);
+                report = null;
+            }
+        }
+        if (report == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        logger.info("=== ResearchResultCache: Cache hit for topic: {} ===", key.topic());
+        return Optional.of(report.summary());
+    }
+
+    public void put(ResearchKey key, String summary) {
+        if (!enabled || summary == null) {
+            return;
+        }
+        String digest = key.digest();
+        CachedReport report = new CachedReport(key.toString(), summary, System.currentTimeMillis());
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            entries.put(digest, report);
+            Iterator<String> oldest = entries.keySet().iterator();
+            while (entries.size() > maxEntries && oldest.hasNext()) {
+                evicted.add(oldest.next());
+                oldest.remove();
+            }
+        }
+        if (diskStore != null) {
+            diskStore.write(digest, report);
+            evicted.forEach(this::deleteFromDisk);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (this) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", total - hitCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    private boolean isExpired(CachedReport report) {
+        return System.currentTimeMillis() - report.createdAt() >= ttl.toMillis();
+    }
+
+    // Reload persisted reports oldest first so the newest end up most recently used
+    private void loadFromDisk() {
+        List<Map.Entry<String, CachedReport>> loaded = new ArrayList<>();
+        for (String name : diskStore.list()) {
+            diskStore.read(name, CachedReport.class).ifPresent(report -> {
+                if (isExpired(report)) {
+                    diskStore.delete(name);
+                } else {
+                    loaded.add(Map.entry(name, report));
+                }
+            });
+        }
+        loaded.sort(Comparator.comparingLong(entry -> entry.getValue().createdAt()));
+        int skip = Math.max(0, loaded.size() - maxEntries);
+        for (int i = 0; i < loaded.size(); i++) {
+            if (i < skip) {
+                diskStore.delete(loaded.get(i).getKey());
+            } else {
+                entries.put(loaded.get(i).getKey(), loaded.get(i).getValue());
+            }
+        }
+    }
+
+    private void deleteFromDisk(String digest) {
+        if (diskStore != null) {
+            diskStore.delete(digest);
+        }
+    }
+
+    // Persisted form of a report; key is kept for debugging only
+    record CachedReport(String key, String summary, long createdAt) {
+    }
+}
@@ -1,11 +1,14 @@
 package com.skanga.service;
 
 import com.skanga.config.ResearchConfiguration;
+import com.skanga.exception.DeadlineExceededException;
+import com.skanga.llm.ChatModelFactory;
+import com.skanga.llm.LlmConcurrencyLimiter;
+import com.skanga.llm.LlmRateLimiter;
+import com.skanga.llm.LlmResponseCache;
+import com.skanga.llm.LlmRole;
 import com.skanga.model.*;
-import dev.langchain4j.model.anthropic.AnthropicChatModel;
-import dev.langchain4j.model.chat.ChatModel;
-import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
-import dev.langchain4j.model.openai.OpenAiChatModel;
+import com.skanga.util.SearchUtils;
 import dev.langchain4j.service.AiServices;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,10 +16,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 // Main research service using LangChain4J
 @Service
@@ -27,192 +47,432 @@ public class ResearchService {
     private final ReflectionService reflectionService;
     private final SearchService searchService;
     private final ResearchConfiguration config;
+    private final ResearchExecutor researchExecutor;
+    private final ResearchResultCache resultCache;
+    private final ResearchCoalescer coalescer = new ResearchCoalescer();
+    // Null when models were supplied directly
+    private final LlmResponseCache llmResponseCache;
+    private final LlmRateLimiter llmRateLimiter;
+    private final LlmConcurrencyLimiter llmConcurrencyLimiter;
+    // Resolved model settings of each role; empty when models were supplied directly
+    private final Map<LlmRole, ChatModelFactory.ModelSettings> roleSettings;
 
     @Autowired
-    public ResearchService(SearchService searchService, ResearchConfiguration config) {
-        this(searchService, config, null, null, null);
+    public ResearchService(SearchService searchService, ResearchConfiguration config,
+                           ResearchExecutor researchExecutor, ResearchResultCache resultCache,
+                           ChatModelFactory chatModelFactory) {
+        this(searchService, config, researchExecutor, resultCache,
+                AiServices.builder(QueryGeneratorService.class)
+                        .chatModel(chatModelFactory.forRole(LlmRole.QUERY_GENERATOR))
+                        .build(),
+                AiServices.builder(SummarizerService.class)
+                        .chatModel(chatModelFactory.forRole(LlmRole.SUMMARIZER))
+                        .build(),
+                AiServices.builder(ReflectionService.class)
+                        .chatModel(chatModelFactory.forRole(LlmRole.REFLECTION))
+                        .build(),
+                chatModelFactory.getResponseCache(),
+                chatModelFactory.getRateLimiter(),
+                chatModelFactory.getConcurrencyLimiter(),
+                roleSettings(chatModelFactory));
     }
 
     // Constructor for testing
     public ResearchService(SearchService searchService, ResearchConfiguration config,
+                           ResearchExecutor researchExecutor, ResearchResultCache resultCache,
                            QueryGeneratorService queryGenerator, SummarizerService summarizer,
                            ReflectionService reflectionService) {
+        this(searchService, config, researchExecutor, resultCache, queryGenerator, summarizer, reflectionService,
+                null, null, null, Map.of());
+    }
+
+    private ResearchService(SearchService searchService, ResearchConfiguration config,
+                            ResearchExecutor researchExecutor, ResearchResultCache resultCache,
+                            QueryGeneratorService queryGenerator, SummarizerService summarizer,
+                            ReflectionService reflectionService, LlmResponseCache llmResponseCache,
+                            LlmRateLimiter llmRateLimiter, LlmConcurrencyLimiter llmConcurrencyLimiter,
+                            Map<LlmRole, ChatModelFactory.ModelSettings> roleSettings) {
         this.searchService = searchService;
         this.config = config;
-
-        logger.info("=== ResearchService: Initializing LangChain4J services ===");
-        logger.info("Configuration - Provider: {}, Model: {}, Base URL: {}",
+        this.researchExecutor = researchExecutor;
+        this.resultCache = resultCache;
+        this.queryGenerator = queryGenerator;
+        this.summarizer = summarizer;
+        this.reflectionService = reflectionService;
+        this.llmResponseCache = llmResponseCache;
+        this.llmRateLimiter = llmRateLimiter;
+        this.llmConcurrencyLimiter = llmConcurrencyLimiter;
+        this.roleSettings = roleSettings;
+        logger.info("=== ResearchService: LangChain4J services initialized - Provider: {}, Model: {}, Base URL: {} ===",
                 config.getLlmProvider(), config.getModelName(), config.getBaseUrl());
+    }
 
-        if (queryGenerator != null && summarizer != null && reflectionService != null) {
-            this.queryGenerator = queryGenerator;
-            this.summarizer = summarizer;
-            this.reflectionService = reflectionService;
-        } else {
-            // Initialize LangChain4J services
-            ChatModel chatModel = createChatModel();
+    private static Map<LlmRole, ChatModelFactory.ModelSettings> roleSettings(ChatModelFactory chatModelFactory) {
+        Map<LlmRole, ChatModelFactory.ModelSettings> settings = new EnumMap<>(LlmRole.class);
+        for (LlmRole role : LlmRole.values()) {
+            settings.put(role, chatModelFactory.settingsFor(role));
+        }
+        return Collections.unmodifiableMap(settings);
+    }
 
-            this.queryGenerator = AiServices.builder(QueryGeneratorService.class)
-                    .chatModel(chatModel)
-                    .build();
+    public CompletableFuture<String> conductResearch(String researchTopic) {
+        return conductResearch(researchTopic, null);
+    }
 
-            this.summarizer = AiServices.builder(SummarizerService.class)
-                    .chatModel(chatModel)
-                    .build();
+    public CompletableFuture<String> conductResearch(String researchTopic, Integer researchStepsOverride) {
+        return conductResearch(researchTopic, researchStepsOverride, ResearchProgressListener.NONE);
+    }
 
-            this.reflectionService = AiServices.builder(ReflectionService.class)
-                    .chatModel(chatModel)
-                    .build();
-        }
-        logger.info("=== ResearchService: LangChain4J services initialized successfully ===");
+    public CompletableFuture<String> conductResearch(String researchTopic, Integer researchStepsOverride,
+                                                     ResearchProgressListener listener) {
+        return conductResearch(new ResearchRequest(researchTopic, researchStepsOverride), listener);
     }
 
-    private ChatModel createChatModel() {
-        logger.debug("=== ResearchService: Creating ChatModel ===");
-        LLMProvider provider = LLMProvider.fromString(config.getLlmProvider());
+    public CompletableFuture<String> conductResearch(ResearchRequest request) {
+        return conductResearch(request, ResearchProgressListener.NONE);
+    }
 
-        // Validate configuration
-        if (config.getBaseUrl() == null || config.getBaseUrl().trim().isEmpty()) {
-            logger.error("Base URL cannot be null or empty");
-            throw new IllegalArgumentException("Base URL cannot be null or empty");
+    /**
+     * Answer from the report cache when possible, otherwise start a research job on the research
+     * executor or attach to an identical one already running.
+     * Cancelling the returned future stops the job once no other caller is waiting on it: the worker
+     * thread is interrupted, which aborts in-flight search and LLM HTTP calls, and the loop exits at
+     * the next phase boundary.
+     */
+    public CompletableFuture<String> conductResearch(ResearchRequest request, ResearchProgressListener listener) {
+        String researchTopic = request.getTopic();
+        Integer researchStepsOverride = request.getResearchSteps();
+        int researchLoops = researchStepsOverride != null ? researchStepsOverride : config.getMaxWebResearchLoops();
+        ResearchKey key = ResearchKey.of(researchTopic, researchLoops, config, roleSettings);
+
+        if (!request.isBypassCache()) {
+            Optional<String> cached = resultCache.get(key);
+            if (cached.isPresent()) {
+                Map<String, Object> done = new LinkedHashMap<>();
+                done.put("summary", cached.get());
+                done.put("cached", true);
+                new ResearchContext(new SummaryState(researchTopic), listener).emit(ResearchEvent.Type.DONE, done);
+                return CompletableFuture.completedFuture(cached.get());
+            }
         }
 
-        if (config.getModelName() == null || config.getModelName().trim().isEmpty()) {
-            logger.error("Model name cannot be null or empty");
-            throw new IllegalArgumentException("Model name cannot be null or empty");
+        // A run with a time budget may end early, so it is not shared with callers that expect a full report
+        if (request.getDeadlineMs() != null) {
+            return startResearch(request, key, listener);
         }
+        return coalescer.join(key, listener, sharedListener -> startResearch(request, key, sharedListener));
+    }
 
-        logger.info("Creating ChatModel with provider: {}, model: {}, baseUrl: {}",
-                provider, config.getModelName(), config.getBaseUrl());
-
-        return switch (provider) {
-            case OPENAI, GROQ, INCEPTION, OLLAMA, OPENROUTER, LMSTUDIO -> OpenAiChatModel.builder()
-                    .baseUrl(config.getBaseUrl())
-                    .apiKey(config.getApiKey())
-                    .modelName(config.getModelName())
-                    .temperature(0.0)
-                    .build();
-            case ANTHROPIC -> AnthropicChatModel.builder()
-                    .apiKey(config.getApiKey())
-                    .modelName(config.getModelName())
-                    .build();
-            case GEMINI -> GoogleAiGeminiChatModel.builder()
-                    .apiKey(config.getApiKey())
-                    .modelName(config.getModelName())
-                    .build();
-            default -> {
-                logger.error("Unsupported LLM provider: {}", config.getLlmProvider());
-                throw new IllegalArgumentException("Unsupported LLM provider: " + config.getLlmProvider());
-            }
-        };
+    // Metrics for the report cache: size, hits, misses and hit rate
+    public Map<String, Object> getCacheStats() {
+        return resultCache.getStats();
     }
 
-    public CompletableFuture<String> conductResearch(String researchTopic) {
-        return conductResearch(researchTopic, null);
+    // Metrics for the search result cache: size, hit rate and evictions
+    public Map<String, Object> getSearchCacheStats() {
+        return searchService.getCacheStats();
     }
 
-    public CompletableFuture<String> conductResearch(String researchTopic, Integer researchStepsOverride) {
-        return CompletableFuture.supplyAsync(() -> {
-            long startTime = System.currentTimeMillis();
-            logger.info("=== ResearchService: Starting research for topic: {} ===", researchTopic);
+    // Metrics for hedged searches: hedge rate, fallbacks, wins and latency per provider
+    public Map<String, Object> getSearchHedgingStats() {
+        return searchService.getHedgeStats();
+    }
+
+    // Metrics for federated searches: providers answered, failed or dropped as late
+    public Map<String, Object> getSearchFederationStats() {
+        return searchService.getFederationStats();
+    }
+
+    // Circuit breaker state of each search provider, for the health endpoint
+    public Map<String, Object> getSearchProviderHealth() {
+        return searchService.getProviderHealth();
+    }
+
+    // Metrics for the on-disk page cache used by full-page fetches
+    public Map<String, Object> getPageCacheStats() {
+        return searchService.getPageCacheStats();
+    }
+
+    // Metrics for header screening of full-page fetches
+    public Map<String, Object> getFetchScreeningStats() {
+        return searchService.getFetchScreeningStats();
+    }
+
+    // Metrics for the LLM response cache, per role; empty when models were supplied directly
+    public Map<String, Object> getLlmCacheStats() {
+        return llmResponseCache != null ? llmResponseCache.getStats() : Map.of();
+    }
+
+    // Metrics for LLM rate limiting, per provider: limits, callers queued and queue wait; empty when models were supplied directly
+    public Map<String, Object> getLlmRateLimitStats() {
+        return llmRateLimiter != null ? llmRateLimiter.getStats() : Map.of();
+    }
+
+    // Adaptive concurrency limit, in-flight calls and queue depth per self-hosted LLM backend; empty when models were supplied directly
+    public Map<String, Object> getLlmConcurrencyStats() {
+        return llmConcurrencyLimiter != null ? llmConcurrencyLimiter.getStats() : Map.of();
+    }
 
-            SummaryState state = new SummaryState(researchTopic);
-            state.getMetadata().setLlmProvider(config.getLlmProvider());
-            state.getMetadata().setModelName(config.getModelName());
+    // Metrics for request coalescing: total requests, coalesced requests, hit rate and runs in flight
+    public Map<String, Object> getCoalescingStats() {
+        return coalescer.getStats();
+    }
 
+    private CompletableFuture<String> startResearch(ResearchRequest request, ResearchKey key,
+                                                    ResearchProgressListener listener) {
+        SummaryState state = new SummaryState(request.getTopic());
+        ResearchContext context = new ResearchContext(state, listener, request.getDeadlineMs());
+        CompletableFuture<String> result = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
             try {
-                // Determine max research loops based on override or default
-                int maxResearchLoops = config.getMaxWebResearchLoops();
-                if (researchStepsOverride != null) {
-                    maxResearchLoops = researchStepsOverride;
-                    logger.info("=== OVERRIDE DETECTED ===");
-                    logger.info("Using override research steps: {} (was default: {})", 
-                               maxResearchLoops, config.getMaxWebResearchLoops());
-                } else {
-                    logger.info("Using default research steps: {}", maxResearchLoops);
+                String summary = runResearch(context, request.getResearchSteps());
+                // Partial reports are never cached, so a later request gets the full run
+                if (!state.getMetadata().isPartial()) {
+                    resultCache.put(key, summary);
                 }
+                result.complete(summary);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, null);
+        result.whenComplete((summary, throwable) -> {
+            if (result.isCancelled()) {
+                context.cancel();
+                task.cancel(true);
+            }
+        });
+        try {
+            researchExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("=== ResearchService: Rejected research for topic: {} ===", request.getTopic());
+            return CompletableFuture.failedFuture(e);
+        }
+        return result;
+    }
 
-                logger.info("=== ResearchService: Starting research loop ===");
-                logger.info("Max research loops: {}", maxResearchLoops);
-                logger.info("Initial research loop count: {}", state.getResearchLoopCount());
+    private String runResearch(ResearchContext context, Integer researchStepsOverride) {
+        long startTime = System.currentTimeMillis();
+        SummaryState state = context.getState();
+        String researchTopic = state.getResearchTopic();
+        logger.info("=== ResearchService: Starting research for topic: {} ===", researchTopic);
+
+        state.getMetadata().setLlmProvider(config.getLlmProvider());
+        state.getMetadata().setModelName(config.getModelName());
+        roleSettings.forEach((role, settings) -> state.getMetadata().setRoleModel(role.getValue(), settings.toString()));
+        context.emit(ResearchEvent.Type.STARTED, Map.of("topic", researchTopic));
+
+        try {
+            // Determine max research loops based on override or default
+            int maxResearchLoops = config.getMaxWebResearchLoops();
+            if (researchStepsOverride != null) {
+                maxResearchLoops = researchStepsOverride;
+                logger.info("=== OVERRIDE DETECTED ===");
+                logger.info("Using override research steps: {} (was default: {})", 
+                           maxResearchLoops, config.getMaxWebResearchLoops());
+            } else {
+                logger.info("Using default research steps: {}", maxResearchLoops);
+            }
 
+            logger.info("=== ResearchService: Starting research loop ===");
+            logger.info("Max research loops: {}", maxResearchLoops);
+            logger.info("Initial research loop count: {}", state.getResearchLoopCount());
+
+            try {
                 // Generate initial query
                 logger.info("=== ResearchService: Generating initial query ===");
-                generateQuery(state);
-                logger.info("Initial query generated: {}", state.getSearchQuery());
+                context.checkCancelled();
+                long stageStart = System.nanoTime();
+                generateQuery(context);
+                state.getMetadata().addStageTime("queryGeneration", millisSince(stageStart));
+                logger.info("Initial queries generated: {}", state.getSearchQueries());
+                ConvergenceMonitor convergence = new ConvergenceMonitor(convergenceSettings());
+                convergence.recordQueries(state.getSearchQueries());
 
                 // Research loop
                 int loopNumber = 1;
+                long lastLoopMillis = 0;
                 while (state.getResearchLoopCount() < maxResearchLoops) {
-                    logger.info("=== ResearchService: Research loop {}/{} ===", 
+                    // Under a deadline, only start a loop when one as long as the last can still finish
+                    if (!context.fits(lastLoopMillis)) {
+                        throw new DeadlineExceededException("Not enough time left for another research loop");
+                    }
+                    long loopStart = System.currentTimeMillis();
+                    logger.info("=== ResearchService: Research loop {}/{} ===",
                                loopNumber, maxResearchLoops);
                     logger.info("Current research loop count: {}", state.getResearchLoopCount());
 
                     // Perform web research
                     logger.info("=== ResearchService: Performing web research ===");
-                    webResearch(state);
+                    context.checkCancelled();
+                    stageStart = System.nanoTime();
+                    webResearch(context);
+                    state.getMetadata().addStageTime("webResearch", millisSince(stageStart));
                     logger.info("After web research, loop count: {}", state.getResearchLoopCount());
 
-                    // Summarize sources
+                    // Summarize sources; records its own stage timings, which depend on the mode
                     logger.info("=== ResearchService: Summarizing sources ===");
-                    summarizeSources(state);
+                    context.checkCancelled();
+                    summarizeSources(context);
+                    lastLoopMillis = System.currentTimeMillis() - loopStart;
 
-                    // Check if we need more research
+                    // Check if we need more research, and whether another loop would fit the deadline
                     if (state.getResearchLoopCount() < maxResearchLoops) {
+                        if (!context.fits(lastLoopMillis)) {
+                            throw new DeadlineExceededException("Not enough time left for another research loop");
+                        }
                         logger.info("=== ResearchService: Reflecting on summary ===");
-                        reflectOnSummary(state);
-                        logger.info("Follow-up query generated: {}", state.getSearchQuery());
+                        context.checkCancelled();
+                        stageStart = System.nanoTime();
+                        reflectOnSummary(context);
+                        state.getMetadata().addStageTime("reflection", millisSince(stageStart));
+                        logger.info("Follow-up queries generated: {}", state.getSearchQueries());
+
+                        // Stop paying for loops that would only repeat what the summary already has
+                        double gain = convergence.measure(context.getLoopResults(), state.getRunningSummary(),
+                                state.getSearchQueries());
+                        state.getMetadata().addInformationGain(gain);
+                        logger.info("Information gain of loop {}: {} ({})", loopNumber,
+                                String.format(Locale.ROOT, "%.2f", gain), convergence.lastDetail());
+                        if (convergence.hasConverged(state.getResearchLoopCount())) {
+                            logger.info("=== ResearchService: Research converged after {} loops ===",
+                                    state.getResearchLoopCount());
+                            state.getMetadata().setStopReason(ResearchMetadata.STOP_CONVERGED);
+                            break;
+                        }
                     }
                     loopNumber++;
                 }
+                if (state.getMetadata().getStopReason() == null) {
+                    state.getMetadata().setStopReason(ResearchMetadata.STOP_MAX_LOOPS);
+                }
+            } catch (DeadlineExceededException e) {
+                logger.info("=== ResearchService: Deadline reached after {} loops: {} ===",
+                        state.getResearchLoopCount(), e.getMessage());
+                state.getMetadata().setPartial(true);
+                state.getMetadata().setStopReason(ResearchMetadata.STOP_DEADLINE);
+            }
 
-                // Finalize summary
-                logger.info("=== ResearchService: Finalizing summary ===");
-                logger.info("Final metadata loop count: {}", state.getResearchLoopCount());
-                long endTime = System.currentTimeMillis();
-                state.getMetadata().setTotalTimeTaken(endTime - startTime);
-                state.getMetadata().setLoopCount(state.getResearchLoopCount());
-                String finalSummary = finalizeSummary(state);
-                logger.info("=== ResearchService: Research completed successfully ===");
-                logger.info("Final summary length: {} characters", finalSummary.length());
-
-                return finalSummary;
-
-            } catch (Exception e) {
-                logger.error("=== ResearchService: Research failed ===", e);
-                throw new RuntimeException("Research failed: " + e.getMessage(), e);
+            // Finalize summary
+            logger.info("=== ResearchService: Finalizing summary ===");
+            logger.info("Final metadata loop count: {}", state.getResearchLoopCount());
+            long endTime = System.currentTimeMillis();
+            state.getMetadata().setTotalTimeTaken(endTime - startTime);
+            state.getMetadata().setLoopCount(state.getResearchLoopCount());
+            if (context.hasDeadline()) {
+                state.getMetadata().setRemainingBudgetMs(context.remainingMillis());
             }
-        });
+            String finalSummary = finalizeSummary(state);
+            logger.info("=== ResearchService: Research completed successfully ===");
+            logger.info("Final summary length: {} characters", finalSummary.length());
+
+            Map<String, Object> done = new LinkedHashMap<>();
+            done.put("summary", finalSummary);
+            done.put("metadata", state.getMetadata());
+            context.emit(ResearchEvent.Type.DONE, done);
+            return finalSummary;
+
+        } catch (Exception e) {
+            // An interrupted HTTP call surfaces as an arbitrary wrapped exception, so trust the flag instead
+            if (context.isCancelled() || e instanceof CancellationException) {
+                logger.info("=== ResearchService: Research cancelled for topic: {} ===", researchTopic);
+                throw new CancellationException("Research cancelled");
+            }
+            logger.error("=== ResearchService: Research failed ===", e);
+            context.emit(ResearchEvent.Type.ERROR, Map.of("message", String.valueOf(e.getMessage())));
+            throw new RuntimeException("Research failed: " + e.getMessage(), e);
+        }
     }
 
-    private void generateQuery(SummaryState state) {
+    private void generateQuery(ResearchContext context) {
+        SummaryState state = context.getState();
         logger.debug("=== ResearchService: Generating query for topic: {} ===", state.getResearchTopic());
         String currentDate = LocalDate.now().toString();
-        SearchQuery searchQuery = queryGenerator.generateQuery(state.getResearchTopic(), currentDate);
-        state.getMetadata().incrementLlmCallCount();
-        state.setSearchQuery(searchQuery.getQuery());
-        logger.debug("Generated query: {}", searchQuery.getQuery());
-        logger.debug("Query rationale: {}", searchQuery.getRationale());
+        int breadth = searchBreadth();
+        if (breadth > 1) {
+            SearchQueryList searchQueries = llmCall(context, LlmRole.QUERY_GENERATOR,
+                    () -> queryGenerator.generateQueries(state.getResearchTopic(), currentDate, breadth));
+            List<String> queries = new ArrayList<>();
+            if (searchQueries != null && searchQueries.getQueries() != null) {
+                for (SearchQuery searchQuery : searchQueries.getQueries()) {
+                    queries.add(searchQuery.getQuery());
+                    logger.debug("Generated query: {} (rationale: {})", searchQuery.getQuery(), searchQuery.getRationale());
+                }
+            }
+            state.setSearchQueries(distinctQueries(queries, breadth, state.getResearchTopic()));
+        } else {
+            SearchQuery searchQuery = llmCall(context, LlmRole.QUERY_GENERATOR,
+                    () -> queryGenerator.generateQuery(state.getResearchTopic(), currentDate));
+            state.setSearchQuery(searchQuery.getQuery());
+            logger.debug("Generated query: {}", searchQuery.getQuery());
+            logger.debug("Query rationale: {}", searchQuery.getRationale());
+        }
+        context.emit(ResearchEvent.Type.QUERY_GENERATED, Map.of("queries", state.getSearchQueries()));
     }
 
-    private void webResearch(SummaryState state) {
-        logger.debug("=== ResearchService: Starting web research for query: {} ===", state.getSearchQuery());
+    private void webResearch(ResearchContext context) throws InterruptedException {
+        SummaryState state = context.getState();
+        List<String> queries = state.getSearchQueries();
+        logger.debug("=== ResearchService: Starting web research for {} queries: {} ===", queries.size(), queries);
+
+        List<List<SearchResult>> resultLists = new ArrayList<>();
+        if (queries.size() == 1) {
+            resultLists.add(withinDeadline(context, () -> search(context, queries.getFirst())));
+        } else {
+            // Run the searches for this loop concurrently; invokeAll cancels any stragglers if we are
+            // interrupted or the deadline passes, and the loop carries on with the searches that finished
+            List<Callable<List<SearchResult>>> searches = new ArrayList<>();
+            for (String query : queries) {
+                searches.add(() -> search(context, query));
+            }
+            List<Future<List<SearchResult>>> futures = context.hasDeadline()
+                    ? researchExecutor.getTaskExecutor().invokeAll(searches, context.remainingMillis(), TimeUnit.MILLISECONDS)
+                    : researchExecutor.getTaskExecutor().invokeAll(searches);
+            for (Future<List<SearchResult>> search : futures) {
+                try {
+                    resultLists.add(search.get());
+                } catch (CancellationException e) {
+                    logger.debug("Parallel search was cancelled or ran past the deadline");
+                } catch (ExecutionException e) {
+                    logger.warn("Parallel search failed, continuing with remaining results", e.getCause());
+                }
+            }
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            state.getMetadata().incrementSearchCallCount();
+        }
+        if (resultLists.isEmpty() && context.hasDeadline() && context.remainingMillis() == 0) {
+            throw new DeadlineExceededException("Deadline reached during web research");
+        }
 
-        List<SearchResult> searchResults = searchService.search(state.getSearchQuery(), config);
-        state.getMetadata().incrementSearchCallCount();
-        logger.debug("Found {} search results", searchResults.size());
+        List<SearchResult> searchResults = SearchUtils.mergeAndDeduplicate(resultLists);
+        logger.debug("Found {} unique search results", searchResults.size());
 
         String formattedResults = searchService.formatResults(searchResults, config.getMaxTokensPerSource());
         logger.debug("Formatted results length: {} characters", formattedResults.length());
 
+        List<String> sources = searchService.formatSources(searchResults);
+        context.setLoopResults(searchResults);
         state.addWebResearchResult(formattedResults);
-        state.addSourcesGathered(searchService.formatSources(searchResults));
+        state.addSourcesGathered(sources);
         state.incrementResearchLoopCount();
 
+        Map<String, Object> found = new LinkedHashMap<>();
+        found.put("loop", state.getResearchLoopCount());
+        found.put("sources", sources);
+        found.put("totalSources", new LinkedHashSet<>(state.getSourcesGathered()).size());
+        context.emit(ResearchEvent.Type.SOURCES_FOUND, found);
         logger.debug("Web research completed for loop: {}", state.getResearchLoopCount());
     }
 
-    private void summarizeSources(SummaryState state) {
+    private List<SearchResult> search(ResearchContext context, String query) {
+        context.emit(ResearchEvent.Type.SEARCH_STARTED, Map.of("query", query));
+        List<SearchResult> results = searchService.search(query, config);
+        context.emit(ResearchEvent.Type.SEARCH_FINISHED, Map.of("query", query, "resultCount", results.size()));
+        return results;
+    }
+
+    private void summarizeSources(ResearchContext context) throws InterruptedException {
+        SummaryState state = context.getState();
         logger.debug("=== ResearchService: Summarizing sources ===");
 
         if (state.getWebResearchResults().isEmpty()) {
@@ -232,12 +492,20 @@ public class ResearchService {
         logger.debug("Summarizing with existing summary length: {} chars", existingSummary.length());
         logger.debug("New research length: {} chars", latestResearch.length());
 
-        String updatedSummary = summarizer.summarize(
-                existingSummary,
-                latestResearch,
-                state.getResearchTopic()
-        );
-        state.getMetadata().incrementLlmCallCount();
+        String summarySoFar = existingSummary;
+        ResearchConfiguration.Summarization settings = summarizationSettings();
+        String updatedSummary;
+        if (settings.usesMapReduce(config.isFetchFullPage()) && !context.getLoopResults().isEmpty()) {
+            updatedSummary = mapReduceSummary(context, summarySoFar, latestResearch, settings);
+        } else {
+            long stageStart = System.nanoTime();
+            updatedSummary = llmCall(context, LlmRole.SUMMARIZER, () -> summarizer.summarize(
+                    summarySoFar,
+                    latestResearch,
+                    state.getResearchTopic()
+            ));
+            state.getMetadata().addStageTime("summarize", millisSince(stageStart));
+        }
 
         logger.debug("Generated summary length: {} chars", updatedSummary.length());
 
@@ -247,9 +515,99 @@ public class ResearchService {
         }
 
         state.setRunningSummary(updatedSummary);
+
+        Map<String, Object> updated = new LinkedHashMap<>();
+        updated.put("loop", state.getResearchLoopCount());
+        updated.put("summaryLength", updatedSummary.length());
+        updated.put("summary", updatedSummary);
+        context.emit(ResearchEvent.Type.SUMMARY_UPDATED, updated);
+    }
+
+    /**
+     * Map: each source, or chunk of a long one, is condensed into notes by its own LLM call, at
+     * most fanOut at a time, so the stage takes about as long as the largest chunk rather than
+     * all of them. Reduce: one call merges the notes into the running summary. Chunks whose call
+     * fails or misses the deadline are left out; if none produced notes, the sources are
+     * summarized directly as in single mode.
+     */
+    private String mapReduceSummary(ResearchContext context, String existingSummary, String latestResearch,
+                                    ResearchConfiguration.Summarization settings) throws InterruptedException {
+        SummaryState state = context.getState();
+        List<String> chunks = searchService.formatSourceChunks(context.getLoopResults(),
+                config.getMaxTokensPerSource(), settings.getChunkTokens());
+        Semaphore fanOut = new Semaphore(Math.max(1, settings.getFanOut()), true);
+        List<Callable<String>> condensers = new ArrayList<>();
+        for (String chunk : chunks) {
+            condensers.add(() -> {
+                fanOut.acquire();
+                long callStart = System.nanoTime();
+                try {
+                    return summarizer.condense(chunk, state.getResearchTopic());
+                } finally {
+                    state.getMetadata().recordLlmCall(LlmRole.SUMMARIZER.getValue(), millisSince(callStart));
+                    fanOut.release();
+                }
+            });
+        }
+
+        long stageStart = System.nanoTime();
+        List<Future<String>> futures = context.hasDeadline()
+                ? researchExecutor.getTaskExecutor().invokeAll(condensers, context.remainingMillis(), TimeUnit.MILLISECONDS)
+                : researchExecutor.getTaskExecutor().invokeAll(condensers);
+        List<String> notes = new ArrayList<>();
+        for (Future<String> condensed : futures) {
+            try {
+                String note = condensed.get();
+                if (note != null && config.isStripThinkingTokens()) {
+                    note = stripThinkingTokens(note);
+                }
+                if (note != null && !note.isBlank()) {
+                    notes.add(note.trim());
+                }
+            } catch (CancellationException e) {
+                logger.debug("Condensing a source ran past the deadline");
+            } catch (ExecutionException e) {
+                logger.warn("Condensing a source failed, continuing with the other notes", e.getCause());
+            }
+        }
+        state.getMetadata().addStageTime("summarizeMap", millisSince(stageStart));
+        logger.debug("Condensed {} chunks into {} notes with fan-out {}", chunks.size(), notes.size(), settings.getFanOut());
+        if (notes.isEmpty() && context.hasDeadline() && context.remainingMillis() == 0) {
+            throw new DeadlineExceededException("Deadline reached while condensing sources");
+        }
+
+        String newContext = notes.isEmpty() ? latestResearch : String.join("\n\n---\n\n", notes);
+        if (notes.isEmpty()) {
+            logger.warn("No notes from {} source chunks, summarizing the sources directly", chunks.size());
+        }
+        stageStart = System.nanoTime();
+        String updatedSummary = llmCall(context, LlmRole.SUMMARIZER, () -> summarizer.summarize(
+                existingSummary,
+                newContext,
+                state.getResearchTopic()
+        ));
+        state.getMetadata().addStageTime("summarizeReduce", millisSince(stageStart));
+        return updatedSummary;
+    }
+
+    // Summarization settings; defaults apply when the configuration has none
+    private ResearchConfiguration.Summarization summarizationSettings() {
+        ResearchConfiguration.Summarization settings = config.getSummarization();
+        return settings != null ? settings : new ResearchConfiguration.Summarization();
+    }
+
+    // Early-stop settings; without any, loops are measured but never stopped early
+    private ResearchConfiguration.Convergence convergenceSettings() {
+        ResearchConfiguration.Convergence settings = config.getConvergence();
+        return settings != null ? settings : new ResearchConfiguration.Convergence();
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
 
-    private void reflectOnSummary(SummaryState state) {
+    private void reflectOnSummary(ResearchContext context) {
+        SummaryState state = context.getState();
         logger.debug("=== ResearchService: Reflecting on summary ===");
 
         String currentSummary = state.getRunningSummary();
@@ -260,18 +618,104 @@ public class ResearchService {
 
         logger.debug("Current summary length: {} chars", currentSummary.length());
 
-        FollowUpQuery followUp = reflectionService.generateFollowUpQuery(
+        int breadth = searchBreadth();
+        if (breadth > 1) {
+            FollowUpQueryList followUps = llmCall(context, LlmRole.REFLECTION, () -> reflectionService.generateFollowUpQueries(
+                    currentSummary,
+                    state.getResearchTopic(),
+                    breadth
+            ));
+            List<String> queries = new ArrayList<>();
+            if (followUps != null && followUps.getFollowUpQueries() != null) {
+                for (FollowUpQuery followUp : followUps.getFollowUpQueries()) {
+                    queries.add(followUp.getFollowUpQuery());
+                    logger.debug("Knowledge gap identified: {} -> {}", followUp.getKnowledgeGap(), followUp.getFollowUpQuery());
+                    emitReflectionGap(context, followUp);
+                }
+            }
+            state.setSearchQueries(distinctQueries(queries, breadth, state.getResearchTopic()));
+            return;
+        }
+
+        FollowUpQuery followUp = llmCall(context, LlmRole.REFLECTION, () -> reflectionService.generateFollowUpQuery(
                 currentSummary,
                 state.getResearchTopic()
-        );
-        state.getMetadata().incrementLlmCallCount();
+        ));
 
         logger.debug("Generated follow-up query: {}", followUp.getFollowUpQuery());
         logger.debug("Knowledge gap identified: {}", followUp.getKnowledgeGap());
+        emitReflectionGap(context, followUp);
 
         state.setSearchQuery(followUp.getFollowUpQuery());
     }
 
+    // One LLM call for role within the time budget, counted and timed in the metadata whether or not it succeeds
+    private <T> T llmCall(ResearchContext context, LlmRole role, Supplier<T> call) {
+        long callStart = System.nanoTime();
+        try {
+            return withinDeadline(context, call);
+        } finally {
+            context.getState().getMetadata().recordLlmCall(role.getValue(), millisSince(callStart));
+        }
+    }
+
+    /**
+     * Run one blocking search or LLM call within the remaining time budget.
+     * Without a deadline the call runs inline. Otherwise it runs on a task thread; if the deadline
+     * passes first the call is interrupted and DeadlineExceededException is thrown.
+     */
+    private <T> T withinDeadline(ResearchContext context, Supplier<T> call) {
+        if (!context.hasDeadline()) {
+            return call.get();
+        }
+        long remaining = context.remainingMillis();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException("Deadline reached");
+        }
+        Future<T> future = researchExecutor.getTaskExecutor().submit(call::get);
+        try {
+            return future.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new DeadlineExceededException("Deadline reached");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Research cancelled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void emitReflectionGap(ResearchContext context, FollowUpQuery followUp) {
+        Map<String, Object> gap = new LinkedHashMap<>();
+        gap.put("knowledgeGap", followUp.getKnowledgeGap());
+        gap.put("followUpQuery", followUp.getFollowUpQuery());
+        context.emit(ResearchEvent.Type.REFLECTION_GAP, gap);
+    }
+
+    private int searchBreadth() {
+        return Math.max(1, config.getSearchBreadth());
+    }
+
+    // Drop blank and case-insensitive duplicate queries, cap at breadth, and fall back to the topic if none remain
+    private List<String> distinctQueries(List<String> queries, int breadth, String researchTopic) {
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String query : queries) {
+            if (query != null && !query.isBlank() && unique.size() < breadth) {
+                unique.putIfAbsent(query.trim().toLowerCase(Locale.ROOT), query.trim());
+            }
+        }
+        if (unique.isEmpty()) {
+            logger.warn("LLM returned no usable queries, searching for the topic itself");
+            return List.of(researchTopic);
+        }
+        return new ArrayList<>(unique.values());
+    }
+
     private String finalizeSummary(SummaryState state) {
         logger.debug("=== ResearchService: Finalizing summary ===");
 
@@ -279,8 +723,12 @@ public class ResearchService {
         Set<String> uniqueSources = new LinkedHashSet<>(state.getSourcesGathered());
         String allSources = String.join("\n- ", uniqueSources);
 
+        String runningSummary = state.getRunningSummary();
+        if ((runningSummary == null || runningSummary.isBlank()) && state.getMetadata().isPartial()) {
+            runningSummary = "The deadline was reached before a summary could be written.";
+        }
         String finalSummary = String.format("## Summary\n%s\n\n### Sources:\n- %s\n\n### Metadata:\n%s\n",
-                state.getRunningSummary(), allSources, state.getMetadata().toString());
+                runningSummary, allSources, state.getMetadata().toString());
 
         logger.debug("Final summary prepared with {} unique sources", uniqueSources.size());
         return finalSummary;
@@ -1,362 +1,334 @@
 package com.skanga.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.skanga.config.ResearchConfiguration;
+import com.skanga.exception.SearchException;
+import com.skanga.llm.ChatModelFactory;
+import com.skanga.llm.LlmRole;
+import com.skanga.model.SearchAPI;
 import com.skanga.model.SearchResult;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import com.skanga.search.FederatedSearch;
+import com.skanga.search.SearchHedger;
+import com.skanga.search.SearchProvider;
+import com.skanga.search.SearchProviders;
+import com.skanga.token.ContextPacker;
+import com.skanga.token.TokenCounters;
+import com.skanga.util.WebContentFetcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.URLEncoder;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
+/**
+ * Runs searches against the SearchProvider selected by research.searchApi, with a result cache
+ * in front and a hedged secondary provider behind. Optionally fills in the full page behind each result.
+ */
 @Service
 public class SearchService {
     private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
-    private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
-
-    @Value("${search.tavily.api.key:}")
-    private String tavilyApiKey;
-
-    @Value("${search.perplexity.api.key:}")
-    private String perplexityApiKey;
-
-    public SearchService() {
-        this(HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build());
+    private static final String ERROR_TITLE = "Search Error";
+    // searchApi value that fans each query out to several providers
+    public static final String FEDERATED = "federated";
+    private final SearchProviders providers;
+    private final ResearchConfiguration.Hedge hedgeConfig;
+    private final SearchHedger hedger;
+    private final ResearchConfiguration.Federated federatedConfig;
+    private final FederatedSearch federation;
+    private final WebContentFetcher webContentFetcher;
+    private final ResearchConfiguration.Context contextConfig;
+    private final ContextPacker contextPacker;
+    private final Cache<SearchCacheKey, List<SearchResult>> resultCache;
+
+    @Autowired
+    public SearchService(ResearchConfiguration config, SearchProviders providers, WebContentFetcher webContentFetcher) {
+        this.providers = providers;
+        this.hedgeConfig = config.getHedge();
+        this.hedger = new SearchHedger(config.getHedge());
+        this.federatedConfig = config.getFederated();
+        this.federation = new FederatedSearch(config.getFederated());
+        this.webContentFetcher = webContentFetcher;
+        this.contextConfig = config.getContext();
+        // The packed context goes to the summarizer, so count tokens the way its model does
+        ChatModelFactory.ModelSettings summarizer = ChatModelFactory.settingsFor(config, LlmRole.SUMMARIZER);
+        this.contextPacker = new ContextPacker(TokenCounters.forModel(contextConfig.getTokenizer(),
+                summarizer.provider(), summarizer.modelName()));
+        ResearchConfiguration.SearchCache cacheConfig = config.getSearchCache();
+        this.resultCache = cacheConfig.isEnabled() && cacheConfig.getMaxEntries() > 0
+                ? createResultCache(cacheConfig) : null;
+        logger.info("=== SearchService: initialized, result cache {}, {} token counter ===",
+                resultCache != null ? "enabled" : "disabled", contextPacker.getTokenCounter().name());
     }
 
     // Constructor for testing
     public SearchService(HttpClient httpClient) {
-        logger.info("=== SearchService: Initializing JDK HttpClient ===");
-        this.httpClient = httpClient;
-        this.objectMapper = new ObjectMapper();
-        logger.info("=== SearchService: JDK HttpClient initialized ===");
+        this(httpClient, new ResearchConfiguration.SearchCache());
     }
 
-    public List<SearchResult> search(String query, ResearchConfiguration config) {
-        logger.info("=== SearchService: Starting search ===");
-        logger.info("Query: {}", query);
-        logger.info("Search API: {}", config.getSearchApi());
+    public SearchService(HttpClient httpClient, ResearchConfiguration.SearchCache cacheConfig) {
+        this(httpClient, cacheConfig, new WebContentFetcher(httpClient));
+    }
 
-        try {
-            switch (config.getSearchApi().toLowerCase()) {
-                case "duckduckgo":
-                    logger.info("Using DuckDuckGo search");
-                    return duckDuckGoSearch(query, 3);
-                case "tavily":
-                    logger.info("Using Tavily search");
-                    return tavilySearch(query, 5);
-                case "perplexity":
-                    logger.info("Using Perplexity search");
-                    return perplexitySearch(query);
-                default:
-                    logger.warn("Unknown search API: {}, defaulting to DuckDuckGo", config.getSearchApi());
-                    return duckDuckGoSearch(query, 3);
-            }
-        } catch (Exception e) {
-            logger.error("Search failed, falling back to DuckDuckGo", e);
-            try {
-                return duckDuckGoSearch(query, 3);
-            } catch (Exception fallbackException) {
-                logger.error("Fallback search also failed", fallbackException);
-                return createErrorResults(query, "Search service temporarily unavailable");
-            }
-        }
+    public SearchService(HttpClient httpClient, ResearchConfiguration.SearchCache cacheConfig,
+                         WebContentFetcher webContentFetcher) {
+        this(new SearchProviders(httpClient, new ResearchConfiguration()), cacheConfig, webContentFetcher);
+    }
+
+    public SearchService(SearchProviders providers, ResearchConfiguration.SearchCache cacheConfig,
+                         WebContentFetcher webContentFetcher) {
+        this(withSearchCache(cacheConfig), providers, webContentFetcher);
     }
 
-    private List<SearchResult> duckDuckGoSearch(String query, int maxResults) throws IOException, InterruptedException {
-        logger.info("=== SearchService: DuckDuckGo search for: {} ===", query);
+    private static ResearchConfiguration withSearchCache(ResearchConfiguration.SearchCache cacheConfig) {
+        ResearchConfiguration config = new ResearchConfiguration();
+        config.setSearchCache(cacheConfig);
+        return config;
+    }
 
-        // DuckDuckGo Instant Answer API (limited but free)
-        String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-        String url = "https://api.duckduckgo.com/?q=" + encodedQuery + "&format=json&no_redirect=1&no_html=1&skip_disambig=1";
+    // Tokenizer used to fit sources into the summarizer's prompt
+    public String getTokenCounterName() {
+        return contextPacker.getTokenCounter().name();
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("User-Agent", "Mozilla/5.0 (compatible; SearchService/1.0)")
-                .timeout(Duration.ofSeconds(15))
-                .GET()
+    /**
+     * Bounded result cache. Caffeine's W-TinyLFU policy only admits a new query when it is
+     * requested more often than the entry it would evict, so bursts of one-off queries do not
+     * flush popular ones. Entries expire after the TTL configured for their search API.
+     */
+    private static Cache<SearchCacheKey, List<SearchResult>> createResultCache(ResearchConfiguration.SearchCache cacheConfig) {
+        return Caffeine.newBuilder()
+                .maximumSize(cacheConfig.getMaxEntries())
+                .expireAfter(Expiry.creating((SearchCacheKey key, List<SearchResult> results) ->
+                        cacheConfig.ttlFor(key.searchApi())))
+                .recordStats()
                 .build();
+    }
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            logger.warn("DuckDuckGo API returned status: {}", response.statusCode());
-            return fallbackWebSearch(query, maxResults);
+    public List<SearchResult> search(String query, ResearchConfiguration config) {
+        CompletableFuture<List<SearchResult>> search = searchAsync(query, config);
+        List<SearchResult> results;
+        try {
+            results = search.get();
+        } catch (InterruptedException e) {
+            // The research job was cancelled; stop waiting and do not start a fallback search
+            search.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SearchException("Search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new SearchException("Search failed", e.getCause());
         }
+        return config.isFetchFullPage() ? withFullPages(results) : results;
+    }
 
-        List<SearchResult> results = new ArrayList<>();
+    /**
+     * Non-blocking search against the configured provider. Cached results complete at once.
+     * A slow primary is hedged and a failed or unconfigured one falls back to the secondary
+     * (research.hedge.secondary). If every provider fails the future completes with an error
+     * placeholder, so it only completes exceptionally when cancelled, which also cancels the
+     * requests still running. Full pages are not fetched here; see search.
+     */
+    public CompletableFuture<List<SearchResult>> searchAsync(String query, ResearchConfiguration config) {
+        logger.info("=== SearchService: Starting search ===");
+        logger.info("Query: {}", query);
+        logger.info("Search API: {}", config.getSearchApi());
 
-        try {
-            JsonNode jsonResponse = objectMapper.readTree(response.body());
-
-            // Try to get instant answer
-            if (jsonResponse.has("AbstractText") && !jsonResponse.get("AbstractText").asText().isEmpty()) {
-                results.add(new SearchResult(
-                        "DuckDuckGo Instant Answer: " + query,
-                        jsonResponse.get("AbstractText").asText(),
-                        jsonResponse.has("AbstractURL") ? jsonResponse.get("AbstractURL").asText() : "https://duckduckgo.com",
-                        0.9
-                ));
+        if (FEDERATED.equalsIgnoreCase(config.getSearchApi().trim())) {
+            return federatedSearch(query);
+        }
+        SearchProvider primary = providerFor(config.getSearchApi());
+        SearchCacheKey cacheKey = new SearchCacheKey(primary.api().getValue(), ResearchKey.normalizeTopic(query),
+                primary.defaultMaxResults());
+        if (resultCache != null) {
+            List<SearchResult> cached = resultCache.getIfPresent(cacheKey);
+            if (cached != null) {
+                logger.info("Returning {} cached {} results", cached.size(), primary.api());
+                return CompletableFuture.completedFuture(new ArrayList<>(cached));
             }
+        }
 
-            // Try to get related topics
-            if (jsonResponse.has("RelatedTopics") && jsonResponse.get("RelatedTopics").isArray()) {
-                for (JsonNode topic : jsonResponse.get("RelatedTopics")) {
-                    if (topic.has("Text") && topic.has("FirstURL") && results.size() < maxResults) {
-                        results.add(new SearchResult(
-                                "Related: " + extractTitle(topic.get("Text").asText()),
-                                topic.get("Text").asText(),
-                                topic.get("FirstURL").asText(),
-                                0.7
-                        ));
+        SearchProvider secondary = providers.secondaryFor(primary, hedgeConfig.getSecondary());
+        CompletableFuture<SearchHedger.Answer> answer = hedger.search(primary, secondary, query, cacheKey.maxResults());
+        CompletableFuture<List<SearchResult>> results = answer
+                .thenApply(found -> {
+                    // Only the primary's answers are cached under its key
+                    if (found.provider() == primary) {
+                        cacheResults(cacheKey, found.results());
                     }
-                }
-            }
+                    return found.results().isEmpty()
+                            ? createErrorResults(query, "No search results found") : found.results();
+                })
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof CancellationException cancelled) {
+                        throw cancelled;
+                    }
+                    logger.error("Search failed on every provider", cause);
+                    return createErrorResults(query, "Search service temporarily unavailable");
+                });
+        return cancelling(results, answer);
+    }
 
-            // If no results from API, try web scraping as fallback
-            if (results.isEmpty()) {
-                logger.info("No results from DuckDuckGo API, trying web search fallback");
-                return fallbackWebSearch(query, maxResults);
+    // All listed providers at once, fused by reciprocal rank; falls back to DuckDuckGo if none is configured
+    private CompletableFuture<List<SearchResult>> federatedSearch(String query) {
+        SearchCacheKey cacheKey = new SearchCacheKey(FEDERATED, ResearchKey.normalizeTopic(query), federatedConfig.getTopK());
+        if (resultCache != null) {
+            List<SearchResult> cached = resultCache.getIfPresent(cacheKey);
+            if (cached != null) {
+                logger.info("Returning {} cached federated results", cached.size());
+                return CompletableFuture.completedFuture(new ArrayList<>(cached));
             }
-
-        } catch (Exception e) {
-            logger.error("Error parsing DuckDuckGo response", e);
-            return fallbackWebSearch(query, maxResults);
         }
-
-        logger.info("Returning {} DuckDuckGo search results", results.size());
-        return results.stream().limit(maxResults).collect(Collectors.toList());
+        // Providers whose circuit breaker is open would only be counted as failed; leave them out
+        List<SearchProvider> selected = providers.configured(federatedConfig.getProviders()).stream()
+                .filter(SearchProvider::isAvailable)
+                .toList();
+        if (selected.isEmpty()) {
+            logger.warn("No available providers among {}, federating DuckDuckGo only", federatedConfig.getProviders());
+            selected = List.of(providers.get(SearchAPI.DUCKDUCKGO));
+        }
+        CompletableFuture<List<SearchResult>> fused = federation.search(selected, query);
+        return cancelling(fused.thenApply(results -> {
+            cacheResults(cacheKey, results);
+            return results.isEmpty() ? createErrorResults(query, "No search results found") : results;
+        }), fused);
     }
 
-    private List<SearchResult> fallbackWebSearch(String query, int maxResults) {
-        logger.info("Performing fallback web search for: {}", query);
-
-        try {
-            // Use a search engine that allows scraping (like Startpage or Searx)
-            String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-            String searchUrl = "https://html.duckduckgo.com/html/?q=" + encodedQuery;
-
-            Document doc = Jsoup.connect(searchUrl)
-                    .userAgent("Mozilla/5.0 (compatible; SearchService/1.0)")
-                    .timeout(15000)
-                    .get();
-
-            List<SearchResult> results = new ArrayList<>();
-            Elements searchResults = doc.select(".result");
-
-            for (Element result : searchResults) {
-                if (results.size() >= maxResults) break;
-
-                Element titleElement = result.selectFirst(".result__title a");
-                Element snippetElement = result.selectFirst(".result__snippet");
-
-                if (titleElement != null && snippetElement != null) {
-                    String title = titleElement.text();
-                    String url = titleElement.attr("href");
-                    String snippet = snippetElement.text();
-
-                    results.add(new SearchResult(title, snippet, url, 0.8));
-                }
-            }
-
-            if (results.isEmpty()) {
-                return createErrorResults(query, "No search results found");
+    // Cancelling a dependent stage does not reach its source; make it so the provider requests stop too
+    private static <T> CompletableFuture<T> cancelling(CompletableFuture<T> dependent, CompletableFuture<?> source) {
+        dependent.whenComplete((result, error) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
             }
+        });
+        return dependent;
+    }
 
-            return results;
+    // Hedge rate, fallbacks, wins and recent latency per search provider
+    public Map<String, Object> getHedgeStats() {
+        return hedger.getStats();
+    }
 
-        } catch (Exception e) {
-            logger.error("Fallback web search failed", e);
-            return createErrorResults(query, "Web search temporarily unavailable");
-        }
+    // Federated searches run, and how often each provider answered within the time budget
+    public Map<String, Object> getFederationStats() {
+        return federation.getStats();
     }
 
-    private List<SearchResult> tavilySearch(String query, int maxResults) throws IOException, InterruptedException {
-        logger.info("=== SearchService: Tavily search for: {} ===", query);
+    // Circuit breaker state of each configured search provider
+    public Map<String, Object> getProviderHealth() {
+        return providers.getBreakerStats();
+    }
 
-        if (tavilyApiKey == null || tavilyApiKey.trim().isEmpty()) {
-            logger.warn("Tavily API key not configured, falling back to DuckDuckGo");
-            return duckDuckGoSearch(query, maxResults);
+    /**
+     * The primary provider for a searchApi name; unknown names and providers missing their settings
+     * use DuckDuckGo. While that provider's circuit breaker is open, the healthiest available
+     * provider is searched instead so the query does not wait on a failure first.
+     */
+    private SearchProvider providerFor(String searchApi) {
+        SearchProvider provider;
+        try {
+            provider = providers.get(SearchAPI.fromString(searchApi));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown search API: {}, defaulting to DuckDuckGo", searchApi);
+            provider = providers.get(SearchAPI.DUCKDUCKGO);
         }
-
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("api_key", tavilyApiKey);
-        requestBody.put("query", query);
-        requestBody.put("search_depth", "basic");
-        requestBody.put("max_results", maxResults);
-        requestBody.put("include_answer", true);
-        requestBody.put("include_domains", new ArrayList<>());
-        requestBody.put("exclude_domains", new ArrayList<>());
-
-        String jsonBody = objectMapper.writeValueAsString(requestBody);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://api.tavily.com/search"))
-                .header("Content-Type", "application/json")
-                .timeout(Duration.ofSeconds(30))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            logger.error("Tavily API returned status: {} - {}", response.statusCode(), response.body());
-            throw new IOException("Tavily API request failed with status: " + response.statusCode());
+        if (!provider.isConfigured()) {
+            logger.warn("{} search is not configured, falling back to DuckDuckGo", provider.api());
+            provider = providers.get(SearchAPI.DUCKDUCKGO);
         }
-
-        List<SearchResult> results = new ArrayList<>();
-
-        try {
-            JsonNode jsonResponse = objectMapper.readTree(response.body());
-
-            // Add answer if available
-            if (jsonResponse.has("answer") && !jsonResponse.get("answer").asText().isEmpty()) {
-                results.add(new SearchResult(
-                        "Tavily AI Answer: " + query,
-                        jsonResponse.get("answer").asText(),
-                        "https://tavily.com",
-                        0.95
-                ));
-            }
-
-            // Add search results
-            if (jsonResponse.has("results") && jsonResponse.get("results").isArray()) {
-                for (JsonNode result : jsonResponse.get("results")) {
-                    if (results.size() >= maxResults) break;
-
-                    String title = result.has("title") ? result.get("title").asText() : "Untitled";
-                    String content = result.has("content") ? result.get("content").asText() : "";
-                    String url = result.has("url") ? result.get("url").asText() : "";
-                    double score = result.has("score") ? result.get("score").asDouble() : 0.5;
-
-                    results.add(new SearchResult(title, content, url, score));
-                }
+        if (!provider.isAvailable()) {
+            List<SearchProvider> fallbacks = providers.fallbacksFor(provider);
+            if (!fallbacks.isEmpty()) {
+                logger.warn("{} circuit breaker is open, searching {} instead", provider.name(), fallbacks.getFirst().name());
+                return fallbacks.getFirst();
             }
-
-        } catch (Exception e) {
-            logger.error("Error parsing Tavily response", e);
-            throw new IOException("Failed to parse Tavily response", e);
         }
-
-        logger.info("Returning {} Tavily search results", results.size());
-        return results;
+        return provider;
     }
 
-    private List<SearchResult> perplexitySearch(String query) throws IOException, InterruptedException {
-        logger.info("=== SearchService: Perplexity search for: {} ===", query);
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
 
-        if (perplexityApiKey == null || perplexityApiKey.trim().isEmpty()) {
-            logger.warn("Perplexity API key not configured, falling back to DuckDuckGo");
-            return duckDuckGoSearch(query, 3);
+    /**
+     * Copies of the results with rawContent set to the full page text, fetched concurrently.
+     * Copies keep the cached results untouched; results whose page cannot be fetched keep rawContent unset.
+     */
+    private List<SearchResult> withFullPages(List<SearchResult> results) {
+        List<SearchResult> fetchable = results.stream()
+                .filter(result -> result.getUrl() != null && result.getUrl().startsWith("http"))
+                .toList();
+        if (fetchable.isEmpty()) {
+            return results;
         }
-
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", "llama-3.1-sonar-small-128k-online");
-
-        List<Map<String, String>> messages = new ArrayList<>();
-        Map<String, String> message = new HashMap<>();
-        message.put("role", "user");
-        message.put("content", query);
-        messages.add(message);
-
-        requestBody.put("messages", messages);
-        requestBody.put("max_tokens", 1000);
-        requestBody.put("temperature", 0.2);
-        requestBody.put("top_p", 0.9);
-        requestBody.put("return_citations", true);
-        requestBody.put("search_domain_filter", new ArrayList<>());
-        requestBody.put("return_images", false);
-        requestBody.put("return_related_questions", false);
-        requestBody.put("search_recency_filter", "month");
-
-        String jsonBody = objectMapper.writeValueAsString(requestBody);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://api.perplexity.ai/chat/completions"))
-                .header("Authorization", "Bearer " + perplexityApiKey)
-                .header("Content-Type", "application/json")
-                .timeout(Duration.ofSeconds(30))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            logger.error("Perplexity API returned status: {} - {}", response.statusCode(), response.body());
-            throw new IOException("Perplexity API request failed with status: " + response.statusCode());
+        logger.info("Fetching {} full pages", fetchable.size());
+        List<Optional<String>> pages = webContentFetcher.fetchAll(
+                fetchable.stream().map(SearchResult::getUrl).toList());
+        Map<SearchResult, String> rawContents = new IdentityHashMap<>();
+        for (int i = 0; i < fetchable.size(); i++) {
+            SearchResult result = fetchable.get(i);
+            pages.get(i).ifPresent(page -> rawContents.put(result, page));
         }
+        List<SearchResult> withPages = new ArrayList<>(results.size());
+        for (SearchResult result : results) {
+            withPages.add(new SearchResult(result.getTitle(), result.getContent(), result.getUrl(),
+                    rawContents.get(result), result.getScore()));
+        }
+        return withPages;
+    }
 
-        List<SearchResult> results = new ArrayList<>();
-
-        try {
-            JsonNode jsonResponse = objectMapper.readTree(response.body());
-
-            if (jsonResponse.has("choices") && jsonResponse.get("choices").isArray()) {
-                JsonNode choice = jsonResponse.get("choices").get(0);
-
-                if (choice.has("message") && choice.get("message").has("content")) {
-                    String content = choice.get("message").get("content").asText();
-
-                    results.add(new SearchResult(
-                            "Perplexity AI Response: " + query,
-                            content,
-                            "https://perplexity.ai",
-                            0.9
-                    ));
-                }
-            }
-
-            // Extract citations if available
-            if (jsonResponse.has("citations") && jsonResponse.get("citations").isArray()) {
-                for (JsonNode citation : jsonResponse.get("citations")) {
-                    if (results.size() >= 3) break; // Limit total results
-
-                    String url = citation.asText();
-                    // You could fetch the actual content from these URLs if needed
-                    results.add(new SearchResult(
-                            "Source: " + extractDomainFromUrl(url),
-                            "Referenced source from Perplexity search",
-                            url,
-                            0.7
-                    ));
-                }
-            }
+    // Only cache real answers; error placeholders should be retried on the next call
+    private void cacheResults(SearchCacheKey cacheKey, List<SearchResult> results) {
+        if (resultCache == null || results.isEmpty()
+                || results.stream().anyMatch(result -> ERROR_TITLE.equals(result.getTitle()))) {
+            return;
+        }
+        resultCache.put(cacheKey, List.copyOf(results));
+    }
 
-        } catch (Exception e) {
-            logger.error("Error parsing Perplexity response", e);
-            throw new IOException("Failed to parse Perplexity response", e);
+    // Result cache metrics: hit ratio, size and evictions
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", resultCache != null);
+        if (resultCache != null) {
+            CacheStats cacheStats = resultCache.stats();
+            stats.put("size", resultCache.estimatedSize());
+            stats.put("hits", cacheStats.hitCount());
+            stats.put("misses", cacheStats.missCount());
+            stats.put("hitRate", cacheStats.hitRate());
+            stats.put("evictions", cacheStats.evictionCount());
         }
+        return stats;
+    }
 
-        logger.info("Returning {} Perplexity search results", results.size());
-        return results;
+    // Page cache metrics for full-page fetches: fresh hits, 304 revalidations, misses and bytes on disk
+    public Map<String, Object> getPageCacheStats() {
+        return webContentFetcher.getCacheStats();
+    }
+
+    // Full-page fetch screening: responses rejected by Content-Type or size and skipped unfetchable URLs
+    public Map<String, Object> getFetchScreeningStats() {
+        return webContentFetcher.getScreeningStats();
     }
 
     private List<SearchResult> createErrorResults(String query, String errorMessage) {
         List<SearchResult> errorResults = new ArrayList<>();
         errorResults.add(new SearchResult(
-                "Search Error",
+                ERROR_TITLE,
                 errorMessage + " for query: " + query,
                 "",
                 0.1
@@ -364,46 +336,81 @@ public class SearchService {
         return errorResults;
     }
 
-    private String extractTitle(String text) {
-        return text.length() > 60 ? text.substring(0, 60) + "..." : text;
-    }
-
-    private String extractDomainFromUrl(String url) {
-        try {
-            return URI.create(url).getHost();
-        } catch (Exception e) {
-            return url;
-        }
-    }
-
+    /**
+     * Results as prompt text. Their content shares one token budget by relevance score: the
+     * configured research.context.budgetTokens, or maxTokensPerSource for each result.
+     */
     public String formatResults(List<SearchResult> results, int maxTokensPerSource) {
         logger.debug("=== SearchService: Formatting {} results ===", results.size());
-        logger.debug("Max tokens per source: {}", maxTokensPerSource);
-
         StringBuilder formatted = new StringBuilder();
+        int usedTokens = 0;
+
+        for (ContextPacker.PackedSource source : contextPacker.pack(results, budgetTokens(results, maxTokensPerSource))) {
+            logger.debug("Formatting result: {} ({} tokens{})", source.result().getTitle(), source.tokens(),
+                    source.truncated() ? ", truncated" : "");
+            usedTokens += source.tokens();
+            // The full page when it was fetched, cut to this result's share of the budget
+            formatted.append(formatSource(source.result(), "Content", source.content() + (source.truncated() ? "..." : "")));
+        }
 
-        for (int i = 0; i < results.size(); i++) {
-            SearchResult result = results.get(i);
-            logger.debug("Formatting result {}: {}", i + 1, result.getTitle());
-
-            formatted.append("Title: ").append(result.getTitle()).append("\n");
-            formatted.append("URL: ").append(result.getUrl()).append("\n");
+        String result = formatted.toString();
+        logger.debug("Formatted results: {} content tokens ({}), {} chars", usedTokens,
+                contextPacker.getTokenCounter().name(), result.length());
+        return result;
+    }
 
-            String content = result.getContent();
-            // Truncate content to max tokens (approximating 4 chars per token)
-            if (content.length() > maxTokensPerSource * 4) {
-                content = content.substring(0, maxTokensPerSource * 4) + "...";
-                logger.debug("Truncated content to {} chars", content.length());
+    /**
+     * The same packed results as formatResults, one entry per result, except that content longer
+     * than chunkTokens is split into parts of at most that many tokens, cut at a paragraph or word
+     * break where one is close. Each part repeats its result's title and URL so it reads on its own.
+     */
+    public List<String> formatSourceChunks(List<SearchResult> results, int maxTokensPerSource, int chunkTokens) {
+        List<String> chunks = new ArrayList<>();
+        for (ContextPacker.PackedSource source : contextPacker.pack(results, budgetTokens(results, maxTokensPerSource))) {
+            List<String> parts = split(source.content(), Math.max(1, chunkTokens));
+            for (int i = 0; i < parts.size(); i++) {
+                String label = parts.size() == 1 ? "Content" : "Content (part " + (i + 1) + " of " + parts.size() + ")";
+                boolean cut = source.truncated() && i == parts.size() - 1;
+                chunks.add(formatSource(source.result(), label, parts.get(i) + (cut ? "..." : "")));
             }
+        }
+        logger.debug("Formatted {} results as {} chunks of up to {} tokens", results.size(), chunks.size(), chunkTokens);
+        return chunks;
+    }
+
+    private int budgetTokens(List<SearchResult> results, int maxTokensPerSource) {
+        return contextConfig.getBudgetTokens() > 0 ? contextConfig.getBudgetTokens() : maxTokensPerSource * results.size();
+    }
 
-            formatted.append("Content: ").append(content).append("\n");
-            formatted.append("Score: ").append(String.format("%.2f", result.getScore())).append("\n");
-            formatted.append("---\n");
+    private List<String> split(String content, int chunkTokens) {
+        List<String> parts = new ArrayList<>();
+        String rest = content;
+        while (parts.isEmpty() || !rest.isEmpty()) {
+            String part = contextPacker.getTokenCounter().truncate(rest, chunkTokens);
+            if (part.length() < rest.length()) {
+                int paragraph = part.lastIndexOf("\n\n");
+                int word = part.lastIndexOf(' ');
+                if (paragraph > part.length() / 2) {
+                    part = part.substring(0, paragraph);
+                } else if (word > part.length() / 2) {
+                    part = part.substring(0, word);
+                } else if (part.isEmpty()) {
+                    // A single character costing more than the chunk still has to go somewhere
+                    part = rest.substring(0, Character.charCount(rest.codePointAt(0)));
+                }
+            }
+            parts.add(part.strip());
+            rest = rest.substring(part.length()).stripLeading();
         }
+        return parts;
+    }
 
-        String result = formatted.toString();
-        logger.debug("Formatted results length: {} chars", result.length());
-        return result;
+    private static String formatSource(SearchResult result, String contentLabel, String content) {
+        return "Title: " + result.getTitle() + "\n"
+                + "URL: " + result.getUrl() + "\n"
+                + contentLabel + ": " + content + "\n"
+                + "Score: " + String.format("%.2f", result.getScore()) + "\n"
+                + "---\n";
     }
 
     public List<String> formatSources(List<SearchResult> results) {
@@ -420,4 +427,8 @@ public class SearchService {
         logger.debug("Formatted {} sources", sources.size());
         return sources;
     }
+
+    // Identifies one provider call: search API, normalized query and requested result count
+    private record SearchCacheKey(String searchApi, String query, int maxResults) {
+    }
 }
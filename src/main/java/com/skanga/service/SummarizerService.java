@@ -34,4 +34,28 @@ interface SummarizerService {
     String summarize(@V("existingSummary") String existingSummary,
                      @V("newContext") String newContext,
                      @V("researchTopic") String researchTopic);
+
+    @SystemMessage("""
+            You are a research assistant taking notes from a single source.
+            
+            Guidelines:
+            - Keep only facts, figures, findings and claims relevant to the topic
+            - Maintain factual accuracy; do not add anything the source does not say
+            - Write concise bullet points
+            - Note the source URL once at the top
+            """)
+    @UserMessage("""
+            <Source>
+            {{source}}
+            </Source>
+            
+            Take notes from the Source on this topic:
+            <User Input>
+            {{researchTopic}}
+            </User Input>
+            
+            If the Source has nothing relevant to the topic, reply with an empty response.
+            """)
+    String condense(@V("source") String source,
+                    @V("researchTopic") String researchTopic);
 }
@@ -0,0 +1,61 @@
+package com.skanga.token;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+
+import java.util.Optional;
+
+/**
+ * Exact token counts for OpenAI-family vocabularies, using jtokkit's byte-pair encoder.
+ * Special tokens such as <|endoftext|> in web pages are counted as plain text rather than
+ * rejected. Vocabularies load on first use and are shared by every counter.
+ */
+public final class BpeTokenCounter implements TokenCounter {
+    private static final EncodingRegistry REGISTRY = Encodings.newLazyEncodingRegistry();
+
+    private final Encoding encoding;
+
+    public BpeTokenCounter(EncodingType type) {
+        this.encoding = REGISTRY.getEncoding(type);
+    }
+
+    private BpeTokenCounter(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    // The counter for an OpenAI model name such as "gpt-4o-mini", if jtokkit knows its vocabulary
+    public static Optional<TokenCounter> forModel(String modelName) {
+        return REGISTRY.getEncodingForModel(modelName).map(BpeTokenCounter::new);
+    }
+
+    @Override
+    public String name() {
+        return encoding.getName();
+    }
+
+    @Override
+    public int count(String text) {
+        return text == null || text.isEmpty() ? 0 : encoding.countTokensOrdinary(text);
+    }
+
+    @Override
+    public String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        EncodingResult encoded = encoding.encodeOrdinary(text, Math.max(0, maxTokens));
+        if (!encoded.isTruncated()) {
+            return text;
+        }
+        String prefix = encoding.decode(encoded.getTokens());
+        // A cut inside a multi-byte character decodes to a replacement character
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == '\uFFFD') {
+            end--;
+        }
+        return prefix.substring(0, end);
+    }
+}
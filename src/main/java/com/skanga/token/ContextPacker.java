@@ -0,0 +1,102 @@
+package com.skanga.token;
+
+import com.skanga.model.SearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fits search results into a total token budget for a prompt. The budget is shared out in
+ * proportion to each result's relevance score, and a result that needs less than its share
+ * hands the rest back to be shared among the others, so short snippets do not waste budget
+ * that a long, relevant page could use. Results keep their order; only their text is cut.
+ */
+public class ContextPacker {
+    // Results without a usable score still get a small share
+    private static final double MIN_WEIGHT = 0.05;
+
+    private final TokenCounter tokenCounter;
+
+    public ContextPacker(TokenCounter tokenCounter) {
+        this.tokenCounter = tokenCounter;
+    }
+
+    public TokenCounter getTokenCounter() {
+        return tokenCounter;
+    }
+
+    /**
+     * Text of each result (its full page when fetched, otherwise its snippet) cut to its share
+     * of budgetTokens.
+     */
+    public List<PackedSource> pack(List<SearchResult> results, int budgetTokens) {
+        int count = results.size();
+        String[] texts = new String[count];
+        int[] needed = new int[count];
+        double[] weights = new double[count];
+        for (int i = 0; i < count; i++) {
+            SearchResult result = results.get(i);
+            texts[i] = textOf(result);
+            needed[i] = tokenCounter.count(texts[i]);
+            weights[i] = Math.max(MIN_WEIGHT, result.getScore());
+        }
+        int[] allocated = allocate(needed, weights, Math.max(0, budgetTokens));
+
+        List<PackedSource> packed = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (allocated[i] >= needed[i]) {
+                packed.add(new PackedSource(results.get(i), texts[i], needed[i], false));
+            } else {
+                String cut = tokenCounter.truncate(texts[i], allocated[i]);
+                packed.add(new PackedSource(results.get(i), cut, tokenCounter.count(cut), true));
+            }
+        }
+        return packed;
+    }
+
+    // Water-filling: results that fit in their proportional share are settled first, then the rest split what is left
+    static int[] allocate(int[] needed, double[] weights, int budget) {
+        int[] allocated = new int[needed.length];
+        boolean[] settled = new boolean[needed.length];
+        int remaining = budget;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            double totalWeight = 0;
+            for (int i = 0; i < needed.length; i++) {
+                if (!settled[i]) {
+                    totalWeight += weights[i];
+                }
+            }
+            for (int i = 0; i < needed.length; i++) {
+                if (!settled[i] && needed[i] <= remaining * weights[i] / totalWeight) {
+                    allocated[i] = needed[i];
+                    remaining -= needed[i];
+                    settled[i] = true;
+                    changed = true;
+                }
+            }
+            if (!changed && totalWeight > 0) {
+                for (int i = 0; i < needed.length; i++) {
+                    if (!settled[i]) {
+                        allocated[i] = (int) (remaining * weights[i] / totalWeight);
+                    }
+                }
+            }
+        }
+        return allocated;
+    }
+
+    private static String textOf(SearchResult result) {
+        if (result.getRawContent() != null && !result.getRawContent().isBlank()) {
+            return result.getRawContent();
+        }
+        return result.getContent() == null ? "" : result.getContent();
+    }
+
+    /**
+     * A result's text as it goes into the prompt, its token count, and whether it was cut.
+     */
+    public record PackedSource(SearchResult result, String content, int tokens, boolean truncated) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.skanga.token;
+
+/**
+ * Counts the tokens a piece of text costs in an LLM prompt. Implementations are thread-safe
+ * and either exact for one vocabulary or an estimate; name says which.
+ */
+public interface TokenCounter {
+
+    // Name used in logs and metrics, such as "cl100k_base" or "approximate"
+    String name();
+
+    int count(String text);
+
+    // The longest prefix of text that fits in maxTokens, or text itself when it all fits
+    String truncate(String text, int maxTokens);
+}
@@ -0,0 +1,53 @@
+package com.skanga.token;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import com.skanga.model.LLMProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Picks the token counter for the configured model. "auto" uses the model's own BPE
+ * vocabulary when it is an OpenAI model jtokkit knows (also behind a "vendor/" prefix, as
+ * OpenRouter names them), o200k_base for other OpenAI models, and the approximate counter
+ * for everything else. A jtokkit encoding name such as "cl100k_base" or "approximate"
+ * forces that counter.
+ */
+public final class TokenCounters {
+    private static final Logger logger = LoggerFactory.getLogger(TokenCounters.class);
+
+    public static final String AUTO = "auto";
+
+    private TokenCounters() { /* prevent instantiation */ }
+
+    public static TokenCounter approximate() {
+        return ApproximateTokenCounter.INSTANCE;
+    }
+
+    public static TokenCounter forModel(String tokenizer, String llmProvider, String modelName) {
+        String choice = tokenizer == null || tokenizer.isBlank() ? AUTO : tokenizer.trim().toLowerCase(Locale.ROOT);
+        if (choice.equals(approximate().name())) {
+            return approximate();
+        }
+        if (!choice.equals(AUTO)) {
+            Optional<EncodingType> type = EncodingType.fromName(choice);
+            if (type.isPresent()) {
+                return new BpeTokenCounter(type.get());
+            }
+            logger.warn("Unknown tokenizer: {}, choosing one for the model", tokenizer);
+        }
+        if (modelName != null && !modelName.isBlank()) {
+            String model = modelName.trim().toLowerCase(Locale.ROOT);
+            Optional<TokenCounter> known = BpeTokenCounter.forModel(model.substring(model.lastIndexOf('/') + 1));
+            if (known.isPresent()) {
+                return known.get();
+            }
+        }
+        if (LLMProvider.OPENAI.getValue().equalsIgnoreCase(llmProvider)) {
+            return new BpeTokenCounter(EncodingType.O200K_BASE);
+        }
+        return approximate();
+    }
+}
@@ -0,0 +1,76 @@
+package com.skanga.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counting semaphore for asynchronous pipelines.
+ * acquire() returns a future that completes once a permit is free; waiters are served in FIFO
+ * order. Every completed acquire must be matched by exactly one release().
+ */
+public class AsyncPermits {
+    private final int permits;
+    private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int available;
+
+    public AsyncPermits(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be at least 1");
+        }
+        this.permits = permits;
+        this.available = permits;
+    }
+
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    public void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            // Skip waiters that were cancelled while queued
+            do {
+                next = waiters.poll();
+            } while (next != null && next.isDone());
+            if (next == null) {
+                available = Math.min(permits, available + 1);
+                return;
+            }
+        }
+        // Complete outside the lock; the permit passes straight to the waiter
+        if (!next.complete(null)) {
+            release();
+        }
+    }
+
+    /**
+     * Give up on an acquire: a queued one is withdrawn, and a permit it was already granted is
+     * released. The caller must not release that permit itself afterwards.
+     */
+    public void abandon(CompletableFuture<Void> acquired) {
+        if (acquired.cancel(false)) {
+            synchronized (this) {
+                waiters.remove(acquired);
+            }
+        } else {
+            release();
+        }
+    }
+
+    public synchronized int getAvailable() {
+        return available;
+    }
+
+    public synchronized int getQueueLength() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,154 @@
+package com.skanga.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Directory of JSON files, one per entry, used by the on-disk cache tiers.
+ * Writes go to a temporary file that is then moved into place, so a crash never leaves a
+ * half-written entry behind. I/O failures are logged and treated as cache misses.
+ */
+public class DiskStore {
+    private static final Logger logger = LoggerFactory.getLogger(DiskStore.class);
+    private static final String SUFFIX = ".json";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    public DiskStore(Path directory) {
+        this.directory = directory;
+        this.objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create cache directory " + directory, e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public <T> Optional<T> read(String name, Class<T> type) {
+        Path file = directory.resolve(name + SUFFIX);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), type));
+        } catch (IOException e) {
+            logger.warn("Discarding unreadable cache entry {}: {}", file, e.getMessage());
+            delete(name);
+            return Optional.empty();
+        }
+    }
+
+    // Returns the number of bytes written, or 0 if the entry could not be written
+    public long write(String name, Object value) {
+        Path file = directory.resolve(name + SUFFIX);
+        Path temp = null;
+        boolean moved = false;
+        try {
+            temp = Files.createTempFile(directory, name, ".tmp");
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            Files.write(temp, json);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+            return json.length;
+        } catch (IOException e) {
+            logger.warn("Failed to write cache entry {}: {}", file, e.getMessage());
+            return 0;
+        } finally {
+            if (temp != null && !moved) {
+                deleteTemp(temp);
+            }
+        }
+    }
+
+    // A failed write must not leave its temp file behind, since list() and the size bound never see it
+    private static void deleteTemp(Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            logger.warn("Failed to delete temp file {}: {}", temp, e.getMessage());
+        }
+    }
+
+    // Size in bytes of a stored entry, 0 if it does not exist
+    public long size(String name) {
+        try {
+            return Files.size(directory.resolve(name + SUFFIX));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Last write time of a stored entry in epoch millis, 0 if it does not exist
+    public long lastModified(String name) {
+        try {
+            return Files.getLastModifiedTime(directory.resolve(name + SUFFIX)).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public void delete(String name) {
+        try {
+            Files.deleteIfExists(directory.resolve(name + SUFFIX));
+        } catch (IOException e) {
+            logger.warn("Failed to delete cache entry {}: {}", name, e.getMessage());
+        }
+    }
+
+    // Names of all stored entries, without the file suffix
+    public List<String> list() {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                names.add(fileName.substring(0, fileName.length() - SUFFIX.length()));
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to list cache directory {}: {}", directory, e.getMessage());
+        }
+        return names;
+    }
+
+    /**
+     * Hex SHA-256 of the given parts, separated so that ("ab", "c") and ("a", "bc") differ.
+     * Used as a file-safe name for cache keys.
+     */
+    public static String sha256(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.skanga.util;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming HTML to Markdown extraction.
+ * Uses jsoup's StreamParser, which hands over each element as soon as its end tag is read.
+ * Each top-level block (a paragraph, heading, list, table, code block or quote) is converted with a
+ * single walk over its nodes, written into one pre-sized buffer and then removed from the tree, so
+ * memory stays proportional to the largest block rather than the whole page. Headings, lists,
+ * tables, code, emphasis and links are kept as Markdown. Writing stops, and the reader is closed,
+ * as soon as maxChars of output have been produced.
+ *
+ * <p>In main-content mode each block is classified as it closes, in the spirit of boilerpipe
+ * and Readability: blocks inside navigation, headers, footers, sidebars, forms or elements whose
+ * class/id looks like boilerplate (menu, cookie banner, share bar...) are dropped, and so are
+ * blocks whose text is mostly link text. Outside main and article elements, blocks other than
+ * headings and code must also reach boilerpipe's text density of MIN_TEXT_DENSITY words per
+ * 80-character line, which drops short unmarked snippets such as share prompts, bylines and
+ * teasers. Unlike Readability, whole subtrees are not scored. Only the remaining article text
+ * counts against maxChars, so the budget is spent on content instead of menus.
+ */
+public final class HtmlTextExtractor {
+    private static final Set<String> SKIPPED_TAGS = Set.of("head", "script", "style", "noscript", "template", "svg");
+    private static final Set<String> BOILERPLATE_TAGS = Set.of("nav", "footer", "aside", "form", "menu", "dialog", "button", "select");
+    private static final Set<String> BOILERPLATE_ROLES = Set.of("navigation", "banner", "contentinfo", "complementary",
+            "dialog", "alertdialog", "search", "menu", "menubar");
+    private static final Set<String> HEADINGS = Set.of("h1", "h2", "h3", "h4", "h5", "h6");
+    private static final Set<String> CONTENT_ROOTS = Set.of("body", "html", "main", "article");
+    // Blocks converted as a whole once they close, since their Markdown depends on their inner structure
+    private static final Set<String> CONTAINERS = Set.of("ul", "ol", "dl", "table", "pre", "blockquote");
+    // jsoup reports these as block tags, but in running text they belong to the surrounding paragraph
+    private static final Set<String> INLINE_TAGS = Set.of("br", "ins", "del");
+    // Class/id hints, adapted from Readability's unlikelyCandidates and okMaybeItsACandidate
+    private static final Pattern UNLIKELY = Pattern.compile(
+            "-ad-|advert|banner|breadcrumb|comment|community|consent|cookie|disqus|footer|gdpr|header|menu|"
+                    + "(?:^|[\\s_-])nav|newsletter|pager|pagination|popup|promo|related|remark|replies|share|shoutbox|sidebar|"
+                    + "skip-link|social|sponsor|subscribe|toolbar");
+    private static final Pattern MAYBE_CONTENT = Pattern.compile("article|body|column|content|main|post|story");
+    private static final double MAX_LINK_DENSITY = 0.5;
+    // Text density as in boilerpipe: words per line of wrapped text; a one-line block needs this many words
+    private static final int WRAP_WIDTH = 80;
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}][^\\s]*");
+    private static final double MIN_TEXT_DENSITY = 7;
+    // Upper bound on the initial buffer so an unlimited budget does not allocate up front
+    private static final int MAX_INITIAL_CAPACITY = 16 * 1024;
+
+    private HtmlTextExtractor() {
+    }
+
+    /**
+     * Convert the whole page to Markdown, at most maxChars long.
+     * Read failures surface as UncheckedIOException.
+     */
+    public static String extract(Reader reader, String baseUri, int maxChars) {
+        return extract(reader, baseUri, maxChars, false);
+    }
+
+    /**
+     * Like extract, but keeps only the blocks classified as main content when mainContentOnly is set.
+     */
+    public static String extract(Reader reader, String baseUri, int maxChars, boolean mainContentOnly) {
+        MarkdownWriter out = new MarkdownWriter(maxChars);
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(reader, baseUri)) {
+            Iterator<Element> elements = parser.iterator();
+            while (!out.isFull() && elements.hasNext()) {
+                Element element = elements.next();
+                Placement placement = placement(element);
+                if (placement == Placement.SKIPPED) {
+                    element.remove();
+                } else if (placement == Placement.TOP_LEVEL && isBlock(element)) {
+                    writeLeadingText(element, out, mainContentOnly);
+                    if (!mainContentOnly || isContent(element)) {
+                        out.blankLine();
+                        writeNode(element, out);
+                        out.blankLine();
+                    }
+                    element.remove();
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the text that enclosing blocks hold before block, outermost first, and removes it, so
+     * that text keeps its place ahead of block instead of coming out when its own block closes.
+     */
+    private static void writeLeadingText(Element block, MarkdownWriter out, boolean mainContentOnly) {
+        List<Element> path = new ArrayList<>();
+        for (Element current = block; current.parent() != null; current = current.parent()) {
+            path.add(0, current);
+        }
+        for (Element child : path) {
+            Element parent = child.parent();
+            List<Node> leading = parent.childNodes().subList(0, child.siblingIndex());
+            if (!hasText(leading)) {
+                continue;
+            }
+            // Wrapped in place, so the content check still sees the enclosing blocks
+            Element run = new Element("p");
+            child.before(run);
+            run.appendChildren(new ArrayList<>(leading));
+            if (!mainContentOnly || isContent(run)) {
+                out.blankLine();
+                writeNode(run, out);
+                out.blankLine();
+            }
+            run.remove();
+        }
+    }
+
+    private static boolean hasText(List<Node> nodes) {
+        for (Node node : nodes) {
+            if (node instanceof TextNode text && !text.isBlank()
+                    || node instanceof Element element && element.hasText()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBlock(Element element) {
+        return element.isBlock() && !INLINE_TAGS.contains(element.normalName());
+    }
+
+    private enum Placement { SKIPPED, IN_CONTAINER, TOP_LEVEL }
+
+    // One walk up the open element stack: inside a skipped tag, inside a container, or neither
+    private static Placement placement(Element element) {
+        if (SKIPPED_TAGS.contains(element.normalName())) {
+            return Placement.SKIPPED;
+        }
+        Placement placement = Placement.TOP_LEVEL;
+        for (Element parent = element.parent(); parent != null; parent = parent.parent()) {
+            String tag = parent.normalName();
+            if (SKIPPED_TAGS.contains(tag)) {
+                return Placement.SKIPPED;
+            }
+            if (CONTAINERS.contains(tag)) {
+                placement = Placement.IN_CONTAINER;
+            }
+        }
+        return placement;
+    }
+
+    // Nested blocks outside containers have already been removed, so this judges the block's own text
+    private static boolean isContent(Element block) {
+        String blockText = block.text();
+        if (blockText.isEmpty() || isBoilerplate(block)) {
+            return false;
+        }
+        if (HEADINGS.contains(block.normalName())) {
+            return true;
+        }
+        int linkChars = 0;
+        for (Element link : block.getElementsByTag("a")) {
+            linkChars += link.text().length();
+        }
+        if ((double) linkChars / blockText.length() > MAX_LINK_DENSITY) {
+            return false;
+        }
+        // Marked-up article text is trusted as it is; elsewhere short snippets are boilerplate
+        return block.normalName().equals("pre") || isInContentRoot(block)
+                || textDensity(blockText) >= MIN_TEXT_DENSITY;
+    }
+
+    // Words per full line once the text is wrapped at WRAP_WIDTH characters
+    private static double textDensity(String text) {
+        int words = 0;
+        Matcher word = WORD.matcher(text);
+        while (word.find()) {
+            words++;
+        }
+        int lines = Math.max(1, text.length() / WRAP_WIDTH);
+        return (double) words / lines;
+    }
+
+    // Includes text left directly in body, which a page without markup keeps all its text in
+    private static boolean isInContentRoot(Element block) {
+        return CONTENT_ROOTS.contains(block.normalName()) || hasContentRootAncestor(block);
+    }
+
+    private static boolean isBoilerplate(Element block) {
+        for (Element current = block; current != null; current = current.parent()) {
+            String tag = current.normalName();
+            if (BOILERPLATE_TAGS.contains(tag)
+                    || BOILERPLATE_ROLES.contains(current.attr("role").toLowerCase(Locale.ROOT))
+                    || current.hasAttr("hidden")
+                    || "true".equals(current.attr("aria-hidden"))) {
+                return true;
+            }
+            // A page-level header is masthead and navigation; an article's own header holds its title
+            if (tag.equals("header") && !hasContentRootAncestor(current)) {
+                return true;
+            }
+            if (!CONTENT_ROOTS.contains(tag) && hasUnlikelyHint(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasContentRootAncestor(Element element) {
+        for (Element parent = element.parent(); parent != null; parent = parent.parent()) {
+            if (parent.normalName().equals("main") || parent.normalName().equals("article")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasUnlikelyHint(Element element) {
+        String hints = (element.className() + " " + element.id()).toLowerCase(Locale.ROOT);
+        if (hints.isBlank()) {
+            return false;
+        }
+        return UNLIKELY.matcher(hints).find() && !MAYBE_CONTENT.matcher(hints).find();
+    }
+
+    private static void writeNode(Node node, MarkdownWriter out) {
+        if (out.isFull()) {
+            return;
+        }
+        if (node instanceof TextNode text) {
+            out.text(text.getWholeText());
+        } else if (node instanceof Element element) {
+            writeElement(element, out);
+        }
+    }
+
+    private static void writeChildren(Element element, MarkdownWriter out) {
+        for (Node child : element.childNodes()) {
+            writeNode(child, out);
+        }
+    }
+
+    private static void writeElement(Element element, MarkdownWriter out) {
+        String tag = element.normalName();
+        switch (tag) {
+            case "script", "style", "noscript", "template", "svg", "img", "head" -> {
+            }
+            case "h1", "h2", "h3", "h4", "h5", "h6" -> {
+                out.blockBreak();
+                out.markup("######", tag.charAt(1) - '0');
+                out.markup(" ");
+                writeChildren(element, out);
+                out.blockBreak();
+            }
+            case "ul", "ol" -> writeList(element, tag.equals("ol"), out);
+            case "table" -> writeTable(element, out);
+            case "pre" -> {
+                out.blockBreak();
+                out.markup("```");
+                out.newLine();
+                out.literal(element.wholeText().stripTrailing());
+                out.newLine();
+                out.markup("```");
+                out.blockBreak();
+            }
+            case "blockquote" -> {
+                out.blockBreak();
+                out.pushQuote();
+                writeChildren(element, out);
+                out.popQuote();
+                out.blockBreak();
+            }
+            case "br" -> out.newLine();
+            case "hr" -> {
+                out.blockBreak();
+                out.markup("---");
+                out.blockBreak();
+            }
+            case "strong", "b" -> writeEmphasis(element, "**", out);
+            case "em", "i" -> writeEmphasis(element, "*", out);
+            case "code" -> writeEmphasis(element, "`", out);
+            case "a" -> writeLink(element, out);
+            default -> {
+                if (isBlock(element)) {
+                    out.blockBreak();
+                    writeChildren(element, out);
+                    out.blockBreak();
+                } else {
+                    writeChildren(element, out);
+                }
+            }
+        }
+    }
+
+    private static void writeList(Element list, boolean ordered, MarkdownWriter out) {
+        out.blockBreak();
+        int number = ordered ? parseStart(list.attr("start")) : 1;
+        for (Element item : list.children()) {
+            if (!item.normalName().equals("li")) {
+                writeElement(item, out);
+                continue;
+            }
+            String marker = ordered ? (number++) + ". " : "- ";
+            out.newLine();
+            out.markup(marker);
+            out.pushIndent(marker.length());
+            writeChildren(item, out);
+            out.popIndent(marker.length());
+        }
+        out.blockBreak();
+    }
+
+    private static int parseStart(String start) {
+        try {
+            return start.isBlank() ? 1 : Integer.parseInt(start.trim());
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private static void writeTable(Element table, MarkdownWriter out) {
+        out.blockBreak();
+        boolean header = true;
+        for (Element row : table.getElementsByTag("tr")) {
+            if (row.closest("table") != table) {
+                continue;
+            }
+            int cells = 0;
+            out.newLine();
+            out.markup("|");
+            out.enterCell();
+            for (Element cell : row.children()) {
+                if (cell.normalName().equals("td") || cell.normalName().equals("th")) {
+                    out.markup(" ");
+                    writeChildren(cell, out);
+                    out.closeMarkup(" |");
+                    cells++;
+                }
+            }
+            out.exitCell();
+            if (header) {
+                out.newLine();
+                out.markup("|");
+                for (int i = 0; i < Math.max(1, cells); i++) {
+                    out.closeMarkup(" --- |");
+                }
+                header = false;
+            }
+        }
+        out.blockBreak();
+    }
+
+    private static void writeEmphasis(Element element, String marker, MarkdownWriter out) {
+        if (!element.hasText()) {
+            return;
+        }
+        out.markup(marker);
+        writeChildren(element, out);
+        out.closeMarkup(marker);
+    }
+
+    // Links keep their target only when it resolves to another web page
+    private static void writeLink(Element link, MarkdownWriter out) {
+        String href = link.absUrl("href");
+        if (!link.hasText() || link.attr("href").startsWith("#")
+                || !(href.startsWith("http://") || href.startsWith("https://"))) {
+            writeChildren(link, out);
+            return;
+        }
+        out.markup("[");
+        writeChildren(link, out);
+        out.closeMarkup("](");
+        out.closeMarkup(href);
+        out.closeMarkup(")");
+    }
+
+    /**
+     * Append-only Markdown buffer with a hard length cap.
+     * Whitespace in text is collapsed while it is copied, so no second pass over the output is needed.
+     * Line breaks are only written when the next visible character arrives (so blocks never leave
+     * trailing blank lines), and every new line starts with the current prefix of quote markers and
+     * list indentation. Inside table cells line breaks become spaces and pipes are escaped.
+     */
+    private static final class MarkdownWriter {
+        private final StringBuilder out;
+        private final int limit;
+        private final StringBuilder prefix = new StringBuilder();
+        private boolean atLineStart = true;
+        private boolean pendingSpace;
+        private int pendingNewLines;
+        // Line breaks written since the last visible character
+        private int trailingNewLines;
+        private int listDepth;
+        private int cellDepth;
+
+        MarkdownWriter(int limit) {
+            this.limit = limit;
+            this.out = new StringBuilder(Math.min(limit, MAX_INITIAL_CAPACITY));
+        }
+
+        boolean isFull() {
+            return out.length() >= limit;
+        }
+
+        void text(String text) {
+            for (int i = 0; i < text.length() && out.length() < limit; i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c) || c == '\u00a0') {
+                    pendingSpace = true;
+                } else {
+                    if (pendingSpace || atLineStart || pendingNewLines > 0) {
+                        startContent();
+                    }
+                    if (c == '|' && cellDepth > 0) {
+                        out.append('\\');
+                    }
+                    out.append(c);
+                }
+            }
+        }
+
+        // Verbatim text such as code; line breaks are kept and continue the current prefix
+        void literal(String text) {
+            startContent();
+            for (int i = 0; i < text.length() && out.length() < limit; i++) {
+                char c = text.charAt(i);
+                if (c == '\n') {
+                    out.append('\n').append(prefix);
+                } else if (c != '\r') {
+                    out.append(c);
+                }
+            }
+        }
+
+        // Opening syntax: takes any pending separator first
+        void markup(String markup) {
+            markup(markup, markup.length());
+        }
+
+        void markup(String markup, int length) {
+            startContent();
+            append(markup, length);
+        }
+
+        // Closing syntax: attaches to the preceding text, before any pending space
+        void closeMarkup(String markup) {
+            if (atLineStart || pendingNewLines > 0) {
+                startContent();
+            }
+            append(markup, markup.length());
+        }
+
+        void newLine() {
+            if (cellDepth > 0) {
+                pendingSpace = true;
+            } else {
+                pendingNewLines = Math.max(pendingNewLines, 1);
+            }
+        }
+
+        void blankLine() {
+            pendingNewLines = 2;
+        }
+
+        // Separator between blocks: blank line at top level, line break inside list items, space in cells
+        void blockBreak() {
+            if (cellDepth > 0) {
+                pendingSpace = true;
+            } else if (listDepth > 0) {
+                newLine();
+            } else {
+                blankLine();
+            }
+        }
+
+        // The separator before a quote is written without its marker
+        void pushQuote() {
+            flushNewLines();
+            prefix.append("> ");
+        }
+
+        void popQuote() {
+            prefix.setLength(prefix.length() - 2);
+        }
+
+        // Continuation indent for the lines of a list item
+        void pushIndent(int indent) {
+            prefix.repeat(' ', indent);
+            listDepth++;
+        }
+
+        void popIndent(int indent) {
+            prefix.setLength(prefix.length() - indent);
+            listDepth--;
+        }
+
+        void enterCell() {
+            cellDepth++;
+        }
+
+        void exitCell() {
+            cellDepth--;
+        }
+
+        @Override
+        public String toString() {
+            return out.length() > limit ? out.substring(0, limit) : out.toString();
+        }
+
+        private void startContent() {
+            flushNewLines();
+            if (atLineStart) {
+                append(prefix, prefix.length());
+                atLineStart = false;
+            } else if (pendingSpace && out.charAt(out.length() - 1) != ' ') {
+                append(" ", 1);
+            }
+            pendingSpace = false;
+            trailingNewLines = 0;
+        }
+
+        // Emits the pending line breaks not already written; blank lines inside a quote keep its marker
+        private void flushNewLines() {
+            if (out.isEmpty()) {
+                pendingNewLines = 0;
+                return;
+            }
+            while (trailingNewLines < pendingNewLines) {
+                if (trailingNewLines > 0) {
+                    int end = prefix.length();
+                    while (end > 0 && prefix.charAt(end - 1) == ' ') {
+                        end--;
+                    }
+                    append(prefix, end);
+                }
+                append("\n", 1);
+                trailingNewLines++;
+                atLineStart = true;
+                pendingSpace = false;
+            }
+            pendingNewLines = 0;
+        }
+
+        private void append(CharSequence text, int length) {
+            if (out.length() < limit) {
+                out.append(text, 0, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.skanga.util;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DiskStore bounded by the total bytes of its entries, evicting the least recently used ones.
+ * An in-memory index of entry sizes is rebuilt from the directory on startup, oldest write first,
+ * so entries stored just before a restart are the last to go.
+ */
+public class LruDiskStore {
+    private final DiskStore diskStore;
+    private final long maxBytes;
+    private final LongAdder evictions = new LongAdder();
+
+    // Entry name -> bytes on disk, access ordered for LRU eviction; guarded by "this"
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public LruDiskStore(Path directory, long maxBytes) {
+        this.diskStore = new DiskStore(directory);
+        this.maxBytes = maxBytes;
+        loadIndex();
+    }
+
+    // Entries missing from the index are not read, and a read counts as a use
+    public <T> Optional<T> read(String name, Class<T> type) {
+        synchronized (this) {
+            // get rather than containsKey so the lookup counts as a use for LRU ordering
+            if (index.get(name) == null) {
+                return Optional.empty();
+            }
+        }
+        Optional<T> value = diskStore.read(name, type);
+        if (value.isEmpty()) {
+            // DiskStore already discarded the unreadable file
+            forget(name);
+        }
+        return value;
+    }
+
+    // Returns the number of bytes written, or 0 if the entry was not stored
+    public long write(String name, Object value) {
+        long size = diskStore.write(name, value);
+        if (size == 0) {
+            return 0;
+        }
+        if (size > maxBytes) {
+            delete(name);
+            return 0;
+        }
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Long previous = index.put(name, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> oldest = index.entrySet().iterator();
+            while (totalBytes > maxBytes && oldest.hasNext()) {
+                Map.Entry<String, Long> eldest = oldest.next();
+                totalBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                oldest.remove();
+            }
+        }
+        evictions.add(evicted.size());
+        evicted.forEach(diskStore::delete);
+        return size;
+    }
+
+    public void delete(String name) {
+        forget(name);
+        diskStore.delete(name);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long bytes() {
+        return totalBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private synchronized void forget(String name) {
+        Long size = index.remove(name);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private void loadIndex() {
+        List<String> names = new ArrayList<>(diskStore.list());
+        Map<String, Long> writtenAt = new LinkedHashMap<>();
+        names.forEach(name -> writtenAt.put(name, diskStore.lastModified(name)));
+        names.sort(Comparator.comparingLong(writtenAt::get));
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            for (String name : names) {
+                long size = diskStore.size(name);
+                index.put(name, size);
+                totalBytes += size;
+            }
+            Iterator<Map.Entry<String, Long>> oldest = index.entrySet().iterator();
+            while (totalBytes > maxBytes && oldest.hasNext()) {
+                Map.Entry<String, Long> eldest = oldest.next();
+                totalBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                oldest.remove();
+            }
+        }
+        evicted.forEach(diskStore::delete);
+    }
+}
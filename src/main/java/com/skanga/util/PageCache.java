@@ -0,0 +1,202 @@
+package com.skanga.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.skanga.config.ResearchConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpHeaders;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP cache for the text extracted from fetched pages, kept on disk so it survives restarts.
+ * Each entry stores the ETag and Last-Modified validators and an expiry time derived from
+ * Cache-Control max-age, Expires or, failing both, the usual heuristic of 10% of the page's age.
+ * Fresh entries are served without touching the network; stale ones are revalidated with a
+ * conditional GET. The store is bounded by total bytes on disk, evicting least recently used pages.
+ */
+@Component
+public class PageCache {
+    private static final Logger logger = LoggerFactory.getLogger(PageCache.class);
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|[,\\s])max-age\\s*=\\s*\"?(\\d+)");
+    private static final Duration MAX_HEURISTIC_FRESHNESS = Duration.ofDays(1);
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final LruDiskStore disk;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public PageCache(ResearchConfiguration config) {
+        this(config.getPageCache().isEnabled(),
+                config.getPageCache().getDirectory() == null || config.getPageCache().getDirectory().isBlank()
+                        ? null : Path.of(config.getPageCache().getDirectory()),
+                config.getPageCache().getMaxSize().toBytes());
+    }
+
+    // A null directory disables the cache
+    public PageCache(boolean enabled, Path directory, long maxBytes) {
+        this.enabled = enabled && directory != null && maxBytes > 0;
+        this.maxBytes = maxBytes;
+        this.disk = this.enabled ? new LruDiskStore(directory, maxBytes) : null;
+        logger.info("=== PageCache: enabled={}, directory={}, maxBytes={}, loaded={} ({} bytes) ===",
+                this.enabled, directory, maxBytes,
+                disk == null ? 0 : disk.size(), disk == null ? 0 : disk.bytes());
+    }
+
+    public static PageCache disabled() {
+        return new PageCache(false, null, 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Look up a page extracted with the given text budget and extraction mode. Entries extracted
+     * with a different budget or mode are ignored, so a config change never serves truncated text
+     * or a full page where only the main content was asked for (or the other way round).
+     */
+    public Optional<CachedPage> get(String url, int maxChars, boolean mainContentOnly) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<CachedPage> page = disk.read(DiskStore.sha256(url), CachedPage.class)
+                .filter(cached -> cached.url().equals(url) && cached.maxChars() == maxChars
+                        && cached.mainContentOnly() == mainContentOnly);
+        if (page.isEmpty()) {
+            misses.increment();
+        } else if (page.get().isFresh()) {
+            hits.increment();
+        }
+        return page;
+    }
+
+    // Store a freshly downloaded page unless the response forbids it or it could never be reused
+    public void put(String url, int maxChars, boolean mainContentOnly, String text, HttpHeaders headers) {
+        if (!enabled) {
+            return;
+        }
+        String cacheControl = cacheControl(headers);
+        if (cacheControl.contains("no-store")) {
+            disk.delete(DiskStore.sha256(url));
+            return;
+        }
+        String etag = headers.firstValue("ETag").orElse(null);
+        String lastModified = headers.firstValue("Last-Modified").orElse(null);
+        long now = System.currentTimeMillis();
+        long expiresAt = expiresAt(headers, cacheControl, now);
+        if (expiresAt <= now && etag == null && lastModified == null) {
+            return;
+        }
+        store(new CachedPage(url, maxChars, mainContentOnly, text, etag, lastModified, now, expiresAt));
+    }
+
+    /**
+     * Record a 304 Not Modified answer for a stale entry: the new response headers refresh its
+     * expiry (and validators, if sent) and the stored text is returned unchanged.
+     */
+    public CachedPage revalidated(CachedPage page, HttpHeaders headers) {
+        revalidated.increment();
+        long now = System.currentTimeMillis();
+        CachedPage refreshed = new CachedPage(page.url(), page.maxChars(), page.mainContentOnly(), page.text(),
+                headers.firstValue("ETag").orElse(page.etag()),
+                headers.firstValue("Last-Modified").orElse(page.lastModified()),
+                now, expiresAt(headers, cacheControl(headers), now));
+        if (enabled) {
+            store(refreshed);
+        }
+        return refreshed;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", disk == null ? 0 : disk.size());
+        stats.put("bytes", disk == null ? 0L : disk.bytes());
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.sum());
+        stats.put("revalidated", revalidated.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", disk == null ? 0L : disk.evictions());
+        return stats;
+    }
+
+    private void store(CachedPage page) {
+        disk.write(DiskStore.sha256(page.url()), page);
+    }
+
+    private static String cacheControl(HttpHeaders headers) {
+        return String.join(",", headers.allValues("Cache-Control")).toLowerCase(Locale.ROOT);
+    }
+
+    // Expiry in epoch millis; no-cache means every use must be revalidated
+    private static long expiresAt(HttpHeaders headers, String cacheControl, long now) {
+        if (cacheControl.contains("no-cache")) {
+            return now;
+        }
+        Matcher maxAge = MAX_AGE.matcher(cacheControl);
+        if (maxAge.find()) {
+            try {
+                return now + Duration.ofSeconds(Long.parseLong(maxAge.group(1))).toMillis();
+            } catch (NumberFormatException | ArithmeticException e) {
+                return now + MAX_HEURISTIC_FRESHNESS.toMillis();
+            }
+        }
+        Optional<Long> date = httpDate(headers, "Date");
+        Optional<Long> expires = httpDate(headers, "Expires");
+        if (expires.isPresent()) {
+            return now + Math.max(0, expires.get() - date.orElse(now));
+        }
+        Optional<Long> lastModified = httpDate(headers, "Last-Modified");
+        if (lastModified.isPresent()) {
+            long age = Math.max(0, date.orElse(now) - lastModified.get());
+            return now + Math.min(age / 10, MAX_HEURISTIC_FRESHNESS.toMillis());
+        }
+        return now;
+    }
+
+    private static Optional<Long> httpDate(HttpHeaders headers, String name) {
+        return headers.firstValue(name).flatMap(value -> {
+            try {
+                return Optional.of(ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli());
+            } catch (DateTimeParseException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Stored page text with its validators. maxChars and mainContentOnly are the text budget and
+     * extraction mode it was extracted with, storedAt and expiresAt are epoch millis.
+     */
+    public record CachedPage(String url, int maxChars, boolean mainContentOnly, String text, String etag,
+                             String lastModified, long storedAt, long expiresAt) {
+
+        @JsonIgnore
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        @JsonIgnore
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+}
@@ -2,10 +2,17 @@ package com.skanga.util;
 
 import com.skanga.model.SearchResponse;
 import com.skanga.model.SearchResult;
+import com.skanga.token.TokenCounter;
+import com.skanga.token.TokenCounters;
 
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -18,8 +25,8 @@ import java.util.stream.Collectors;
 public final class SearchUtils {
     private SearchUtils() { /* prevent instantiation */ }
     
-    private static final int CHARS_PER_TOKEN = 4;
     private static final Pattern THINKING_TOKEN_PATTERN = Pattern.compile("<think>.*?</think>", Pattern.DOTALL);
+    private static final Pattern TRACKING_PARAMETER = Pattern.compile("(?i)(utm_[a-z]+|fbclid|gclid|msclkid)(=|$)");
     
     /**
      * Convert configuration values to string format, handling both string and enum types.
@@ -47,12 +54,25 @@ public final class SearchUtils {
     }
     
     /**
-     * Format and deduplicate search responses from various search APIs.
+     * Format and deduplicate search responses from various search APIs, estimating tokens
+     * with the approximate counter.
      */
     public static String deduplicateAndFormatSources(
             Object searchResponse, 
             int maxTokensPerSource, 
             boolean fetchFullPage) {
+        return deduplicateAndFormatSources(searchResponse, maxTokensPerSource, fetchFullPage, TokenCounters.approximate());
+    }
+
+    /**
+     * Format and deduplicate search responses from various search APIs, cutting full pages
+     * to maxTokensPerSource as counted by tokenCounter.
+     */
+    public static String deduplicateAndFormatSources(
+            Object searchResponse,
+            int maxTokensPerSource,
+            boolean fetchFullPage,
+            TokenCounter tokenCounter) {
         
         List<SearchResult> sourcesList = extractSearchResults(searchResponse);
         
@@ -75,11 +95,11 @@ public final class SearchUtils {
                          .append(source.getContent()).append("\n===\n");
             
             if (fetchFullPage && source.getRawContent() != null) {
-                int charLimit = maxTokensPerSource * CHARS_PER_TOKEN;
                 String rawContent = source.getRawContent();
+                String truncated = tokenCounter.truncate(rawContent, maxTokensPerSource);
                 
-                if (rawContent.length() > charLimit) {
-                    rawContent = rawContent.substring(0, charLimit) + "... [truncated]";
+                if (truncated.length() < rawContent.length()) {
+                    rawContent = truncated + "... [truncated]";
                 }
                 
                 formattedText.append("Full source content limited to ")
@@ -94,6 +114,104 @@ public final class SearchUtils {
         return formattedText.toString().trim();
     }
     
+    /**
+     * Merge result lists from several queries, keeping the first result seen for each page, pages
+     * being matched by canonicalUrl as in reciprocalRankFusion. Results without a URL (such as error placeholders) are never merged away.
+     */
+    public static List<SearchResult> mergeAndDeduplicate(List<List<SearchResult>> resultLists) {
+        Map<String, SearchResult> uniqueByUrl = new LinkedHashMap<>();
+        List<SearchResult> merged = new ArrayList<>();
+        for (List<SearchResult> results : resultLists) {
+            for (SearchResult result : results) {
+                String url = result.getUrl();
+                if (url == null || url.isBlank()) {
+                    merged.add(result);
+                } else if (uniqueByUrl.putIfAbsent(canonicalUrl(url), result) == null) {
+                    merged.add(result);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Reciprocal-rank fusion of ranked result lists, such as the answers of several search
+     * providers to one query. Each distinct page scores the sum of 1 / (rankConstant + rank) over
+     * the lists that contain it, pages being matched by canonicalUrl. The score is normalised so
+     * that a page ranked first by every list scores 1.0, and is written to a copy of the best
+     * ranked occurrence of the page. Results without a URL are dropped.
+     */
+    public static List<SearchResult> reciprocalRankFusion(List<List<SearchResult>> rankedLists, int rankConstant, int topK) {
+        Map<String, FusedResult> fused = new LinkedHashMap<>();
+        for (List<SearchResult> ranked : rankedLists) {
+            int rank = 0;
+            for (SearchResult result : ranked) {
+                if (result.getUrl() == null || result.getUrl().isBlank()) {
+                    continue;
+                }
+                rank++;
+                FusedResult page = fused.computeIfAbsent(canonicalUrl(result.getUrl()), url -> new FusedResult());
+                page.score += 1.0 / (rankConstant + rank);
+                if (page.best == null || rank < page.bestRank) {
+                    page.best = result;
+                    page.bestRank = rank;
+                }
+            }
+        }
+        double maxScore = rankedLists.size() / (rankConstant + 1.0);
+        return fused.values().stream()
+                .sorted(Comparator.comparingDouble((FusedResult page) -> -page.score)
+                        .thenComparingInt(page -> page.bestRank))
+                .limit(Math.max(0, topK))
+                .map(page -> new SearchResult(page.best.getTitle(), page.best.getContent(), page.best.getUrl(),
+                        page.best.getRawContent(), Math.min(1.0, page.score / maxScore)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Key that identifies a page regardless of how a search engine spelled its URL: scheme,
+     * "www.", default ports, fragments, trailing slashes and utm_* / click-id parameters are
+     * ignored and the host is lower-cased. Not meant to be fetched; unparseable URLs are returned trimmed.
+     */
+    public static String canonicalUrl(String url) {
+        String trimmed = url.trim();
+        URI uri;
+        try {
+            uri = new URI(trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (uri.getHost() == null) {
+            return trimmed;
+        }
+        StringBuilder canonical = new StringBuilder();
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        canonical.append(host.startsWith("www.") ? host.substring(4) : host);
+        if (uri.getPort() != -1 && uri.getPort() != 80 && uri.getPort() != 443) {
+            canonical.append(':').append(uri.getPort());
+        }
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        canonical.append(path);
+        if (uri.getRawQuery() != null) {
+            String query = Arrays.stream(uri.getRawQuery().split("&"))
+                    .filter(parameter -> !parameter.isEmpty() && !TRACKING_PARAMETER.matcher(parameter).lookingAt())
+                    .collect(Collectors.joining("&"));
+            if (!query.isEmpty()) {
+                canonical.append('?').append(query);
+            }
+        }
+        return canonical.toString();
+    }
+
+    private static final class FusedResult {
+        private SearchResult best;
+        private int bestRank;
+        private double score;
+    }
+
     /**
      * Extract search results from various response formats
      */
@@ -1,79 +1,520 @@
 package com.skanga.util;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skanga.config.ResearchConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 // HTTP utilities for web content fetching with JDK HttpClient
 @Component
 public class WebContentFetcher {
-    
+    private static final Logger logger = LoggerFactory.getLogger(WebContentFetcher.class);
+    private static final int MAX_TRACKED_HOSTS = 1024;
+    private static final int MAX_UNFETCHABLE_URLS = 10_000;
+    private static final int CHARSET_SNIFF_BYTES = 1024;
+    private static final int MAX_CHARS_PER_TOKEN = 6;
+    private static final Pattern CHARSET_PARAM = Pattern.compile("^charset=[\"']?([\\w.:-]+)");
+    private static final Pattern META_CHARSET = Pattern.compile("(?i)<meta[^>]*charset\\s*=\\s*[\"']?([\\w.:-]+)");
+
+    // Response bodies are read with blocking I/O, so they are read on virtual threads
+    private static final Executor BODY_READERS = Executors.newVirtualThreadPerTaskExecutor();
+
     private final HttpClient httpClient;
-    
-    public WebContentFetcher() {
+    private final Duration timeout;
+    private final long maxBytes;
+    private final int maxChars;
+    private final int maxPerHost;
+    private final long maxContentLength;
+    private final boolean mainContentOnly;
+    private final PageCache pageCache;
+    private final AsyncPermits globalPermits;
+    // URLs that can never yield text (binary content, oversized, gone), with the reason
+    private final Cache<String, String> unfetchable;
+    private final LongAdder skippedUnfetchable = new LongAdder();
+    private final LongAdder rejectedContentType = new LongAdder();
+    private final LongAdder rejectedSize = new LongAdder();
+    // Per-host limits; idle hosts age out so the map stays bounded
+    private final Cache<String, AsyncPermits> hostPermits = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_HOSTS)
+            .expireAfterAccess(Duration.ofMinutes(5))
+            .build();
+
+    /**
+     * Characters of text kept per page: enough for the largest share of the prompt budget the
+     * context packer is likely to give one page (the whole research.context.budgetTokens, or
+     * twice maxTokensPerSource), at the most characters per token prose usually reaches.
+     */
+    static int pageCharBudget(ResearchConfiguration config) {
+        int budgetTokens = config.getContext().getBudgetTokens();
+        int pageTokens = budgetTokens > 0 ? budgetTokens : 2 * config.getMaxTokensPerSource();
+        return pageTokens * MAX_CHARS_PER_TOKEN;
+    }
+
+    @Autowired
+    public WebContentFetcher(ResearchConfiguration config, PageCache pageCache) {
         this(HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
-                .build());
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build(), config.getFetch(), pageCharBudget(config), pageCache);
     }
 
     // Constructor for testing
     public WebContentFetcher(HttpClient httpClient) {
+        this(httpClient, new ResearchConfiguration.Fetch());
+    }
+
+    public WebContentFetcher(HttpClient httpClient, ResearchConfiguration.Fetch fetchConfig) {
+        this(httpClient, fetchConfig, pageCharBudget(new ResearchConfiguration()));
+    }
+
+    // maxChars is the text budget per page; see pageCharBudget
+    public WebContentFetcher(HttpClient httpClient, ResearchConfiguration.Fetch fetchConfig, int maxChars) {
+        this(httpClient, fetchConfig, maxChars, PageCache.disabled());
+    }
+
+    public WebContentFetcher(HttpClient httpClient, ResearchConfiguration.Fetch fetchConfig, int maxChars,
+                             PageCache pageCache) {
         this.httpClient = httpClient;
+        this.pageCache = pageCache;
+        this.timeout = fetchConfig.getTimeout();
+        this.maxBytes = fetchConfig.getMaxBytes().toBytes();
+        this.maxChars = maxChars;
+        this.maxContentLength = fetchConfig.getMaxContentLength().toBytes();
+        this.mainContentOnly = fetchConfig.isMainContentOnly();
+        this.unfetchable = Caffeine.newBuilder()
+                .maximumSize(MAX_UNFETCHABLE_URLS)
+                .expireAfterWrite(fetchConfig.getNegativeCacheTtl())
+                .build();
+        this.maxPerHost = Math.max(1, fetchConfig.getMaxPerHost());
+        this.globalPermits = new AsyncPermits(Math.max(1, fetchConfig.getMaxConcurrent()));
     }
     
     /**
-     * Fetch HTML content from a URL and convert it to Markdown format.
-     * Uses a 10-second timeout to avoid hanging on slow sites or large pages.
+     * Fetch a page and extract its text, streaming the body instead of buffering it.
+     * At most maxBytes are downloaded and extraction stops once the text budget is filled; the
+     * connection is closed at that point. The configured timeout (10 seconds by default) applies
+     * to the response headers and again to reading the body.
+     * Pages in the page cache are served from disk while fresh and revalidated with a conditional
+     * GET once stale. The response headers are screened before the body is read: anything that is
+     * not HTML or plain text, or declares a Content-Length above maxContentLength, is dropped and
+     * remembered so later fetches of the same URL are skipped without a request.
      */
     public Optional<String> fetchRawContent(String url) {
+        if (isKnownUnfetchable(url)) {
+            return Optional.empty();
+        }
+        Optional<PageCache.CachedPage> cached = pageCache.get(url, maxChars, mainContentOnly);
+        if (cached.isPresent() && cached.get().isFresh()) {
+            return Optional.of(cached.get().text());
+        }
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofSeconds(10))
-                    .header("User-Agent", "Mozilla/5.0 (compatible; ResearchBot/1.0)")
-                    .GET()
-                    .build();
-            
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                String html = response.body();
-                return Optional.of(htmlToMarkdown(html));
-            } else {
-                System.err.println("HTTP error " + response.statusCode() + " for URL: " + url);
-                return Optional.empty();
-            }
+            HttpResponse<InputStream> response = httpClient.send(buildRequest(url, cached.orElse(null)),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            return toContent(url, response, cached.orElse(null));
         } catch (Exception e) {
-            System.err.println("Warning: Failed to fetch full page content for " + url + ": " + e.getMessage());
+            logger.warn("Failed to fetch full page content for {}: {}", url, e.getMessage());
             return Optional.empty();
         }
     }
-    
+
+    /**
+     * Fetch several pages concurrently and return their content in the order of the given URLs.
+     * All fetches are issued at once with sendAsync, limited by the global and per-host caps,
+     * so the stage takes roughly as long as its slowest page rather than the sum of all of them.
+     * Pages that fail or time out come back empty.
+     */
+    public List<Optional<String>> fetchAll(List<String> urls) {
+        List<CompletableFuture<Optional<String>>> fetches = new ArrayList<>();
+        for (String url : urls) {
+            fetches.add(fetchRawContentAsync(url));
+        }
+        try {
+            CompletableFuture.allOf(fetches.toArray(new CompletableFuture[0])).get();
+        } catch (InterruptedException e) {
+            // The research job was cancelled; give up on the pages still in flight
+            fetches.forEach(fetch -> fetch.cancel(true));
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Not reached: every fetch maps its own failure to an empty result
+        }
+        List<Optional<String>> contents = new ArrayList<>();
+        for (CompletableFuture<Optional<String>> fetch : fetches) {
+            contents.add(fetch.isDone() && !fetch.isCompletedExceptionally() ? fetch.join() : Optional.empty());
+        }
+        return contents;
+    }
+
     /**
-     * Convert HTML to markdown using JSoup for parsing
+     * Asynchronous fetchRawContent. The request waits for a per-host permit, then a global one,
+     * and its timeout only starts once it is actually sent. The body is read on a virtual thread
+     * and the permits are held until it has been read. Fresh cached pages complete immediately
+     * without taking a permit. Cancelling the returned future stops the fetch and frees its permits.
      */
-    private String htmlToMarkdown(String html) {
+    public CompletableFuture<Optional<String>> fetchRawContentAsync(String url) {
+        if (isKnownUnfetchable(url)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        Optional<PageCache.CachedPage> cached = pageCache.get(url, maxChars, mainContentOnly);
+        if (cached.isPresent() && cached.get().isFresh()) {
+            return CompletableFuture.completedFuture(Optional.of(cached.get().text()));
+        }
+        HttpRequest request;
         try {
-            Document doc = Jsoup.parse(html);
-            
-            // Remove script and style elements
-            doc.select("script, style").remove();
-            
-            // Extract text content
-            String text = doc.body().text();
-            
-            // Basic markdown conversion (you might want to use a proper HTML to markdown library)
-            return text.replaceAll("\\s+", " ").trim();
+            request = buildRequest(url, cached.orElse(null));
         } catch (Exception e) {
-            System.err.println("Error converting HTML to markdown: " + e.getMessage());
-            return html; // Return original HTML if conversion fails
+            logger.warn("Invalid URL {}: {}", url, e.getMessage());
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        String host = request.uri().getHost() != null ? request.uri().getHost().toLowerCase(Locale.ROOT) : "";
+        return new PendingFetch(url, request, cached.orElse(null),
+                hostPermits.get(host, key -> new AsyncPermits(maxPerHost))).start();
+    }
+
+    /**
+     * One asynchronous fetch, from waiting for its permits to reading the body. Cancelling the
+     * future returned by start() stops it at whatever stage it has reached: a queued permit
+     * request is withdrawn, the request in flight is cancelled, a body being read is closed,
+     * and the permits already held are released at once for other fetches.
+     */
+    private final class PendingFetch {
+        private final String url;
+        private final HttpRequest request;
+        private final PageCache.CachedPage cached;
+        private final AsyncPermits hostLimit;
+        private final CompletableFuture<Optional<String>> result = new CompletableFuture<>();
+        // Guarded by "this"
+        private CompletableFuture<Void> hostAcquire;
+        private CompletableFuture<Void> globalAcquire;
+        private CompletableFuture<HttpResponse<InputStream>> sending;
+        private InputStream body;
+        private boolean holdsHost;
+        private boolean holdsGlobal;
+        private boolean finished;
+
+        PendingFetch(String url, HttpRequest request, PageCache.CachedPage cached, AsyncPermits hostLimit) {
+            this.url = url;
+            this.request = request;
+            this.cached = cached;
+            this.hostLimit = hostLimit;
+        }
+
+        CompletableFuture<Optional<String>> start() {
+            result.whenComplete((content, throwable) -> {
+                if (result.isCancelled()) {
+                    cancel();
+                }
+            });
+            CompletableFuture<Void> acquire = hostLimit.acquire();
+            synchronized (this) {
+                hostAcquire = acquire;
+            }
+            acquire.thenRun(this::onHostPermit);
+            return result;
+        }
+
+        private void onHostPermit() {
+            CompletableFuture<Void> acquire;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                holdsHost = true;
+                acquire = globalPermits.acquire();
+                globalAcquire = acquire;
+            }
+            acquire.thenRun(this::onGlobalPermit);
+        }
+
+        private void onGlobalPermit() {
+            CompletableFuture<HttpResponse<InputStream>> send;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                holdsGlobal = true;
+                send = sendAsync(request);
+                sending = send;
+            }
+            send.thenApplyAsync(this::read, BODY_READERS).whenComplete(this::finish);
+        }
+
+        private Optional<String> read(HttpResponse<InputStream> response) {
+            synchronized (this) {
+                if (finished) {
+                    closeQuietly(response.body());
+                    return Optional.empty();
+                }
+                body = response.body();
+            }
+            return toContent(url, response, cached);
+        }
+
+        private void finish(Optional<String> content, Throwable throwable) {
+            boolean cancelled;
+            synchronized (this) {
+                cancelled = finished;
+                finished = true;
+                releasePermits();
+            }
+            if (throwable != null && !cancelled) {
+                logger.warn("Failed to fetch full page content for {}: {}", url, throwable.getMessage());
+            }
+            result.complete(throwable == null ? content : Optional.empty());
+        }
+
+        private synchronized void cancel() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (!holdsHost && hostAcquire != null) {
+                hostLimit.abandon(hostAcquire);
+            }
+            if (holdsHost && !holdsGlobal && globalAcquire != null) {
+                globalPermits.abandon(globalAcquire);
+            }
+            if (sending != null) {
+                sending.cancel(true);
+            }
+            if (body != null) {
+                closeQuietly(body);
+            }
+            releasePermits();
+        }
+
+        // Idempotent; the caller holds the lock
+        private void releasePermits() {
+            if (holdsGlobal) {
+                holdsGlobal = false;
+                globalPermits.release();
+            }
+            if (holdsHost) {
+                holdsHost = false;
+                hostLimit.release();
+            }
+        }
+    }
+
+    // Never throws, so the permits taken for this request are always released
+    private CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request) {
+        try {
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // A stale cached page turns the request into a conditional GET
+    private HttpRequest buildRequest(String url, PageCache.CachedPage cached) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(timeout)
+                .header("User-Agent", "Mozilla/5.0 (compatible; ResearchBot/1.0)")
+                .GET();
+        if (cached != null && cached.etag() != null) {
+            builder.header("If-None-Match", cached.etag());
+        }
+        if (cached != null && cached.lastModified() != null) {
+            builder.header("If-Modified-Since", cached.lastModified());
+        }
+        return builder.build();
+    }
+
+    private Optional<String> toContent(String url, HttpResponse<InputStream> response, PageCache.CachedPage cached) {
+        try (InputStream body = new LimitedInputStream(response.body(), maxBytes)) {
+            if (response.statusCode() == 304 && cached != null) {
+                return Optional.of(pageCache.revalidated(cached, response.headers()).text());
+            }
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                logger.warn("HTTP error {} for URL: {}", response.statusCode(), url);
+                if (response.statusCode() == 404 || response.statusCode() == 410) {
+                    unfetchable.put(url, "HTTP " + response.statusCode());
+                }
+                return Optional.empty();
+            }
+            String mediaType = mediaType(response);
+            boolean html = mediaType.isEmpty() || mediaType.equals("text/html") || mediaType.equals("application/xhtml+xml");
+            if (!html && !mediaType.startsWith("text/")) {
+                rejectedContentType.increment();
+                return markUnfetchable(url, "unsupported content type " + mediaType);
+            }
+            long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (contentLength > maxContentLength) {
+                rejectedSize.increment();
+                return markUnfetchable(url, "Content-Length " + contentLength + " exceeds " + maxContentLength);
+            }
+            // Abort a body that trickles in slower than the timeout; closing an already closed stream is harmless
+            CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> closeQuietly(body));
+            BufferedInputStream in = new BufferedInputStream(body);
+            Charset charset = detectCharset(response, in);
+            Reader reader = new InputStreamReader(in, charset);
+            String text = html ? HtmlTextExtractor.extract(reader, url, maxChars, mainContentOnly) : readPlainText(reader);
+            pageCache.put(url, maxChars, mainContentOnly, text, response.headers());
+            return Optional.of(text);
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to read page content for {}: {}", url, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // Charset from the Content-Type header, else from a <meta> tag near the start of the page, else UTF-8
+    private static Charset detectCharset(HttpResponse<?> response, BufferedInputStream in) throws IOException {
+        Optional<Charset> fromHeader = response.headers().firstValue("Content-Type")
+                .flatMap(contentType -> charsetFrom(contentType.replaceFirst("(?i)^.*charset=", "charset=")));
+        if (fromHeader.isPresent()) {
+            return fromHeader.get();
+        }
+        in.mark(CHARSET_SNIFF_BYTES);
+        byte[] head = in.readNBytes(CHARSET_SNIFF_BYTES);
+        in.reset();
+        return charsetFrom(new String(head, StandardCharsets.ISO_8859_1)).orElse(StandardCharsets.UTF_8);
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return pageCache.getStats();
+    }
+
+    // Header screening metrics: rejected responses and fetches skipped via the negative cache
+    public Map<String, Object> getScreeningStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rejectedContentType", rejectedContentType.sum());
+        stats.put("rejectedSize", rejectedSize.sum());
+        stats.put("unfetchableUrls", unfetchable.estimatedSize());
+        stats.put("skippedUnfetchable", skippedUnfetchable.sum());
+        return stats;
+    }
+
+    private boolean isKnownUnfetchable(String url) {
+        if (unfetchable.getIfPresent(url) == null) {
+            return false;
+        }
+        skippedUnfetchable.increment();
+        return true;
+    }
+
+    private Optional<String> markUnfetchable(String url, String reason) {
+        logger.debug("Skipping {} from now on: {}", url, reason);
+        unfetchable.put(url, reason);
+        return Optional.empty();
+    }
+
+    // Media type without parameters, lower case; empty when the header is missing
+    private static String mediaType(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Type")
+                .map(contentType -> contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT))
+                .orElse("");
+    }
+
+    private String readPlainText(Reader reader) throws IOException {
+        char[] buffer = new char[maxChars];
+        int length = 0;
+        int read;
+        while (length < maxChars && (read = reader.read(buffer, length, maxChars - length)) > 0) {
+            length += read;
+        }
+        return new String(buffer, 0, length).replaceAll("\\s+", " ").trim();
+    }
+
+    private static Optional<Charset> charsetFrom(String text) {
+        Matcher matcher = (text.startsWith("charset=") ? CHARSET_PARAM : META_CHARSET).matcher(text);
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Charset.forName(matcher.group(1)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // Already failed or closed
+        }
+    }
+
+    // Reports end of stream once limit bytes have been read, so oversized pages are cut off
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
         }
     }
 }
@@ -12,6 +12,7 @@ class ResearchApp {
         this.reportActions = document.getElementById('reportActions');
         this.copyReportBtn = document.getElementById('copyReportBtn');
         this.downloadReportBtn = document.getElementById('downloadReportBtn');
+        this.progressLog = document.getElementById('progressLog');
         this.rawMarkdown = '';
         this.initializeMarked();
         this.bindEvents();
@@ -68,9 +69,7 @@ class ResearchApp {
         this.runBtn.disabled = true;
         this.spinner.classList.remove('hidden');
         this.btnText.textContent = 'Researching...';
-        this.statusDiv.textContent = 'Starting research...';
-        this.statusDiv.className = 'status loading';
-        this.statusDiv.style.display = 'block';
+        this.showProgress('Starting research...', '');
         this.resultContainer.style.display = 'none';
     }
 
@@ -172,6 +171,7 @@ class ResearchApp {
         }
 
         this.showLoading();
+        this.clearProgressLog();
 
         try {
             const payload = { topic };
@@ -182,9 +182,90 @@ class ResearchApp {
                 }
             }
 
-            const controller = new AbortController();
-            const timeoutId = setTimeout(() => controller.abort(), 300000); // 5 minutes
+            // Prefer the SSE progress stream; fall back to the blocking endpoint on old browsers
+            const summary = window.EventSource
+                ? await this.streamResearch(payload)
+                : await this.postResearch(payload);
+
+            this.renderMarkdown(summary);
+            this.showSuccess('Research completed!');
+            
+        } catch (error) {
+            console.error('Research error:', error);
+            
+            if (error.name === 'AbortError') {
+                this.showError('Research request timed out after 5 minutes. Please try again with a more specific topic or fewer research steps.');
+            } else if (error.message.includes('NetworkError') || error.message.includes('Failed to fetch')) {
+                this.showError('Network error. Please check your connection and try again.');
+            } else {
+                this.showError(`Error: ${error.message}`);
+            }
+        } finally {
+            this.hideLoading();
+        }
+    }
+
+    streamResearch(payload) {
+        return new Promise((resolve, reject) => {
+            const params = new URLSearchParams({ topic: payload.topic });
+            if (payload.researchSteps) {
+                params.set('researchSteps', payload.researchSteps);
+            }
+            const source = new EventSource(`/api/research/stream?${params.toString()}`);
+            let finished = false;
+            const finish = () => {
+                finished = true;
+                source.close();
+            };
+            const on = (type, handler) => source.addEventListener(type, (event) => {
+                handler(JSON.parse(event.data));
+            });
+
+            on('query-generated', (data) => {
+                this.logProgress(`Generated queries: ${data.queries.join(' | ')}`);
+            });
+            on('search-started', (data) => {
+                this.showProgress('Searching the web...', data.query);
+                this.logProgress(`Searching: ${data.query}`);
+            });
+            on('search-finished', (data) => {
+                this.logProgress(`Found ${data.resultCount} results for: ${data.query}`);
+            });
+            on('sources-found', (data) => {
+                this.showProgress(`Research loop ${data.loop}`, `${data.totalSources} sources gathered`);
+                this.logProgress(`Loop ${data.loop}: ${data.sources.length} sources (${data.totalSources} unique so far)`);
+            });
+            on('summary-updated', (data) => {
+                this.showProgress('Summary updated', `${data.summaryLength} characters`);
+                this.logProgress(`Summary updated after loop ${data.loop} (${data.summaryLength} chars)`);
+                // Show the draft while the remaining loops run
+                this.renderMarkdown(data.summary);
+            });
+            on('reflection-gap', (data) => {
+                this.logProgress(`Knowledge gap: ${data.knowledgeGap} -> ${data.followUpQuery}`);
+            });
+            on('done', (data) => {
+                this.logProgress('Research complete');
+                finish();
+                resolve(data.summary);
+            });
+            source.addEventListener('error', (event) => {
+                if (finished) {
+                    return;
+                }
+                finish();
+                // Server-sent error events carry a payload; connection failures do not
+                const message = event.data ? JSON.parse(event.data).message : 'Lost connection to the research stream';
+                reject(new Error(message));
+            });
+        });
+    }
+
+    async postResearch(payload) {
+        const controller = new AbortController();
+        const timeoutId = setTimeout(() => controller.abort(), 300000); // 5 minutes
 
+        try {
             const response = await fetch('/api/research/conduct', {
                 method: 'POST',
                 headers: {
@@ -194,8 +275,6 @@ class ResearchApp {
                 signal: controller.signal
             });
 
-            clearTimeout(timeoutId);
-
             if (!response.ok) {
                 throw new Error(`HTTP ${response.status}: ${response.statusText}`);
             }
@@ -205,23 +284,27 @@ class ResearchApp {
             if (data.error) {
                 throw new Error(data.error);
             }
-
-            this.renderMarkdown(data.summary);
-            this.showSuccess('Research completed!');
-            
-        } catch (error) {
-            clearTimeout(timeoutId);
-            console.error('Research error:', error);
-            
-            if (error.name === 'AbortError') {
-                this.showError('Research request timed out after 5 minutes. Please try again with a more specific topic or fewer research steps.');
-            } else if (error.message.includes('NetworkError') || error.message.includes('Failed to fetch')) {
-                this.showError('Network error. Please check your connection and try again.');
-            } else {
-                this.showError(`Error: ${error.message}`);
-            }
+            return data.summary;
         } finally {
-            this.hideLoading();
+            clearTimeout(timeoutId);
+        }
+    }
+
+    logProgress(message) {
+        if (!this.progressLog) {
+            return;
+        }
+        const item = document.createElement('li');
+        item.textContent = `${new Date().toLocaleTimeString()} - ${message}`;
+        this.progressLog.appendChild(item);
+        this.progressLog.classList.remove('hidden');
+        this.progressLog.scrollTop = this.progressLog.scrollHeight;
+    }
+
+    clearProgressLog() {
+        if (this.progressLog) {
+            this.progressLog.innerHTML = '';
+            this.progressLog.classList.add('hidden');
         }
     }
 
@@ -230,6 +313,7 @@ class ResearchApp {
         this.resultDiv.innerHTML = '';
         this.resultContainer.style.display = 'none';
         this.statusDiv.style.display = 'none';
+        this.clearProgressLog();
         if (this.reportActions) {
             this.reportActions.classList.add('hidden');
         }
@@ -0,0 +1,87 @@
+package com.skanga.benchmark;
+
+import com.skanga.util.HtmlTextExtractor;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming Markdown converter with the original WebContentFetcher.htmlToMarkdown,
+ * which parsed the whole document, flattened body text and collapsed whitespace with a regex.
+ * Pages come from the extraction corpus in src/test/resources/extraction-corpus; "large" repeats
+ * the news article's body until the page is about 1MB, where the output cap lets extraction stop early.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=HtmlToMarkdownBenchmark
+ * and add -prof gc to the JMH arguments to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlToMarkdownBenchmark {
+    // Same budget WebContentFetcher uses with the default maxTokensPerSource of 1000
+    private static final int MAX_CHARS = 12000;
+
+    private static final int LARGE_PAGE_CHARS = 1024 * 1024;
+
+    @Param({"news-article.html", "docs-page.html", "wiki-article.html", "blog-post.html", "large"})
+    public String page;
+
+    private String html;
+
+    @Setup
+    public void load() throws IOException {
+        if (!page.equals("large")) {
+            html = read(page);
+            return;
+        }
+        String article = read("news-article.html");
+        String body = article.substring(article.indexOf("<article>"), article.indexOf("</article>") + "</article>".length());
+        StringBuilder large = new StringBuilder(LARGE_PAGE_CHARS + article.length())
+                .append(article, 0, article.indexOf("<main"));
+        while (large.length() < LARGE_PAGE_CHARS) {
+            large.append(body);
+        }
+        html = large.append("</body></html>").toString();
+    }
+
+    private static String read(String file) throws IOException {
+        try (InputStream in = HtmlToMarkdownBenchmark.class.getResourceAsStream("/extraction-corpus/" + file)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public String legacyHtmlToMarkdown() {
+        Document doc = Jsoup.parse(html);
+        doc.select("script, style").remove();
+        return doc.body().text().replaceAll("\\s+", " ").trim();
+    }
+
+    @Benchmark
+    public String markdownFullPage() {
+        return HtmlTextExtractor.extract(new StringReader(html), "https://example.com/", MAX_CHARS, false);
+    }
+
+    @Benchmark
+    public String markdownMainContent() {
+        return HtmlTextExtractor.extract(new StringReader(html), "https://example.com/", MAX_CHARS, true);
+    }
+}
@@ -0,0 +1,108 @@
+package com.skanga.benchmark;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import com.skanga.model.SearchResult;
+import com.skanga.token.BpeTokenCounter;
+import com.skanga.token.ContextPacker;
+import com.skanga.token.TokenCounter;
+import com.skanga.token.TokenCounters;
+import com.skanga.util.HtmlTextExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the token counters on page text from the extraction corpus, against the
+ * four-characters-per-token division they replaced, plus packing a loop's worth of fetched
+ * pages into a prompt budget. Page text is extracted once in setup, at the per-page size
+ * WebContentFetcher keeps by default.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=TokenCounterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenCounterBenchmark {
+    // Page text WebContentFetcher keeps with the default maxTokensPerSource of 1000
+    private static final int MAX_CHARS = 12000;
+
+    // Three queries of three results each, at the default maxTokensPerSource
+    private static final int SOURCES = 9;
+    private static final int BUDGET_TOKENS = SOURCES * 1000;
+
+    @Param({"news-article.html", "docs-page.html", "wiki-article.html", "blog-post.html"})
+    public String page;
+
+    private String text;
+    private List<SearchResult> results;
+    private TokenCounter cl100k;
+    private TokenCounter o200k;
+    private TokenCounter approximate;
+    private ContextPacker packer;
+
+    @Setup
+    public void load() throws IOException {
+        try (InputStream in = TokenCounterBenchmark.class.getResourceAsStream("/extraction-corpus/" + page)) {
+            String html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            text = HtmlTextExtractor.extract(new StringReader(html), "https://example.com/", MAX_CHARS, true);
+        }
+        cl100k = new BpeTokenCounter(EncodingType.CL100K_BASE);
+        o200k = new BpeTokenCounter(EncodingType.O200K_BASE);
+        approximate = TokenCounters.approximate();
+        packer = new ContextPacker(cl100k);
+        results = new ArrayList<>();
+        for (int i = 0; i < SOURCES; i++) {
+            SearchResult result = new SearchResult("Source " + i, "snippet", "https://example.com/" + i, 1.0 - i * 0.1);
+            result.setRawContent(text);
+            results.add(result);
+        }
+    }
+
+    @Benchmark
+    public int charsDividedByFour() {
+        return text.length() / 4;
+    }
+
+    @Benchmark
+    public int approximateCount() {
+        return approximate.count(text);
+    }
+
+    @Benchmark
+    public int cl100kCount() {
+        return cl100k.count(text);
+    }
+
+    @Benchmark
+    public int o200kCount() {
+        return o200k.count(text);
+    }
+
+    @Benchmark
+    public String cl100kTruncate() {
+        return cl100k.truncate(text, 500);
+    }
+
+    @Benchmark
+    public List<ContextPacker.PackedSource> packLoopSources() {
+        return packer.pack(results, BUDGET_TOKENS / 2);
+    }
+}
@@ -24,6 +24,9 @@ class ResearchConfigurationTest {
         assertEquals("duckduckgo", config.getSearchApi());
         assertTrue(config.isStripThinkingTokens());
         assertEquals(1000, config.getMaxTokensPerSource());
+        assertEquals("virtual", config.getExecutor().getThreadType());
+        assertEquals(32, config.getExecutor().getMaxInFlight());
+        assertEquals(100, config.getExecutor().getQueueCapacity());
     }
 
     @Test
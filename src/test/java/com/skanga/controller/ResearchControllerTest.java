@@ -1,6 +1,12 @@
 package com.skanga.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skanga.model.ResearchEvent;
+import com.skanga.model.ResearchJob;
+import com.skanga.model.ResearchRequest;
+import com.skanga.service.ResearchExecutor;
+import com.skanga.service.ResearchJobService;
+import com.skanga.service.ResearchProgressListener;
 import com.skanga.service.ResearchService;
 import com.skanga.config.ResearchConfiguration;
 import org.junit.jupiter.api.Test;
@@ -12,13 +18,17 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
@@ -35,6 +45,12 @@ class ResearchControllerTest {
     @MockitoBean
     private ResearchConfiguration researchConfiguration;
 
+    @MockitoBean
+    private ResearchExecutor researchExecutor;
+
+    @MockitoBean
+    private ResearchJobService researchJobService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -44,7 +60,7 @@ class ResearchControllerTest {
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("topic", "test topic");
 
-        when(researchService.conductResearch(anyString(), any()))
+        when(researchService.conductResearch(any(ResearchRequest.class)))
                 .thenReturn(CompletableFuture.completedFuture("research result"));
 
         // When & Then
@@ -86,7 +102,7 @@ class ResearchControllerTest {
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("topic", "test topic");
 
-        when(researchService.conductResearch(anyString(), any()))
+        when(researchService.conductResearch(any(ResearchRequest.class)))
                 .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Service failure")));
 
         // When & Then
@@ -103,6 +119,133 @@ class ResearchControllerTest {
                 .andExpect(jsonPath("$.error").value("java.lang.RuntimeException: Service failure"));
     }
 
+    @Test
+    void conductResearch_rejectedWhenExecutorSaturated() throws Exception {
+        // Given
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("topic", "test topic");
+
+        when(researchService.conductResearch(any(ResearchRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(
+                        new RejectedExecutionException("Research capacity exhausted, please retry later")));
+
+        // When & Then
+        var mvcResult = mockMvc.perform(post("/api/research/conduct")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestBody)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("rejected"))
+                .andExpect(jsonPath("$.error").value("Research capacity exhausted, please retry later"));
+    }
+
+    @Test
+    void streamResearch_sendsProgressEvents() throws Exception {
+        when(researchService.conductResearch(
+                argThat((ResearchRequest r) -> "test topic".equals(r.getTopic()) && r.getResearchSteps() == 2),
+                any())).thenAnswer(invocation -> {
+            ResearchProgressListener listener = invocation.getArgument(1);
+            listener.onEvent(new ResearchEvent(ResearchEvent.Type.SEARCH_STARTED, Map.of("query", "q1")));
+            listener.onEvent(new ResearchEvent(ResearchEvent.Type.DONE, Map.of("summary", "research result")));
+            return CompletableFuture.completedFuture("research result");
+        });
+
+        var mvcResult = mockMvc.perform(get("/api/research/stream")
+                        .param("topic", "test topic")
+                        .param("researchSteps", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvcResult.getResponse().getContentAsString();
+        assertTrue(body.contains("event:search-started"));
+        assertTrue(body.contains("\"query\":\"q1\""));
+        assertTrue(body.contains("event:done"));
+        assertTrue(body.contains("\"summary\":\"research result\""));
+    }
+
+    @Test
+    void submitJob_returnsJobIdImmediately() throws Exception {
+        when(researchJobService.submit(
+                argThat((ResearchRequest r) -> "test topic".equals(r.getTopic()) && r.getResearchSteps() == 2))).thenReturn(new ResearchJob("job-1", "test topic", 2));
+
+        mockMvc.perform(post("/api/research/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"topic\":\"test topic\",\"researchSteps\":2}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("queued"));
+    }
+
+    @Test
+    void submitJob_missingTopic() throws Exception {
+        mockMvc.perform(post("/api/research/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Missing required field: topic"));
+    }
+
+    @Test
+    void submitJob_rejectedWhenSaturated() throws Exception {
+        when(researchJobService.submit(any(ResearchRequest.class)))
+                .thenThrow(new RejectedExecutionException("Research capacity exhausted, please retry later"));
+
+        mockMvc.perform(post("/api/research/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"topic\":\"test topic\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("rejected"));
+    }
+
+    @Test
+    void getJob_returnsStatusAndResult() throws Exception {
+        ResearchJob job = new ResearchJob("job-1", "test topic", null);
+        job.setStatus(ResearchJob.Status.COMPLETED);
+        job.setSummary("research result");
+        when(researchJobService.getJob("job-1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/research/jobs/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("completed"))
+                .andExpect(jsonPath("$.summary").value("research result"));
+    }
+
+    @Test
+    void getJob_unknownId() throws Exception {
+        when(researchJobService.getJob("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/research/jobs/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cancelJob_returnsCancelledJob() throws Exception {
+        ResearchJob job = new ResearchJob("job-1", "test topic", null);
+        job.setStatus(ResearchJob.Status.CANCELLED);
+        when(researchJobService.cancel("job-1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(delete("/api/research/jobs/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("cancelled"));
+    }
+
+    @Test
+    void metrics_returnsExecutorGauges() throws Exception {
+        when(researchExecutor.getThreadType()).thenReturn("virtual");
+        when(researchExecutor.getActiveCount()).thenReturn(3);
+        when(researchExecutor.getQueueDepth()).thenReturn(5);
+
+        mockMvc.perform(get("/api/research/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.executor.threadType").value("virtual"))
+                .andExpect(jsonPath("$.executor.activeJobs").value(3))
+                .andExpect(jsonPath("$.executor.queueDepth").value(5));
+    }
+
     @Test
     void health_returnsHealthy() throws Exception {
         // Mock the configuration methods used in health endpoint
@@ -110,10 +253,12 @@ class ResearchControllerTest {
         when(researchConfiguration.getModelName()).thenReturn("test-model");
         when(researchConfiguration.getBaseUrl()).thenReturn("http://test-url");
         when(researchConfiguration.getApiKey()).thenReturn("test-key");
+        when(researchService.getSearchProviderHealth()).thenReturn(Map.of("duckduckgo", Map.of("state", "OPEN")));
 
         mockMvc.perform(get("/api/research/health"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.status").value("healthy"));
+                .andExpect(jsonPath("$.status").value("healthy"))
+                .andExpect(jsonPath("$.search_providers.duckduckgo.state").value("OPEN"));
     }
 
     @Test
@@ -0,0 +1,121 @@
+package com.skanga.llm;
+
+import com.skanga.config.ResearchConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final double FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double SLOW = TimeUnit.MILLISECONDS.toNanos(1000);
+
+    private ResearchConfiguration.LlmConcurrency config;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResearchConfiguration.LlmConcurrency();
+        config.setInitialLimit(2);
+        config.setMinLimit(1);
+        config.setMaxLimit(8);
+    }
+
+    @Test
+    void acquire_queuesCallsOverTheLimitInArrivalOrder() throws Exception {
+        // Given
+        config.setInitialLimit(1);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("ollama", config);
+        AdaptiveConcurrencyLimit.Permit first = limit.acquire();
+        List<String> order = new CopyOnWriteArrayList<>();
+        Thread second = Thread.ofVirtual().start(() -> runQueued(limit, "second", order));
+        awaitQueueDepth(limit, 1);
+        Thread third = Thread.ofVirtual().start(() -> runQueued(limit, "third", order));
+        awaitQueueDepth(limit, 2);
+
+        // When
+        limit.onCancelled(first);
+        second.join(5000);
+        third.join(5000);
+
+        // Then
+        assertEquals(List.of("second", "third"), order);
+        assertEquals(2, limit.getStats().get("maxQueueDepth"));
+        assertEquals(0, limit.getStats().get("inFlight"));
+    }
+
+    @Test
+    void onSuccess_raisesTheLimitWhileABusyBackendStaysFast() throws Exception {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("ollama", config);
+
+        // When
+        for (int round = 0; round < 20; round++) {
+            AdaptiveConcurrencyLimit.Permit a = limit.acquire();
+            AdaptiveConcurrencyLimit.Permit b = limit.acquire();
+            limit.onSuccess(a, FAST);
+            limit.onSuccess(b, FAST);
+        }
+
+        // Then
+        assertTrue(limit.getLimit() > 2, "limit stayed at " + limit.getLimit());
+    }
+
+    @Test
+    void onSuccess_cutsTheLimitOncePerRoundWhenCallsSlowDown() throws Exception {
+        // Given
+        config.setInitialLimit(8);
+        config.setBackoffRatio(0.5);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("ollama", config);
+        AdaptiveConcurrencyLimit.Permit warmUp = limit.acquire();
+        limit.onSuccess(warmUp, FAST);
+        AdaptiveConcurrencyLimit.Permit a = limit.acquire();
+        AdaptiveConcurrencyLimit.Permit b = limit.acquire();
+
+        // When
+        limit.onSuccess(a, SLOW);
+        limit.onSuccess(b, SLOW);
+
+        // Then
+        assertEquals(4, limit.getLimit());
+        assertEquals(2L, limit.getStats().get("overloads"));
+    }
+
+    @Test
+    void onFailure_cutsTheLimitButNotBelowTheMinimum() throws Exception {
+        // Given
+        config.setInitialLimit(1);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("lmstudio", config);
+
+        // When
+        limit.onFailure(limit.acquire());
+        limit.onFailure(limit.acquire());
+
+        // Then
+        assertEquals(1, limit.getLimit());
+        assertEquals(0, limit.getQueueDepth());
+    }
+
+    private static void runQueued(AdaptiveConcurrencyLimit limit, String name, List<String> order) {
+        try {
+            AdaptiveConcurrencyLimit.Permit permit = limit.acquire();
+            order.add(name);
+            limit.onSuccess(permit, FAST);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQueueDepth(AdaptiveConcurrencyLimit limit, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limit.getQueueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, limit.getQueueDepth());
+    }
+}
@@ -0,0 +1,128 @@
+package com.skanga.llm;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingChatModelTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void chat_answersIdenticalRequestFromCache() {
+        // Given
+        ChatModel delegate = delegateAnswering("cached answer");
+        LlmResponseCache cache = new LlmResponseCache(EnumSet.allOf(LlmRole.class), 10, null, 0);
+        ChatModel model = new CachingChatModel(delegate, "openai", LlmRole.QUERY_GENERATOR, cache);
+
+        // When
+        String first = model.chat(request("prompt", 0.0)).aiMessage().text();
+        String second = model.chat(request("prompt", 0.0)).aiMessage().text();
+
+        // Then
+        assertEquals("cached answer", first);
+        assertEquals("cached answer", second);
+        verify(delegate, times(1)).chat(any(ChatRequest.class));
+        assertEquals(1L, roleStats(cache, LlmRole.QUERY_GENERATOR).get("hits"));
+        assertEquals(1L, roleStats(cache, LlmRole.QUERY_GENERATOR).get("misses"));
+    }
+
+    @Test
+    void chat_treatsDifferentPromptOrParametersAsMiss() {
+        // Given
+        ChatModel delegate = delegateAnswering("answer");
+        LlmResponseCache cache = new LlmResponseCache(EnumSet.allOf(LlmRole.class), 10, null, 0);
+        ChatModel model = new CachingChatModel(delegate, "openai", LlmRole.SUMMARIZER, cache);
+
+        // When
+        model.chat(request("prompt", 0.0));
+        model.chat(request("other prompt", 0.0));
+        model.chat(request("prompt", 0.7));
+
+        // Then
+        verify(delegate, times(3)).chat(any(ChatRequest.class));
+    }
+
+    @Test
+    void chat_reloadsResponsesFromDiskTier() {
+        // Given
+        ChatModel delegate = delegateAnswering("persisted answer");
+        new CachingChatModel(delegate, "openai", LlmRole.REFLECTION,
+                new LlmResponseCache(EnumSet.allOf(LlmRole.class), 10, cacheDir, 1_000_000)).chat(request("prompt", 0.0));
+
+        // When
+        LlmResponseCache reloaded = new LlmResponseCache(EnumSet.allOf(LlmRole.class), 10, cacheDir, 1_000_000);
+        String answer = new CachingChatModel(delegate, "openai", LlmRole.REFLECTION, reloaded)
+                .chat(request("prompt", 0.0)).aiMessage().text();
+
+        // Then
+        assertEquals("persisted answer", answer);
+        verify(delegate, times(1)).chat(any(ChatRequest.class));
+    }
+
+    @Test
+    void put_boundsDiskTierBySizeEvictingLeastRecentlyUsed() {
+        // Given: room on disk for about two responses
+        ChatModel delegate = delegateAnswering("answer");
+        LlmResponseCache cache = new LlmResponseCache(EnumSet.allOf(LlmRole.class), 10, cacheDir, 120);
+        ChatModel model = new CachingChatModel(delegate, "openai", LlmRole.SUMMARIZER, cache);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            model.chat(request("prompt " + i, 0.0));
+        }
+
+        // Then
+        Map<String, Object> stats = cache.getStats();
+        assertTrue((Long) stats.get("diskBytes") <= 120);
+        assertEquals(3L, stats.get("diskEvictions"));
+        assertEquals(2, stats.get("diskSize"));
+        // Evicted files are gone, so a restart reloads only what is left
+        assertEquals(stats.get("diskSize"),
+                new LlmResponseCache(EnumSet.allOf(LlmRole.class), 10, cacheDir, 120).getStats().get("diskSize"));
+    }
+
+    @Test
+    void isEnabled_followsPerRoleSwitches() {
+        LlmResponseCache cache = new LlmResponseCache(EnumSet.of(LlmRole.QUERY_GENERATOR), 10, null, 0);
+
+        assertEquals(true, cache.isEnabled(LlmRole.QUERY_GENERATOR));
+        assertEquals(false, cache.isEnabled(LlmRole.SUMMARIZER));
+    }
+
+    private static ChatModel delegateAnswering(String text) {
+        ChatModel delegate = mock(ChatModel.class);
+        when(delegate.chat(any(ChatRequest.class)))
+                .thenReturn(ChatResponse.builder().aiMessage(AiMessage.from(text)).build());
+        return delegate;
+    }
+
+    private static ChatRequest request(String prompt, double temperature) {
+        return ChatRequest.builder()
+                .messages(UserMessage.from(prompt))
+                .temperature(temperature)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> roleStats(LlmResponseCache cache, LlmRole role) {
+        return (Map<String, Object>) ((Map<String, Object>) cache.getStats().get("roles")).get(role.getValue());
+    }
+}
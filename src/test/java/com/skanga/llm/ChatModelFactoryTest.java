@@ -0,0 +1,104 @@
+package com.skanga.llm;
+
+import com.skanga.config.ResearchConfiguration;
+import dev.langchain4j.model.chat.ChatModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ChatModelFactoryTest {
+
+    private ResearchConfiguration config;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResearchConfiguration();
+        config.setLlmProvider("openai");
+        config.setModelName("gpt-4o");
+        config.setBaseUrl("https://api.openai.com/v1");
+        config.setApiKey("test-key");
+    }
+
+    @Test
+    void settingsFor_fillsBlankRoleFieldsFromTheTopLevelSettings() {
+        // Given
+        ResearchConfiguration.RoleModel reflection = config.getModels().getReflection();
+        reflection.setProvider("ollama");
+        reflection.setModelName("qwen3:4b");
+        reflection.setBaseUrl("http://localhost:11434/v1");
+        reflection.setMaxOutputTokens(512);
+        ChatModelFactory factory = new ChatModelFactory(config, noCache(), new LlmRateLimiter(config), new LlmConcurrencyLimiter(config));
+
+        // When
+        ChatModelFactory.ModelSettings summarizer = factory.settingsFor(LlmRole.SUMMARIZER);
+        ChatModelFactory.ModelSettings reflector = factory.settingsFor(LlmRole.REFLECTION);
+
+        // Then
+        assertEquals("openai/gpt-4o", summarizer.toString());
+        assertEquals("ollama/qwen3:4b", reflector.toString());
+        assertEquals("http://localhost:11434/v1", reflector.baseUrl());
+        assertEquals("test-key", reflector.apiKey());
+        assertEquals(512, reflector.maxOutputTokens());
+    }
+
+    @Test
+    void forRole_sharesOneClientBetweenRolesWithTheSameSettings() {
+        // Given
+        config.getModels().getQueryGenerator().setModelName("gpt-4o-mini");
+        config.getModels().getReflection().setModelName("gpt-4o-mini");
+        ChatModelFactory factory = new ChatModelFactory(config, noCache(), new LlmRateLimiter(config), new LlmConcurrencyLimiter(config));
+
+        // When
+        ChatModel queryGenerator = factory.forRole(LlmRole.QUERY_GENERATOR);
+        ChatModel reflection = factory.forRole(LlmRole.REFLECTION);
+        ChatModel summarizer = factory.forRole(LlmRole.SUMMARIZER);
+
+        // Then
+        assertSame(queryGenerator, reflection);
+        assertNotSame(queryGenerator, summarizer);
+        assertEquals("gpt-4o-mini", queryGenerator.defaultRequestParameters().modelName());
+        assertEquals("gpt-4o", summarizer.defaultRequestParameters().modelName());
+    }
+
+    @Test
+    void forRole_appliesTheRoleTemperatureAndOutputLimit() {
+        // Given
+        config.getModels().getSummarizer().setTemperature(0.3);
+        config.getModels().getSummarizer().setMaxOutputTokens(4096);
+        ChatModelFactory factory = new ChatModelFactory(config, noCache(), new LlmRateLimiter(config), new LlmConcurrencyLimiter(config));
+
+        // When
+        ChatModel summarizer = factory.forRole(LlmRole.SUMMARIZER);
+        ChatModel queryGenerator = factory.forRole(LlmRole.QUERY_GENERATOR);
+
+        // Then
+        assertEquals(0.3, summarizer.defaultRequestParameters().temperature());
+        assertEquals(4096, summarizer.defaultRequestParameters().maxOutputTokens());
+        assertEquals(0.0, queryGenerator.defaultRequestParameters().temperature());
+    }
+
+    @Test
+    void forRole_wrapsCachedRolesAroundTheSharedClient() {
+        // Given
+        ChatModelFactory factory = new ChatModelFactory(config,
+                new LlmResponseCache(EnumSet.of(LlmRole.QUERY_GENERATOR), 10, null, 0), new LlmRateLimiter(config), new LlmConcurrencyLimiter(config));
+
+        // When
+        ChatModel queryGenerator = factory.forRole(LlmRole.QUERY_GENERATOR);
+        ChatModel summarizer = factory.forRole(LlmRole.SUMMARIZER);
+
+        // Then
+        assertInstanceOf(CachingChatModel.class, queryGenerator);
+        assertEquals("gpt-4o", summarizer.defaultRequestParameters().modelName());
+    }
+
+    private static LlmResponseCache noCache() {
+        return new LlmResponseCache(EnumSet.noneOf(LlmRole.class), 0, null, 0);
+    }
+}
@@ -0,0 +1,175 @@
+package com.skanga.llm;
+
+import com.skanga.config.ResearchConfiguration;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.exception.RateLimitException;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimitedChatModelTest {
+
+    private ResearchConfiguration.LlmRateLimit config;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResearchConfiguration.LlmRateLimit();
+        config.setMaxRetries(2);
+        config.setRetryBackoff(Duration.ofMillis(10));
+    }
+
+    @Test
+    void reserve_queuesRequestsPastThePerMinuteLimit() {
+        // Given
+        ProviderQuota quota = new ProviderQuota("openai", 2, 0);
+
+        // When
+        long first = quota.reserve(100);
+        long second = quota.reserve(100);
+        long third = quota.reserve(100);
+
+        // Then
+        assertEquals(0, first);
+        assertEquals(0, second);
+        assertTrue(third > TimeUnit.SECONDS.toNanos(29) && third <= TimeUnit.SECONDS.toNanos(30));
+        assertEquals(1L, quota.getStats().get("queuedCalls"));
+    }
+
+    @Test
+    void onResponse_followsTheProviderRateLimitHeaders() {
+        // Given
+        ProviderQuota quota = new ProviderQuota("groq", 0, 0);
+
+        // When
+        quota.onResponse(500, 400, Map.of(
+                "X-RateLimit-Limit-Requests", List.of("30"),
+                "x-ratelimit-remaining-requests", List.of("0"),
+                "x-ratelimit-reset-requests", List.of("2s"),
+                "x-ratelimit-limit-tokens", List.of("6000")));
+        long wait = quota.reserve(100);
+
+        // Then
+        assertEquals(30L, quota.getStats().get("requestsPerMinute"));
+        assertEquals(6000L, quota.getStats().get("tokensPerMinute"));
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(1500) && wait <= TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    void chat_queuesARateLimitedCallAgainInsteadOfFailing() {
+        // Given
+        ChatModel delegate = mock(ChatModel.class);
+        when(delegate.chat(any(ChatRequest.class)))
+                .thenThrow(new RateLimitException("Rate limit reached. Please try again in 20ms."))
+                .thenReturn(ChatResponse.builder().aiMessage(AiMessage.from("answer")).build());
+        ProviderQuota quota = new ProviderQuota("openai", 0, 0);
+        RateLimitedChatModel model = new RateLimitedChatModel(delegate, quota, config);
+
+        // When
+        long start = System.nanoTime();
+        ChatResponse response = model.chat(request());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertEquals("answer", response.aiMessage().text());
+        verify(delegate, times(2)).chat(any(ChatRequest.class));
+        assertTrue(elapsedMillis >= 15, "retried after " + elapsedMillis + " ms");
+        assertEquals(1L, quota.getStats().get("rateLimited"));
+        assertEquals(1L, quota.getStats().get("queuedCalls"));
+    }
+
+    @Test
+    void chat_passesTheErrorOnOnceRetriesRunOut() {
+        // Given
+        ChatModel delegate = mock(ChatModel.class);
+        when(delegate.chat(any(ChatRequest.class))).thenThrow(new RateLimitException("Too many requests"));
+        ProviderQuota quota = new ProviderQuota("anthropic", 0, 0);
+        RateLimitedChatModel model = new RateLimitedChatModel(delegate, quota, config);
+
+        // When / Then
+        assertThrows(RateLimitException.class, () -> model.chat(request()));
+        verify(delegate, times(3)).chat(any(ChatRequest.class));
+        assertEquals(2L, quota.getStats().get("rateLimited"));
+        assertEquals(1L, quota.getStats().get("failed"));
+    }
+
+    @Test
+    void chat_doesNotRetryOtherErrors() {
+        // Given
+        ChatModel delegate = mock(ChatModel.class);
+        when(delegate.chat(any(ChatRequest.class))).thenThrow(new IllegalStateException("bad request"));
+        RateLimitedChatModel model = new RateLimitedChatModel(delegate, new ProviderQuota("openai", 0, 0), config);
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> model.chat(request()));
+        verify(delegate).chat(any(ChatRequest.class));
+    }
+
+    @Test
+    void chat_refundsTheReservationOfACallThatFailsOtherwise() {
+        // Given
+        ChatModel delegate = mock(ChatModel.class);
+        when(delegate.chat(any(ChatRequest.class))).thenThrow(new IllegalStateException("server error"));
+        ProviderQuota quota = new ProviderQuota("openai", 2, 0);
+        RateLimitedChatModel model = new RateLimitedChatModel(delegate, quota, config);
+
+        // When
+        assertThrows(IllegalStateException.class, () -> model.chat(request()));
+
+        // Then: both requests of the minute are still available
+        assertEquals(0, quota.reserve(100));
+        assertEquals(0, quota.reserve(100));
+        assertEquals(1L, quota.getStats().get("refunded"));
+    }
+
+    @Test
+    void chat_refundsTheReservationOfACallCancelledWhileQueued() {
+        // Given: the only request of this minute is taken
+        ChatModel delegate = mock(ChatModel.class);
+        ProviderQuota quota = new ProviderQuota("openai", 1, 0);
+        quota.reserve(100);
+        RateLimitedChatModel model = new RateLimitedChatModel(delegate, quota, config);
+
+        // When
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> model.chat(request()));
+        } finally {
+            Thread.interrupted();
+        }
+
+        // Then: the next call queues behind one reservation, not two
+        long wait = quota.reserve(100);
+        assertTrue(wait > 0 && wait <= TimeUnit.MINUTES.toNanos(1), "waits " + wait);
+        verify(delegate, times(0)).chat(any(ChatRequest.class));
+    }
+
+    @Test
+    void parseDuration_readsOpenAiResetTimes() {
+        assertEquals(TimeUnit.SECONDS.toNanos(360), ProviderQuota.parseDuration("6m0s"));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1500), ProviderQuota.parseDuration("1.5s"));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), ProviderQuota.parseDuration("20ms"));
+        assertEquals(TimeUnit.SECONDS.toNanos(3), ProviderQuota.parseDuration("3"));
+    }
+
+    private static ChatRequest request() {
+        return ChatRequest.builder().messages(UserMessage.from("prompt")).build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.skanga.search;
+
+import com.skanga.config.ResearchConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private ResearchConfiguration.Breaker config;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResearchConfiguration.Breaker();
+        config.setWindow(4);
+        config.setMinCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setSlowCallRateThreshold(75);
+        config.setSlowCallDuration(Duration.ofMillis(1000));
+        config.setOpenDuration(Duration.ofMillis(50));
+        config.setHalfOpenCalls(2);
+        breaker = new CircuitBreaker("tavily", config);
+    }
+
+    @Test
+    void opensOnceTheFailureRateReachesTheThreshold() {
+        // Given
+        call(true, 10);
+        call(true, 10);
+        call(false, 10);
+
+        // When: too few calls to judge yet
+        boolean closedBeforeMinCalls = breaker.getState() == CircuitBreaker.State.CLOSED;
+        call(false, 10);
+
+        // Then
+        assertTrue(closedBeforeMinCalls);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1L, breaker.getStats().get("rejectedCalls"));
+        assertEquals(1L, breaker.getStats().get("timesOpened"));
+    }
+
+    @Test
+    void opensWhenTooManyCallsAreSlowEvenIfTheySucceed() {
+        // When
+        call(true, 5000);
+        call(true, 5000);
+        call(true, 5000);
+        call(true, 10);
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(0.75, breaker.getStats().get("slowCallRate"));
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        // When
+        call(false, 10);
+        call(true, 10);
+        call(true, 10);
+        call(true, 10);
+        call(true, 10);
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate());
+    }
+
+    @Test
+    void halfOpenTrialsCloseTheBreakerWhenTheySucceed() throws Exception {
+        // Given
+        open();
+        Thread.sleep(100);
+
+        // When
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        boolean thirdPermitted = breaker.tryAcquire();
+        breaker.onSuccess(10);
+        breaker.onSuccess(10);
+
+        // Then
+        assertFalse(thirdPermitted);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getStats().get("calls"));
+    }
+
+    @Test
+    void failedHalfOpenTrialReopensTheBreaker() throws Exception {
+        // Given
+        open();
+        Thread.sleep(100);
+
+        // When
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure(10);
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+        assertEquals(2L, breaker.getStats().get("timesOpened"));
+    }
+
+    @Test
+    void cancelledTrialReturnsItsPermit() throws Exception {
+        // Given
+        config.setHalfOpenCalls(1);
+        open();
+        Thread.sleep(100);
+
+        // When
+        assertTrue(breaker.tryAcquire());
+        breaker.onCancelled(10);
+
+        // Then
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(false, 10);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void call(boolean succeeded, long elapsedMillis) {
+        assertTrue(breaker.tryAcquire());
+        if (succeeded) {
+            breaker.onSuccess(elapsedMillis);
+        } else {
+            breaker.onFailure(elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.skanga.search;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.exception.SearchException;
+import com.skanga.model.SearchAPI;
+import com.skanga.model.SearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FederatedSearchTest {
+
+    private ResearchConfiguration.Federated config;
+    private FederatedSearch federation;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResearchConfiguration.Federated();
+        config.setTimeBudget(Duration.ofMillis(200));
+        config.setTopK(3);
+        federation = new FederatedSearch(config);
+    }
+
+    @Test
+    void search_fusesProvidersThatAnsweredAndDropsSlowOnes() throws Exception {
+        // Given
+        CompletableFuture<List<SearchResult>> slowCall = new CompletableFuture<>();
+        SearchProvider duckDuckGo = provider(SearchAPI.DUCKDUCKGO, CompletableFuture.completedFuture(List.of(
+                result("https://a.example"), result("https://b.example"))));
+        SearchProvider searxng = provider(SearchAPI.SEARXNG, CompletableFuture.completedFuture(List.of(
+                result("https://b.example/"), result("https://c.example"), result("https://d.example"))));
+        SearchProvider tavily = provider(SearchAPI.TAVILY, slowCall);
+
+        // When
+        long start = System.nanoTime();
+        List<SearchResult> results = federation.search(List.of(duckDuckGo, searxng, tavily), "query")
+                .get(5, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertEquals(List.of("https://b.example/", "https://a.example", "https://c.example"),
+                results.stream().map(SearchResult::getUrl).toList());
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+        assertTrue(elapsedMillis < 2000, "waited " + elapsedMillis + " ms for a provider past the budget");
+        assertTrue(slowCall.isCancelled());
+        assertEquals(1L, stats("tavily").get("late"));
+        assertEquals(1L, stats("searxng").get("answered"));
+    }
+
+    @Test
+    void search_skipsFailedProvidersWithoutWaitingForTheBudget() throws Exception {
+        // Given
+        config.setTimeBudget(Duration.ofMinutes(1));
+        SearchProvider duckDuckGo = provider(SearchAPI.DUCKDUCKGO, CompletableFuture.completedFuture(List.of(
+                result("https://a.example"))));
+        SearchProvider searxng = provider(SearchAPI.SEARXNG,
+                CompletableFuture.failedFuture(new SearchException("SearXNG returned status 403")));
+
+        // When
+        List<SearchResult> results = federation.search(List.of(duckDuckGo, searxng), "query").get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(1.0, results.get(0).getScore(), 1e-9);
+        assertEquals(1L, stats("searxng").get("failed"));
+        assertEquals(1L, federation.getStats().get("searches"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(String provider) {
+        return (Map<String, Object>) federation.getStats().get(provider);
+    }
+
+    private static SearchResult result(String url) {
+        return new SearchResult("Title " + url, "content", url, 0.5);
+    }
+
+    private static SearchProvider provider(SearchAPI api, CompletableFuture<List<SearchResult>> call) {
+        return new SearchProvider() {
+            @Override
+            public SearchAPI api() {
+                return api;
+            }
+
+            @Override
+            public CompletableFuture<List<SearchResult>> search(String query, int maxResults) {
+                return call;
+            }
+        };
+    }
+}
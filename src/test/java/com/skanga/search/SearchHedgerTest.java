@@ -0,0 +1,200 @@
+package com.skanga.search;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.exception.SearchException;
+import com.skanga.model.SearchAPI;
+import com.skanga.model.SearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchHedgerTest {
+
+    private ResearchConfiguration.Hedge config;
+    private SearchHedger hedger;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResearchConfiguration.Hedge();
+        config.setInitialDelay(Duration.ofMillis(50));
+        config.setMinDelay(Duration.ZERO);
+        hedger = new SearchHedger(config);
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndTheLoserCancelled() throws Exception {
+        // Given
+        StubProvider primary = new StubProvider(SearchAPI.TAVILY);
+        StubProvider secondary = new StubProvider(SearchAPI.DUCKDUCKGO);
+
+        // When
+        CompletableFuture<SearchHedger.Answer> answer = hedger.search(primary, secondary, "query", 3);
+        CompletableFuture<List<SearchResult>> hedge = secondary.awaitCall();
+        hedge.complete(List.of(new SearchResult("Hedge", "content", "https://hedge.example", 0.8)));
+
+        // Then
+        SearchHedger.Answer result = answer.get(5, TimeUnit.SECONDS);
+        assertSame(secondary, result.provider());
+        assertEquals("Hedge", result.results().getFirst().getTitle());
+        assertTrue(primary.calls.getFirst().isCancelled());
+        Map<String, Object> primaryStats = stats("tavily");
+        assertEquals(1L, primaryStats.get("requests"));
+        assertEquals(1L, primaryStats.get("hedged"));
+        assertEquals(1.0, primaryStats.get("hedgeRate"));
+        assertEquals(1L, stats("duckduckgo").get("hedgeWins"));
+    }
+
+    @Test
+    void fastPrimaryIsNotHedged() throws Exception {
+        // Given
+        StubProvider primary = new StubProvider(SearchAPI.TAVILY);
+        primary.answerWith(List.of(new SearchResult("Primary", "content", "https://primary.example", 0.9)));
+        StubProvider secondary = new StubProvider(SearchAPI.DUCKDUCKGO);
+
+        // When
+        SearchHedger.Answer result = hedger.search(primary, secondary, "query", 3).get(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+
+        // Then
+        assertSame(primary, result.provider());
+        assertTrue(secondary.calls.isEmpty());
+        assertEquals(0L, stats("tavily").get("hedged"));
+        assertEquals(1L, stats("tavily").get("wins"));
+    }
+
+    @Test
+    void failedPrimaryFallsBackWithoutWaitingForTheHedgeDelay() throws Exception {
+        // Given
+        config.setInitialDelay(Duration.ofMinutes(1));
+        StubProvider primary = new StubProvider(SearchAPI.TAVILY);
+        primary.failWith(new SearchException("Tavily returned status 500"));
+        StubProvider secondary = new StubProvider(SearchAPI.DUCKDUCKGO);
+        secondary.answerWith(List.of(new SearchResult("Fallback", "content", "https://fallback.example", 0.8)));
+
+        // When
+        SearchHedger.Answer result = hedger.search(primary, secondary, "query", 3).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertSame(secondary, result.provider());
+        assertEquals(1L, stats("tavily").get("fallbacks"));
+        assertEquals(0L, stats("tavily").get("hedged"));
+    }
+
+    @Test
+    void failsWhenEveryProviderFails() {
+        // Given
+        StubProvider primary = new StubProvider(SearchAPI.TAVILY);
+        primary.failWith(new SearchException("primary down"));
+        StubProvider secondary = new StubProvider(SearchAPI.DUCKDUCKGO);
+        secondary.failWith(new SearchException("secondary down"));
+
+        // When
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> hedger.search(primary, secondary, "query", 3).get(5, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals("primary down", error.getCause().getMessage());
+    }
+
+    @Test
+    void cancellingTheAnswerCancelsRunningRequests() throws Exception {
+        // Given
+        StubProvider primary = new StubProvider(SearchAPI.TAVILY);
+
+        // When
+        CompletableFuture<SearchHedger.Answer> answer = hedger.search(primary, null, "query", 3);
+        answer.cancel(true);
+
+        // Then
+        assertTrue(primary.calls.getFirst().isCancelled());
+    }
+
+    @Test
+    void hedgeDelayFollowsThePercentileOnceEnoughLatenciesAreKnown() throws Exception {
+        // Given
+        config.setMinSamples(5);
+        config.setPercentile(80);
+        config.setInitialDelay(Duration.ofSeconds(7));
+        StubProvider primary = new StubProvider(SearchAPI.SEARXNG);
+        primary.answerWith(List.of());
+
+        // When
+        long before = hedger.hedgeDelayMillis(primary);
+        for (int i = 0; i < 5; i++) {
+            hedger.search(primary, null, "query", 3).get(5, TimeUnit.SECONDS);
+        }
+
+        // Then
+        assertEquals(7000, before);
+        assertTrue(hedger.hedgeDelayMillis(primary) < 1000);
+        assertEquals(5, stats("searxng").get("latencySamples"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(String provider) {
+        return (Map<String, Object>) hedger.getStats().get(provider);
+    }
+
+    // Provider whose searches complete only when the test says so, unless an outcome is preset
+    private static final class StubProvider implements SearchProvider {
+        private final SearchAPI api;
+        private final List<CompletableFuture<List<SearchResult>>> calls = new ArrayList<>();
+        private List<SearchResult> answer;
+        private Throwable failure;
+
+        StubProvider(SearchAPI api) {
+            this.api = api;
+        }
+
+        void answerWith(List<SearchResult> results) {
+            this.answer = results;
+        }
+
+        void failWith(Throwable error) {
+            this.failure = error;
+        }
+
+        CompletableFuture<List<SearchResult>> awaitCall() throws InterruptedException {
+            for (int i = 0; i < 500; i++) {
+                synchronized (calls) {
+                    if (!calls.isEmpty()) {
+                        return calls.getFirst();
+                    }
+                }
+                Thread.sleep(10);
+            }
+            throw new AssertionError(api + " was never called");
+        }
+
+        @Override
+        public SearchAPI api() {
+            return api;
+        }
+
+        @Override
+        public CompletableFuture<List<SearchResult>> search(String query, int maxResults) {
+            CompletableFuture<List<SearchResult>> call = new CompletableFuture<>();
+            if (answer != null) {
+                call.complete(answer);
+            } else if (failure != null) {
+                call.completeExceptionally(failure);
+            }
+            synchronized (calls) {
+                calls.add(call);
+            }
+            return call;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.skanga.search;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.exception.SearchException;
+import com.skanga.model.SearchAPI;
+import com.skanga.model.SearchResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SearchProvidersTest {
+
+    @Mock
+    private HttpClient httpClient;
+
+    @Test
+    void registersOneProviderPerSearchApi() {
+        // Given
+        ResearchConfiguration config = new ResearchConfiguration();
+
+        // When
+        SearchProviders providers = new SearchProviders(httpClient, config);
+
+        // Then
+        assertEquals(Arrays.asList(SearchAPI.values()), providers.all().stream().map(SearchProvider::api).toList());
+        for (SearchAPI api : SearchAPI.values()) {
+            assertEquals(api, providers.get(api).api());
+        }
+        // Without API keys or a SearXNG URL only DuckDuckGo can run
+        assertEquals(List.of(SearchAPI.DUCKDUCKGO),
+                providers.configured().stream().map(SearchProvider::api).toList());
+    }
+
+    @Test
+    void secondaryFor_usesDuckDuckGoHtmlEndpointToHedgeDuckDuckGo() {
+        // Given
+        SearchProviders providers = new SearchProviders(httpClient, new ResearchConfiguration());
+        SearchProvider duckDuckGo = providers.get(SearchAPI.DUCKDUCKGO);
+        SearchProvider searxng = providers.get(SearchAPI.SEARXNG);
+
+        // When / Then
+        assertEquals("duckduckgo-html", providers.secondaryFor(duckDuckGo, "duckduckgo").name());
+        assertEquals("duckduckgo", providers.secondaryFor(searxng, "duckduckgo").name());
+        // Tavily has no API key, so DuckDuckGo stands in
+        assertEquals("duckduckgo", providers.secondaryFor(searxng, "tavily").name());
+        assertEquals(null, providers.secondaryFor(searxng, ""));
+    }
+
+    @Test
+    void searxng_parsesJsonResults() throws Exception {
+        // Given
+        ResearchConfiguration config = new ResearchConfiguration();
+        config.setSearxngUrl("http://searx.local:8080/");
+        SearchProvider searxng = new SearchProviders(httpClient, config).get(SearchAPI.SEARXNG);
+        stubResponse(200, """
+                {"results":[
+                  {"title":"First","url":"https://one.example","content":"Snippet one","score":4.2},
+                  {"title":"","url":"https://skipped.example","content":"No title"},
+                  {"title":"Second","url":"https://two.example","content":""},
+                  {"title":"Third","url":"https://three.example","content":"Snippet three"}
+                ]}""");
+
+        // When
+        List<SearchResult> results = searxng.search("java streams", 2).get();
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals("Snippet one", results.get(0).getContent());
+        assertEquals(1.0, results.get(0).getScore());
+        assertEquals("Second", results.get(1).getContent());
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).sendAsync(request.capture(), any(HttpResponse.BodyHandler.class));
+        assertEquals("http://searx.local:8080/search?q=java+streams&format=json", request.getValue().uri().toString());
+    }
+
+    @Test
+    void searxng_failsOnErrorStatus() {
+        // Given
+        ResearchConfiguration config = new ResearchConfiguration();
+        config.setSearxngUrl("http://searx.local:8080");
+        SearchProvider searxng = new SearchProviders(httpClient, config).get(SearchAPI.SEARXNG);
+        stubResponse(403, "Forbidden");
+
+        // When
+        ExecutionException error = assertThrows(ExecutionException.class, () -> searxng.search("query", 3).get());
+
+        // Then
+        assertInstanceOf(SearchException.class, error.getCause());
+    }
+
+    @Test
+    void tavily_withoutApiKeyFailsWithoutCallingTheApi() {
+        // Given
+        SearchProvider tavily = new SearchProviders(httpClient, new ResearchConfiguration()).get(SearchAPI.TAVILY);
+
+        // When
+        CompletableFuture<List<SearchResult>> search = tavily.search("query", 5);
+
+        // Then
+        assertFalse(tavily.isConfigured());
+        assertTrue(search.isCompletedExceptionally());
+        verifyNoInteractions(httpClient);
+    }
+
+    @Test
+    void duckDuckGo_scrapesHtmlResultsWhenInstantAnswerIsEmpty() throws Exception {
+        // Given
+        SearchProvider duckDuckGo = new SearchProviders(httpClient, new ResearchConfiguration()).get(SearchAPI.DUCKDUCKGO);
+        HttpResponse<String> apiResponse = response(200, "{\"AbstractText\":\"\",\"RelatedTopics\":[]}");
+        HttpResponse<String> htmlResponse = response(200, """
+                <div class="result"><h2 class="result__title"><a href="https://page.example">Page title</a></h2>
+                <a class="result__snippet">Page snippet</a></div>""");
+        when(httpClient.sendAsync(argThat(request -> request != null
+                        && request.uri().getHost().equals("api.duckduckgo.com")),
+                any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(apiResponse));
+        when(httpClient.sendAsync(argThat(request -> request != null
+                        && request.uri().getHost().equals("html.duckduckgo.com")),
+                any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(htmlResponse));
+
+        // When
+        List<SearchResult> results = duckDuckGo.search("query", 3).get();
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals("Page title", results.get(0).getTitle());
+        assertEquals("Page snippet", results.get(0).getContent());
+        assertEquals("https://page.example", results.get(0).getUrl());
+    }
+
+    @Test
+    void openBreakerSkipsTheProviderAndDropsItFromFallbacks() throws Exception {
+        // Given
+        ResearchConfiguration config = new ResearchConfiguration();
+        config.getBreaker().setWindow(2);
+        config.getBreaker().setMinCalls(2);
+        config.setSearxngUrl("http://searx.local:8080");
+        SearchProviders providers = new SearchProviders(httpClient, config);
+        SearchProvider searxng = providers.get(SearchAPI.SEARXNG);
+        SearchProvider duckDuckGo = providers.get(SearchAPI.DUCKDUCKGO);
+        stubResponse(503, "Unavailable");
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ExecutionException.class, () -> searxng.search("query", 3).get());
+        }
+
+        // When
+        CompletableFuture<List<SearchResult>> skipped = searxng.search("query", 3);
+
+        // Then
+        ExecutionException error = assertThrows(ExecutionException.class, skipped::get);
+        assertEquals("searxng circuit breaker is open", error.getCause().getMessage());
+        verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertFalse(searxng.isAvailable());
+        assertEquals(List.of("duckduckgo-html"), providers.fallbacksFor(duckDuckGo).stream().map(SearchProvider::name).toList());
+        // The preferred secondary is open, so the healthiest other provider backs up DuckDuckGo
+        assertEquals("duckduckgo-html", providers.secondaryFor(duckDuckGo, "searxng").name());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> searxngHealth = (Map<String, Object>) providers.getBreakerStats().get("searxng");
+        assertEquals("OPEN", searxngHealth.get("state"));
+        assertEquals(1.0, searxngHealth.get("failureRate"));
+    }
+
+    @Test
+    void fallbacksFor_ranksFasterHealthyProvidersFirst() throws Exception {
+        // Given
+        ResearchConfiguration config = new ResearchConfiguration();
+        config.setTavilyApiKey("test_api_key");
+        config.setSearxngUrl("http://searx.local:8080");
+        SearchProviders providers = new SearchProviders(httpClient, config);
+        stubResponse(200, "{\"results\":[]}");
+        providers.get(SearchAPI.TAVILY).search("query", 3).get();
+
+        // When
+        List<String> order = providers.fallbacksFor(providers.get(SearchAPI.DUCKDUCKGO)).stream()
+                .map(SearchProvider::name)
+                .toList();
+
+        // Then: only Tavily has a known latency, the rest keep SearchAPI order
+        assertEquals(List.of("tavily", "searxng", "duckduckgo-html"), order);
+    }
+
+    private void stubResponse(int status, String body) {
+        HttpResponse<String> response = response(status, body);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<String> response(int status, String body) {
+        HttpResponse<String> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        if (status == 200) {
+            when(response.body()).thenReturn(body);
+        }
+        return response;
+    }
+}
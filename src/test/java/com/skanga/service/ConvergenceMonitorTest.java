@@ -0,0 +1,87 @@
+package com.skanga.service;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.model.SearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConvergenceMonitorTest {
+
+    private ResearchConfiguration.Convergence config;
+    private ConvergenceMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResearchConfiguration.Convergence();
+        config.setEnabled(true);
+        config.setMinGain(0.3);
+        config.setMinLoops(2);
+        monitor = new ConvergenceMonitor(config);
+        monitor.recordQueries(List.of("battery recycling methods"));
+    }
+
+    @Test
+    void measure_firstLoopIsAllNew() {
+        // When
+        double gain = monitor.measure(List.of(result("https://a.example/page")),
+                "Lithium batteries are recycled by smelting.", List.of("hydrometallurgical lithium recovery cost"));
+
+        // Then
+        assertEquals(1.0, gain, 1e-9);
+        assertFalse(monitor.hasConverged(1));
+    }
+
+    @Test
+    void measure_repeatedSourcesSummaryAndQueriesMeanConvergence() {
+        // Given
+        monitor.measure(List.of(result("https://a.example/page"), result("https://b.example")),
+                "Lithium batteries are recycled by smelting.", List.of("battery recycling cost"));
+
+        // When: same pages (one spelled differently), same summary, and the follow-up query repeats
+        double gain = monitor.measure(List.of(result("https://www.a.example/page/"), result("https://b.example")),
+                "Lithium batteries are recycled by smelting.", List.of("Battery recycling cost"));
+
+        // Then
+        assertEquals(0.0, gain, 1e-9);
+        assertTrue(monitor.hasConverged(2));
+        assertTrue(monitor.lastDetail().contains("new sources 0.00"));
+    }
+
+    @Test
+    void measure_partialGainCountsEachSignal() {
+        // Given
+        monitor.measure(List.of(result("https://a.example")), "alpha beta gamma delta", List.of("query one"));
+
+        // When: one new source of two, summary half rewritten, follow-up query entirely new
+        double gain = monitor.measure(List.of(result("https://a.example"), result("https://c.example")),
+                "alpha beta gamma epsilon", List.of("unrelated words here"));
+
+        // Then
+        double summaryChange = 1.0 - 3.0 / 5.0;
+        assertEquals((0.5 + summaryChange + 1.0) / 3, gain, 1e-9);
+        assertFalse(monitor.hasConverged(2));
+    }
+
+    @Test
+    void hasConverged_neverStopsWhenDisabledOrBeforeMinLoops() {
+        // Given
+        monitor.measure(List.of(), "summary", List.of("battery recycling methods"));
+        monitor.measure(List.of(), "summary", List.of("battery recycling methods"));
+
+        // Then
+        assertTrue(monitor.hasConverged(2));
+        assertFalse(monitor.hasConverged(1));
+        config.setEnabled(false);
+        assertFalse(monitor.hasConverged(2));
+    }
+
+    private static SearchResult result(String url) {
+        return new SearchResult("title", "content", url, 0.5);
+    }
+}
@@ -0,0 +1,51 @@
+package com.skanga.service;
+
+import com.skanga.model.ResearchEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResearchCoalescerTest {
+
+    private static final ResearchKey KEY = new ResearchKey("topic", 2, 3, "openai", "gpt-4o", "duckduckgo", false, "");
+
+    @Test
+    void join_replaysStartAndLatestEventToLateSubscribers() {
+        // Given: a run that has started and moved on to searching
+        ResearchCoalescer coalescer = new ResearchCoalescer();
+        AtomicReference<ResearchProgressListener> broadcast = new AtomicReference<>();
+        CompletableFuture<String> run = new CompletableFuture<>();
+        List<ResearchEvent.Type> leaderEvents = new CopyOnWriteArrayList<>();
+        coalescer.join(KEY, event -> leaderEvents.add(event.getType()), listener -> {
+            broadcast.set(listener);
+            return run;
+        });
+        broadcast.get().onEvent(event(ResearchEvent.Type.STARTED));
+        broadcast.get().onEvent(event(ResearchEvent.Type.QUERY_GENERATED));
+        broadcast.get().onEvent(event(ResearchEvent.Type.SEARCH_STARTED));
+
+        // When
+        List<ResearchEvent.Type> lateEvents = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> late = coalescer.join(KEY, event -> lateEvents.add(event.getType()),
+                listener -> CompletableFuture.failedFuture(new AssertionError("started a second run")));
+        broadcast.get().onEvent(event(ResearchEvent.Type.SEARCH_FINISHED));
+        run.complete("summary");
+
+        // Then
+        assertEquals(List.of(ResearchEvent.Type.STARTED, ResearchEvent.Type.SEARCH_STARTED,
+                ResearchEvent.Type.SEARCH_FINISHED), lateEvents);
+        assertEquals(4, leaderEvents.size());
+        assertEquals("summary", late.join());
+        assertEquals(1L, coalescer.getStats().get("coalesced"));
+    }
+
+    private static ResearchEvent event(ResearchEvent.Type type) {
+        return new ResearchEvent(type, Map.of());
+    }
+}
@@ -0,0 +1,120 @@
+package com.skanga.service;
+
+import com.skanga.model.ResearchEvent;
+import com.skanga.model.ResearchJob;
+import com.skanga.model.ResearchRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ResearchJobServiceTest {
+
+    @Mock
+    private ResearchService researchService;
+
+    private ResearchJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        jobService = new ResearchJobService(researchService, 2, Duration.ofHours(1));
+    }
+
+    @Test
+    void submit_tracksProgressAndResult() {
+        CompletableFuture<String> research = new CompletableFuture<>();
+        when(researchService.conductResearch(any(ResearchRequest.class), any())).thenAnswer(invocation -> {
+            ResearchProgressListener listener = invocation.getArgument(1);
+            listener.onEvent(new ResearchEvent(ResearchEvent.Type.STARTED, Map.of()));
+            listener.onEvent(new ResearchEvent(ResearchEvent.Type.SEARCH_STARTED, Map.of()));
+            return research;
+        });
+
+        ResearchJob job = jobService.submit("topic", null);
+        assertEquals(ResearchJob.Status.RUNNING, jobService.getJob(job.getId()).orElseThrow().getStatus());
+        assertEquals("search-started", job.getPhase());
+
+        research.complete("summary");
+
+        ResearchJob finished = jobService.getJob(job.getId()).orElseThrow();
+        assertEquals(ResearchJob.Status.COMPLETED, finished.getStatus());
+        assertEquals("summary", finished.getSummary());
+    }
+
+    @Test
+    void cancel_cancelsUnderlyingResearch() {
+        CompletableFuture<String> research = new CompletableFuture<>();
+        when(researchService.conductResearch(any(ResearchRequest.class), any())).thenReturn(research);
+
+        ResearchJob job = jobService.submit("topic", 1);
+        ResearchJob cancelled = jobService.cancel(job.getId()).orElseThrow();
+
+        assertTrue(research.isCancelled());
+        assertEquals(ResearchJob.Status.CANCELLED, cancelled.getStatus());
+        assertTrue(jobService.cancel("unknown").isEmpty());
+    }
+
+    @Test
+    void submit_failedResearchIsReported() {
+        when(researchService.conductResearch(any(ResearchRequest.class), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("boom")));
+
+        ResearchJob job = jobService.submit("topic", null);
+
+        assertEquals(ResearchJob.Status.FAILED, job.getStatus());
+        assertEquals("boom", job.getError());
+    }
+
+    @Test
+    void submit_rejectedResearchIsNotStored() {
+        when(researchService.conductResearch(any(ResearchRequest.class), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("full")));
+
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit("topic", null));
+        assertEquals(0, jobService.getStats().get("stored"));
+    }
+
+    @Test
+    void submit_evictsOldestFinishedJobWhenFull() {
+        CompletableFuture<String> running = new CompletableFuture<>();
+        when(researchService.conductResearch(any(ResearchRequest.class), any()))
+                .thenReturn(CompletableFuture.completedFuture("done"))
+                .thenReturn(running)
+                .thenReturn(new CompletableFuture<>())
+                .thenReturn(new CompletableFuture<>());
+
+        ResearchJob finished = jobService.submit("first", null);
+        ResearchJob active = jobService.submit("second", null);
+        ResearchJob third = jobService.submit("third", null);
+
+        assertTrue(jobService.getJob(finished.getId()).isEmpty());
+        assertTrue(jobService.getJob(active.getId()).isPresent());
+        assertTrue(jobService.getJob(third.getId()).isPresent());
+        // Both remaining jobs are still running, so there is nothing left to evict
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit("fourth", null));
+    }
+
+    @Test
+    void getJob_expiredJobsAreEvicted() {
+        jobService = new ResearchJobService(researchService, 10, Duration.ZERO);
+        when(researchService.conductResearch(any(ResearchRequest.class), any()))
+                .thenReturn(CompletableFuture.completedFuture("done"));
+
+        ResearchJob job = jobService.submit("topic", null);
+
+        assertTrue(jobService.getJob(job.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+package com.skanga.service;
+
+import com.skanga.config.ResearchConfiguration;
+import com.skanga.llm.ChatModelFactory;
+import com.skanga.llm.LlmRole;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResearchResultCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void put_persistsReportsAcrossInstances() {
+        // Given
+        ResearchKey key = key("Quantum Computing");
+        new ResearchResultCache(true, cacheDir, Duration.ofHours(1), 10).put(key, "summary");
+
+        // When
+        ResearchResultCache reloaded = new ResearchResultCache(true, cacheDir, Duration.ofHours(1), 10);
+
+        // Then
+        assertEquals(Optional.of("summary"), reloaded.get(key("  quantum   computing")));
+        assertEquals(1L, reloaded.getStats().get("hits"));
+    }
+
+    @Test
+    void get_expiresEntriesOlderThanTtl() {
+        // Given
+        ResearchResultCache cache = new ResearchResultCache(true, cacheDir, Duration.ZERO, 10);
+        cache.put(key("topic"), "summary");
+
+        // When
+        Optional<String> result = cache.get(key("topic"));
+
+        // Then
+        assertTrue(result.isEmpty());
+        assertEquals(0, cache.getStats().get("size"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedBeyondMaxEntries() throws Exception {
+        // Given
+        ResearchResultCache cache = new ResearchResultCache(true, cacheDir, Duration.ofHours(1), 2);
+        cache.put(key("first"), "one");
+        cache.put(key("second"), "two");
+        cache.get(key("first"));
+
+        // When
+        cache.put(key("third"), "three");
+
+        // Then
+        assertTrue(cache.get(key("second")).isEmpty());
+        assertEquals(Optional.of("one"), cache.get(key("first")));
+        assertEquals(Optional.of("three"), cache.get(key("third")));
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void get_returnsNothingWhenDisabled() {
+        // Given
+        ResearchResultCache cache = new ResearchResultCache(false, cacheDir, Duration.ofHours(1), 10);
+
+        // When
+        cache.put(key("topic"), "summary");
+
+        // Then
+        assertTrue(cache.get(key("topic")).isEmpty());
+    }
+
+    @Test
+    void get_missesOnceARoleModelChanges() {
+        // Given
+        ResearchConfiguration config = new ResearchConfiguration();
+        ChatModelFactory.ModelSettings large = new ChatModelFactory.ModelSettings("openai", "gpt-4o",
+                "https://api.openai.com/v1", "key", null, null);
+        ChatModelFactory.ModelSettings small = new ChatModelFactory.ModelSettings("openai", "gpt-4o-mini",
+                "https://api.openai.com/v1", "other-key", null, null);
+        ResearchKey before = ResearchKey.of("topic", 3, config,
+                Map.of(LlmRole.QUERY_GENERATOR, small, LlmRole.SUMMARIZER, large, LlmRole.REFLECTION, small));
+        ResearchResultCache cache = new ResearchResultCache(true, cacheDir, Duration.ofHours(1), 10);
+        cache.put(before, "summary");
+
+        // When
+        ResearchKey after = ResearchKey.of("topic", 3, config,
+                Map.of(LlmRole.QUERY_GENERATOR, small, LlmRole.SUMMARIZER, small, LlmRole.REFLECTION, small));
+
+        // Then
+        assertNotEquals(before.digest(), after.digest());
+        assertTrue(cache.get(after).isEmpty());
+        assertFalse(before.roleModels().contains("other-key"));
+    }
+
+    private static ResearchKey key(String topic) {
+        return new ResearchKey(ResearchKey.normalizeTopic(topic), 3, 1, "openai", "gpt-4o", "duckduckgo", false, "");
+    }
+}
@@ -2,7 +2,12 @@ package com.skanga.service;
 
 import com.skanga.config.ResearchConfiguration;
 import com.skanga.model.FollowUpQuery;
+import com.skanga.model.FollowUpQueryList;
+import com.skanga.model.ResearchEvent;
+import com.skanga.model.ResearchMetadata;
+import com.skanga.model.ResearchRequest;
 import com.skanga.model.SearchQuery;
+import com.skanga.model.SearchQueryList;
 import com.skanga.model.SearchResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,15 +15,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +64,8 @@ class ResearchServiceTest {
         researchService = new ResearchService(
                 searchService,
                 researchConfiguration,
+                new ResearchExecutor("virtual", 2, 10),
+                new ResearchResultCache(false, null, Duration.ofHours(1), 10),
                 queryGeneratorService,
                 summarizerService,
                 reflectionService
@@ -110,5 +130,343 @@ class ResearchServiceTest {
         // Then
         assertNotNull(result);
         assertTrue(result.contains("final summary"));
+        assertTrue(result.contains("Stop Reason: maxLoops"));
+    }
+
+    @Test
+    void conductResearch_stopsEarlyOnceLoopsStopAddingInformation() throws Exception {
+        // Given
+        SearchQuery initialQuery = new SearchQuery();
+        initialQuery.setQuery("initial query");
+        FollowUpQuery followUpQuery = new FollowUpQuery();
+        followUpQuery.setFollowUpQuery("follow-up query");
+        ResearchConfiguration.Convergence convergence = new ResearchConfiguration.Convergence();
+        convergence.setEnabled(true);
+        convergence.setMinGain(0.3);
+        convergence.setMinLoops(2);
+        List<ResearchEvent> events = new CopyOnWriteArrayList<>();
+
+        when(researchConfiguration.getMaxWebResearchLoops()).thenReturn(5);
+        when(researchConfiguration.getLlmProvider()).thenReturn("test-provider");
+        when(researchConfiguration.getModelName()).thenReturn("test-model");
+        when(researchConfiguration.getConvergence()).thenReturn(convergence);
+        when(queryGeneratorService.generateQuery(anyString(), anyString())).thenReturn(initialQuery);
+        when(searchService.search(anyString(), any())).thenReturn(List.of(new SearchResult("title", "content", "https://a.example", 0.8)));
+        when(searchService.formatResults(any(), anyInt())).thenReturn("formatted results");
+        when(searchService.formatSources(any())).thenReturn(Collections.singletonList("formatted sources"));
+        when(summarizerService.summarize(anyString(), anyString(), anyString())).thenReturn("the same summary every loop");
+        when(reflectionService.generateFollowUpQuery(anyString(), anyString())).thenReturn(followUpQuery);
+
+        // When
+        String result = researchService.conductResearch("topic", null, events::add).get(5, TimeUnit.SECONDS);
+
+        // Then
+        verify(searchService, times(2)).search(anyString(), any());
+        ResearchMetadata metadata = (ResearchMetadata) events.getLast().getData().get("metadata");
+        assertEquals(ResearchMetadata.STOP_CONVERGED, metadata.getStopReason());
+        assertEquals(2, metadata.getLoopCount());
+        assertEquals(2, metadata.getInformationGain().size());
+        assertTrue(metadata.getInformationGain().get(0) > 0.5);
+        assertEquals(0.0, metadata.getInformationGain().get(1), 1e-9);
+        assertTrue(result.contains("Stop Reason: converged"));
+    }
+
+    @Test
+    void conductResearch_breadthRunsQueriesInParallelAndMergesResults() throws ExecutionException, InterruptedException {
+        // Given
+        String researchTopic = "broad topic";
+        SearchQuery first = new SearchQuery();
+        first.setQuery("first query");
+        SearchQuery second = new SearchQuery();
+        second.setQuery("second query");
+        SearchQuery duplicate = new SearchQuery();
+        duplicate.setQuery("First Query");
+        SearchQueryList queries = new SearchQueryList();
+        queries.setQueries(List.of(first, duplicate, second));
+
+        FollowUpQuery gapOne = new FollowUpQuery();
+        gapOne.setFollowUpQuery("gap one");
+        FollowUpQuery gapTwo = new FollowUpQuery();
+        gapTwo.setFollowUpQuery("gap two");
+        FollowUpQueryList followUps = new FollowUpQueryList();
+        followUps.setFollowUpQueries(List.of(gapOne, gapTwo));
+
+        SearchResult shared = new SearchResult("shared", "content", "http://shared", 0.8);
+        SearchResult unique = new SearchResult("unique", "content", "http://unique", 0.7);
+
+        when(researchConfiguration.getMaxWebResearchLoops()).thenReturn(2);
+        when(researchConfiguration.getSearchBreadth()).thenReturn(2);
+        when(researchConfiguration.getLlmProvider()).thenReturn("test-provider");
+        when(researchConfiguration.getModelName()).thenReturn("test-model");
+        when(queryGeneratorService.generateQueries(anyString(), anyString(), eq(2))).thenReturn(queries);
+        when(reflectionService.generateFollowUpQueries(anyString(), anyString(), eq(2))).thenReturn(followUps);
+        when(searchService.search(eq("first query"), any())).thenReturn(List.of(shared));
+        when(searchService.search(eq("second query"), any())).thenReturn(List.of(shared, unique));
+        when(searchService.search(eq("gap one"), any())).thenReturn(List.of(unique));
+        when(searchService.search(eq("gap two"), any())).thenReturn(List.of(shared));
+        when(searchService.formatResults(any(), anyInt())).thenReturn("formatted results");
+        when(searchService.formatSources(any())).thenReturn(Collections.singletonList("formatted sources"));
+        when(summarizerService.summarize(anyString(), anyString(), anyString())).thenReturn("final summary");
+
+        // When
+        String result = researchService.conductResearch(researchTopic).get();
+
+        // Then
+        assertTrue(result.contains("final summary"));
+        assertTrue(result.contains("Search Call Count: 4"));
+        verify(searchService).search(eq("first query"), any());
+        verify(searchService).search(eq("second query"), any());
+        verify(searchService).formatResults(eq(List.of(shared, unique)), anyInt());
+        verify(summarizerService, times(2)).summarize(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void conductResearch_emitsProgressEventsForEachPhase() throws ExecutionException, InterruptedException {
+        // Given
+        SearchQuery initialQuery = new SearchQuery();
+        initialQuery.setQuery("initial query");
+        FollowUpQuery followUpQuery = new FollowUpQuery();
+        followUpQuery.setFollowUpQuery("follow-up query");
+        followUpQuery.setKnowledgeGap("knowledge gap");
+
+        when(researchConfiguration.getMaxWebResearchLoops()).thenReturn(2);
+        when(researchConfiguration.getLlmProvider()).thenReturn("test-provider");
+        when(researchConfiguration.getModelName()).thenReturn("test-model");
+        when(queryGeneratorService.generateQuery(anyString(), anyString())).thenReturn(initialQuery);
+        when(reflectionService.generateFollowUpQuery(anyString(), anyString())).thenReturn(followUpQuery);
+        when(searchService.search(anyString(), any())).thenReturn(Collections.singletonList(new SearchResult("title", "content", "url", 0.8)));
+        when(searchService.formatResults(any(), anyInt())).thenReturn("formatted results");
+        when(searchService.formatSources(any())).thenReturn(Collections.singletonList("formatted sources"));
+        when(summarizerService.summarize(anyString(), anyString(), anyString())).thenReturn("summary");
+        List<ResearchEvent> events = new CopyOnWriteArrayList<>();
+
+        // When
+        String result = researchService.conductResearch("topic", null, events::add).get();
+
+        // Then
+        List<ResearchEvent.Type> types = events.stream().map(ResearchEvent::getType).toList();
+        assertEquals(List.of(
+                ResearchEvent.Type.STARTED,
+                ResearchEvent.Type.QUERY_GENERATED,
+                ResearchEvent.Type.SEARCH_STARTED,
+                ResearchEvent.Type.SEARCH_FINISHED,
+                ResearchEvent.Type.SOURCES_FOUND,
+                ResearchEvent.Type.SUMMARY_UPDATED,
+                ResearchEvent.Type.REFLECTION_GAP,
+                ResearchEvent.Type.SEARCH_STARTED,
+                ResearchEvent.Type.SEARCH_FINISHED,
+                ResearchEvent.Type.SOURCES_FOUND,
+                ResearchEvent.Type.SUMMARY_UPDATED,
+                ResearchEvent.Type.DONE), types);
+        assertEquals("knowledge gap", events.get(6).getData().get("knowledgeGap"));
+        assertEquals(1, events.get(3).getData().get("resultCount"));
+        assertEquals(result, events.getLast().getData().get("summary"));
+    }
+
+    @Test
+    void conductResearch_cancelInterruptsInFlightSearch() throws InterruptedException {
+        // Given
+        SearchQuery initialQuery = new SearchQuery();
+        initialQuery.setQuery("initial query");
+        CountDownLatch searchStarted = new CountDownLatch(1);
+        CountDownLatch searchInterrupted = new CountDownLatch(1);
+
+        when(researchConfiguration.getMaxWebResearchLoops()).thenReturn(3);
+        when(researchConfiguration.getLlmProvider()).thenReturn("test-provider");
+        when(researchConfiguration.getModelName()).thenReturn("test-model");
+        when(queryGeneratorService.generateQuery(anyString(), anyString())).thenReturn(initialQuery);
+        when(searchService.search(anyString(), any())).thenAnswer(invocation -> {
+            searchStarted.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                searchInterrupted.countDown();
+                throw e;
+            }
+            return List.of();
+        });
+
+        // When
+        CompletableFuture<String> future = researchService.conductResearch("topic");
+        assertTrue(searchStarted.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+
+        // Then
+        assertTrue(searchInterrupted.await(5, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, future::get);
+        verify(summarizerService, never()).summarize(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void conductResearch_coalescesIdenticalConcurrentRequests() throws Exception {
+        // Given
+        SearchQuery initialQuery = new SearchQuery();
+        initialQuery.setQuery("initial query");
+        CountDownLatch searchStarted = new CountDownLatch(1);
+        CountDownLatch releaseSearch = new CountDownLatch(1);
+
+        when(researchConfiguration.getMaxWebResearchLoops()).thenReturn(1);
+        when(researchConfiguration.getLlmProvider()).thenReturn("test-provider");
+        when(researchConfiguration.getModelName()).thenReturn("test-model");
+        when(queryGeneratorService.generateQuery(anyString(), anyString())).thenReturn(initialQuery);
+        when(searchService.search(anyString(), any())).thenAnswer(invocation -> {
+            searchStarted.countDown();
+            releaseSearch.await(5, TimeUnit.SECONDS);
+            return Collections.singletonList(new SearchResult("title", "content", "url", 0.8));
+        });
+        when(searchService.formatResults(any(), anyInt())).thenReturn("formatted results");
+        when(searchService.formatSources(any())).thenReturn(Collections.singletonList("formatted sources"));
+        when(summarizerService.summarize(anyString(), anyString(), anyString())).thenReturn("shared summary");
+
+        // When
+        CompletableFuture<String> first = researchService.conductResearch("Shared Topic");
+        assertTrue(searchStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = researchService.conductResearch("  shared   topic ");
+        CompletableFuture<String> third = researchService.conductResearch("shared topic");
+        third.cancel(true);
+        releaseSearch.countDown();
+
+        // Then
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertTrue(first.get().contains("shared summary"));
+        verify(queryGeneratorService, times(1)).generateQuery(anyString(), anyString());
+        verify(summarizerService, times(1)).summarize(anyString(), anyString(), anyString());
+        assertEquals(3L, researchService.getCoalescingStats().get("requests"));
+        assertEquals(2L, researchService.getCoalescingStats().get("coalesced"));
+    }
+
+    @Test
+    void conductResearch_servesRepeatedTopicFromCacheUnlessBypassed() throws Exception {
+        // Given
+        researchService = new ResearchService(searchService, researchConfiguration,
+                new ResearchExecutor("virtual", 2, 10),
+                new ResearchResultCache(true, null, Duration.ofHours(1), 10),
+                queryGeneratorService, summarizerService, reflectionService);
+        SearchQuery initialQuery = new SearchQuery();
+        initialQuery.setQuery("initial query");
+
+        when(researchConfiguration.getMaxWebResearchLoops()).thenReturn(1);
+        when(researchConfiguration.getLlmProvider()).thenReturn("test-provider");
+        when(researchConfiguration.getModelName()).thenReturn("test-model");
+        when(queryGeneratorService.generateQuery(anyString(), anyString())).thenReturn(initialQuery);
+        when(searchService.search(anyString(), any()))
+                .thenReturn(Collections.singletonList(new SearchResult("title", "content", "url", 0.8)));
+        when(searchService.formatResults(any(), anyInt())).thenReturn("formatted results");
+        when(searchService.formatSources(any())).thenReturn(Collections.singletonList("formatted sources"));
+        when(summarizerService.summarize(anyString(), anyString(), anyString())).thenReturn("cached summary");
+
+        // When
+        String first = researchService.conductResearch("Cached Topic").get(5, TimeUnit.SECONDS);
+        List<ResearchEvent> events = new CopyOnWriteArrayList<>();
+        String second = researchService.conductResearch(new ResearchRequest(" cached topic", null), events::add)
+                .get(5, TimeUnit.SECONDS);
+        ResearchRequest bypass = new ResearchRequest("cached topic", null);
+        bypass.setBypassCache(true);
+        researchService.conductResearch(bypass).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(first, second);
+        assertEquals(1, events.size());
+        assertEquals(ResearchEvent.Type.DONE, events.get(0).getType());
+        assertEquals(true, events.get(0).getData().get("cached"));
+        verify(summarizerService, times(2)).summarize(anyString(), anyString(), anyString());
+        assertEquals(1L, researchService.getCacheStats().get("hits"));
+    }
+
+    @Test
+    void conductResearch_returnsPartialSummaryWhenDeadlineIsReached() throws Exception {
+        // Given
+        SearchQuery initialQuery = new SearchQuery();
+        initialQuery.setQuery("initial query");
+        FollowUpQuery followUpQuery = new FollowUpQuery();
+        followUpQuery.setFollowUpQuery("slow query");
+        CountDownLatch slowSearchInterrupted = new CountDownLatch(1);
+
+        when(researchConfiguration.getMaxWebResearchLoops()).thenReturn(3);
+        when(researchConfiguration.getLlmProvider()).thenReturn("test-provider");
+        when(researchConfiguration.getModelName()).thenReturn("test-model");
+        when(queryGeneratorService.generateQuery(anyString(), anyString())).thenReturn(initialQuery);
+        when(searchService.search(eq("initial query"), any()))
+                .thenReturn(Collections.singletonList(new SearchResult("title", "content", "url", 0.8)));
+        when(searchService.search(eq("slow query"), any())).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                slowSearchInterrupted.countDown();
+                throw e;
+            }
+            return Collections.emptyList();
+        });
+        when(searchService.formatResults(any(), anyInt())).thenReturn("formatted results");
+        when(searchService.formatSources(any())).thenReturn(Collections.singletonList("formatted sources"));
+        when(summarizerService.summarize(anyString(), anyString(), anyString())).thenReturn("first loop summary");
+        when(reflectionService.generateFollowUpQuery(anyString(), anyString())).thenReturn(followUpQuery);
+        ResearchRequest request = new ResearchRequest("topic", null);
+        request.setDeadlineMs(500L);
+        List<ResearchEvent> events = new CopyOnWriteArrayList<>();
+
+        // When
+        long start = System.nanoTime();
+        String result = researchService.conductResearch(request, events::add).get(5, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(elapsedMs < 3_000);
+        assertTrue(slowSearchInterrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(result.contains("first loop summary"));
+        assertTrue(result.contains("Partial Result"));
+        ResearchMetadata metadata = (ResearchMetadata) events.getLast().getData().get("metadata");
+        assertTrue(metadata.isPartial());
+        assertEquals(1, metadata.getLoopCount());
+        assertNotNull(metadata.getRemainingBudgetMs());
+    }
+
+    @Test
+    void conductResearch_mapReduceCondensesSourcesConcurrentlyThenMergesTheNotes() throws Exception {
+        // Given
+        SearchQuery initialQuery = new SearchQuery();
+        initialQuery.setQuery("initial query");
+        ResearchConfiguration.Summarization summarization = new ResearchConfiguration.Summarization();
+        summarization.setMode(ResearchConfiguration.Summarization.MAP_REDUCE);
+        summarization.setFanOut(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+
+        when(researchConfiguration.getMaxWebResearchLoops()).thenReturn(1);
+        when(researchConfiguration.getLlmProvider()).thenReturn("test-provider");
+        when(researchConfiguration.getModelName()).thenReturn("test-model");
+        when(researchConfiguration.getSummarization()).thenReturn(summarization);
+        when(queryGeneratorService.generateQuery(anyString(), anyString())).thenReturn(initialQuery);
+        when(searchService.search(anyString(), any())).thenReturn(List.of(new SearchResult("title", "content", "url", 0.8)));
+        when(searchService.formatResults(any(), anyInt())).thenReturn("formatted results");
+        when(searchService.formatSources(any())).thenReturn(Collections.singletonList("formatted sources"));
+        when(searchService.formatSourceChunks(any(), anyInt(), anyInt())).thenReturn(List.of("one", "two", "three", "four"));
+        when(summarizerService.condense(anyString(), eq("topic"))).thenAnswer(invocation -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return "notes on " + invocation.getArgument(0);
+        });
+        when(summarizerService.summarize(anyString(), anyString(), anyString())).thenReturn("merged summary");
+        List<ResearchEvent> events = new CopyOnWriteArrayList<>();
+
+        // When
+        String result = researchService.conductResearch("topic", null, events::add).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertTrue(result.contains("merged summary"));
+        assertEquals(2, mostRunning.get());
+        verify(summarizerService).summarize("",
+                "notes on one\n\n---\n\nnotes on two\n\n---\n\nnotes on three\n\n---\n\nnotes on four", "topic");
+        ResearchMetadata metadata = (ResearchMetadata) events.getLast().getData().get("metadata");
+        assertEquals(6, metadata.getLlmCallCount());
+        assertEquals(1, metadata.getLlmCallsByRole().get("queryGenerator").getCalls());
+        assertEquals(5, metadata.getLlmCallsByRole().get("summarizer").getCalls());
+        assertTrue(metadata.getLlmCallsByRole().get("summarizer").getMaxLatencyMs() >= 50);
+        assertTrue(result.contains("LLM Calls By Role: queryGenerator 1 calls"));
+        assertTrue(metadata.getStageTimings().get("summarizeMap") >= 100);
+        assertTrue(metadata.getStageTimings().containsKey("summarizeReduce"));
+        assertTrue(metadata.getStageTimings().containsKey("webResearch"));
+        assertTrue(result.contains("Stage Timings: queryGeneration"));
     }
 }
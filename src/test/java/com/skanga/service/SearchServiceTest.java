@@ -2,21 +2,34 @@ package com.skanga.service;
 
 import com.skanga.config.ResearchConfiguration;
 import com.skanga.model.SearchResult;
+import com.skanga.search.SearchProviders;
+import com.skanga.util.WebContentFetcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,7 +57,8 @@ class SearchServiceTest {
         String jsonResponse = "{\"AbstractText\":\"Test abstract\",\"AbstractURL\":\"http://example.com\"}";
         when(httpResponse.statusCode()).thenReturn(200);
         when(httpResponse.body()).thenReturn(jsonResponse);
-        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(httpResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse));
 
         // When
         List<SearchResult> results = searchService.search("test query", config);
@@ -56,24 +70,36 @@ class SearchServiceTest {
         assertEquals("Test abstract", results.get(0).getContent());
     }
 
+    @Test
+    void constructor_countsTokensWithTheSummarizerModel() {
+        // Given
+        ResearchConfiguration config = new ResearchConfiguration();
+        config.setLlmProvider("ollama");
+        config.setModelName("llama3");
+        config.getModels().getSummarizer().setProvider("openai");
+        config.getModels().getSummarizer().setModelName("gpt-4o");
+
+        // When
+        searchService = new SearchService(config, new SearchProviders(httpClient, config), new WebContentFetcher(httpClient));
+
+        // Then
+        assertEquals("o200k_base", searchService.getTokenCounterName());
+    }
+
     @Test
     void search_tavily_success() throws IOException, InterruptedException {
         // Given
         ResearchConfiguration config = new ResearchConfiguration();
         config.setSearchApi("tavily");
-        // Use reflection to set the private API key field
-        try {
-            java.lang.reflect.Field apiKeyField = SearchService.class.getDeclaredField("tavilyApiKey");
-            apiKeyField.setAccessible(true);
-            apiKeyField.set(searchService, "test_api_key");
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            e.printStackTrace();
-        }
+        config.setTavilyApiKey("test_api_key");
+        searchService = new SearchService(new SearchProviders(httpClient, config),
+                new ResearchConfiguration.SearchCache(), new WebContentFetcher(httpClient));
 
         String jsonResponse = "{\"answer\":\"Tavily answer\", \"results\":[{\"title\":\"Tavily result\",\"url\":\"http://example.com\",\"content\":\"Result content\",\"score\":0.9}]}";
         when(httpResponse.statusCode()).thenReturn(200);
         when(httpResponse.body()).thenReturn(jsonResponse);
-        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(httpResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse));
 
         // When
         List<SearchResult> results = searchService.search("test query", config);
@@ -89,19 +115,15 @@ class SearchServiceTest {
         // Given
         ResearchConfiguration config = new ResearchConfiguration();
         config.setSearchApi("perplexity");
-        // Use reflection to set the private API key field
-        try {
-            java.lang.reflect.Field apiKeyField = SearchService.class.getDeclaredField("perplexityApiKey");
-            apiKeyField.setAccessible(true);
-            apiKeyField.set(searchService, "test_api_key");
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            e.printStackTrace();
-        }
+        config.setPerplexityApiKey("test_api_key");
+        searchService = new SearchService(new SearchProviders(httpClient, config),
+                new ResearchConfiguration.SearchCache(), new WebContentFetcher(httpClient));
 
         String jsonResponse = "{\"choices\":[{\"message\":{\"content\":\"Perplexity answer\"}}]}";
         when(httpResponse.statusCode()).thenReturn(200);
         when(httpResponse.body()).thenReturn(jsonResponse);
-        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(httpResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse));
 
         // When
         List<SearchResult> results = searchService.search("test query", config);
@@ -118,9 +140,13 @@ class SearchServiceTest {
         ResearchConfiguration config = new ResearchConfiguration();
         config.setSearchApi("tavily"); // Tavily will fail
 
-        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
-                .thenThrow(new IOException("Tavily failed")) // First call fails
-                .thenReturn(httpResponse); // Second call (fallback) succeeds
+        config.setTavilyApiKey("test_api_key");
+        searchService = new SearchService(new SearchProviders(httpClient, config),
+                new ResearchConfiguration.SearchCache(), new WebContentFetcher(httpClient));
+
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("Tavily failed"))) // First call fails
+                .thenReturn(CompletableFuture.completedFuture(httpResponse)); // Second call (fallback) succeeds
 
         String ddgJsonResponse = "{\"AbstractText\":\"DDG fallback abstract\",\"AbstractURL\":\"http://fallback.com\"}";
         when(httpResponse.statusCode()).thenReturn(200);
@@ -134,4 +160,114 @@ class SearchServiceTest {
         assertEquals(1, results.size());
         assertEquals("DuckDuckGo Instant Answer: test query", results.get(0).getTitle());
     }
+
+    @Test
+    void search_repeatedQueryIsServedFromCache() throws IOException, InterruptedException {
+        // Given
+        ResearchConfiguration config = new ResearchConfiguration();
+        config.setSearchApi("duckduckgo");
+
+        String jsonResponse = "{\"AbstractText\":\"Test abstract\",\"AbstractURL\":\"http://example.com\"}";
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(jsonResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse));
+
+        // When
+        List<SearchResult> first = searchService.search("Test Query", config);
+        List<SearchResult> second = searchService.search("  test   query ", config);
+
+        // Then
+        assertEquals(first.get(0).getContent(), second.get(0).getContent());
+        verify(httpClient, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertEquals(1L, searchService.getCacheStats().get("hits"));
+        assertEquals(0.5, searchService.getCacheStats().get("hitRate"));
+    }
+
+    @Test
+    void search_doesNotCacheWhenDisabled() throws IOException, InterruptedException {
+        // Given
+        ResearchConfiguration.SearchCache cacheConfig = new ResearchConfiguration.SearchCache();
+        cacheConfig.setEnabled(false);
+        searchService = new SearchService(httpClient, cacheConfig);
+        ResearchConfiguration config = new ResearchConfiguration();
+        config.setSearchApi("duckduckgo");
+
+        String jsonResponse = "{\"AbstractText\":\"Test abstract\",\"AbstractURL\":\"http://example.com\"}";
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(jsonResponse);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse));
+
+        // When
+        searchService.search("test query", config);
+        searchService.search("test query", config);
+
+        // Then
+        verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertFalse((Boolean) searchService.getCacheStats().get("enabled"));
+    }
+
+    @Test
+    void searchCacheConfig_usesShortestTtlForPerplexity() {
+        ResearchConfiguration.SearchCache cacheConfig = new ResearchConfiguration.SearchCache();
+
+        assertTrue(cacheConfig.ttlFor("perplexity").compareTo(cacheConfig.ttlFor("duckduckgo")) < 0);
+        assertEquals(cacheConfig.getDefaultTtl(), cacheConfig.ttlFor("searxng"));
+    }
+
+    @Test
+    void search_fetchFullPageFillsRawContentWithoutTouchingCachedResults() throws IOException, InterruptedException {
+        // Given
+        ResearchConfiguration config = new ResearchConfiguration();
+        config.setSearchApi("duckduckgo");
+        config.setFetchFullPage(true);
+
+        String jsonResponse = "{\"AbstractText\":\"Test abstract\",\"AbstractURL\":\"http://example.com\"}";
+        when(httpResponse.statusCode()).thenReturn(200);
+        when(httpResponse.body()).thenReturn(jsonResponse);
+        when(httpClient.sendAsync(argThat(request -> request != null
+                        && request.uri().getHost().equals("api.duckduckgo.com")),
+                any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(httpResponse));
+        @SuppressWarnings("unchecked")
+        HttpResponse<InputStream> pageResponse = mock(HttpResponse.class);
+        when(pageResponse.statusCode()).thenReturn(200);
+        when(pageResponse.body()).thenReturn(new ByteArrayInputStream(
+                "<html><body><article><p>Full page</p></article></body></html>".getBytes(StandardCharsets.UTF_8)));
+        when(pageResponse.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(httpClient.sendAsync(argThat(request -> request != null
+                        && request.uri().getHost().equals("example.com")),
+                any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(pageResponse));
+
+        // When
+        List<SearchResult> results = searchService.search("test query", config);
+        config.setFetchFullPage(false);
+        List<SearchResult> cached = searchService.search("test query", config);
+
+        // Then
+        assertEquals("Full page", results.get(0).getRawContent());
+        assertTrue(searchService.formatResults(results, 100).contains("Content: Full page"));
+        assertEquals(null, cached.get(0).getRawContent());
+    }
+
+    @Test
+    void formatSourceChunks_splitsLongSourcesIntoLabelledParts() {
+        // Given
+        SearchResult longPage = new SearchResult("Long", "snippet", "https://long.example", 0.9);
+        longPage.setRawContent("Retrieval augmented generation grounds answers in sources. ".repeat(40));
+        SearchResult shortPage = new SearchResult("Short", "A short snippet.", "https://short.example", 0.9);
+
+        // When
+        List<String> chunks = searchService.formatSourceChunks(List.of(longPage, shortPage), 1000, 100);
+
+        // Then
+        assertTrue(chunks.size() > 3, "expected the long page in parts, got " + chunks.size());
+        assertTrue(chunks.get(0).startsWith("Title: Long\nURL: https://long.example\nContent (part 1 of "));
+        assertTrue(chunks.get(0).contains("Retrieval augmented generation"));
+        assertEquals("Title: Short\nURL: https://short.example\nContent: A short snippet.\nScore: 0.90\n---\n",
+                chunks.getLast());
+        assertEquals(String.join("", chunks.subList(0, chunks.size() - 1)).split("Retrieval").length - 1, 40);
+    }
 }
@@ -0,0 +1,70 @@
+package com.skanga.token;
+
+import com.skanga.model.SearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextPackerTest {
+
+    private final ContextPacker packer = new ContextPacker(TokenCounters.approximate());
+
+    @Test
+    void allocate_sharesTheBudgetByWeight() {
+        // When
+        int[] allocated = ContextPacker.allocate(new int[]{1000, 1000}, new double[]{0.75, 0.25}, 400);
+
+        // Then
+        assertArrayEquals(new int[]{300, 100}, allocated);
+    }
+
+    @Test
+    void allocate_givesUnusedSharesToSourcesThatNeedMore() {
+        // When
+        int[] allocated = ContextPacker.allocate(new int[]{20, 1000, 1000}, new double[]{1.0, 1.0, 1.0}, 620);
+
+        // Then
+        assertArrayEquals(new int[]{20, 300, 300}, allocated);
+    }
+
+    @Test
+    void pack_cutsLowRelevancePagesFirstAndKeepsOrder() {
+        // Given
+        String page = "Relevant findings about retrieval augmented generation. ".repeat(100);
+        SearchResult short1 = new SearchResult("Short", "A short snippet.", "https://short.example", 0.9);
+        SearchResult strong = new SearchResult("Strong", "snippet", "https://strong.example", 0.9);
+        strong.setRawContent(page);
+        SearchResult weak = new SearchResult("Weak", "snippet", "https://weak.example", 0.3);
+        weak.setRawContent(page);
+
+        // When
+        List<ContextPacker.PackedSource> packed = packer.pack(List.of(short1, strong, weak), 300);
+
+        // Then
+        assertEquals(List.of("Short", "Strong", "Weak"), packed.stream().map(source -> source.result().getTitle()).toList());
+        assertFalse(packed.get(0).truncated());
+        assertEquals("A short snippet.", packed.get(0).content());
+        assertTrue(packed.get(1).truncated());
+        assertTrue(packed.get(1).tokens() > 2 * packed.get(2).tokens(),
+                packed.get(1).tokens() + " vs " + packed.get(2).tokens());
+        assertTrue(packed.stream().mapToInt(ContextPacker.PackedSource::tokens).sum() <= 300);
+    }
+
+    @Test
+    void pack_keepsEverythingThatFits() {
+        // Given
+        SearchResult result = new SearchResult("Title", "Complete snippet", "https://example.com", 0.0);
+
+        // When
+        ContextPacker.PackedSource packed = packer.pack(List.of(result), 1000).getFirst();
+
+        // Then
+        assertEquals("Complete snippet", packed.content());
+        assertFalse(packed.truncated());
+    }
+}
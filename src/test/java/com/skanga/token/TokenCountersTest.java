@@ -0,0 +1,94 @@
+package com.skanga.token;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import com.skanga.util.HtmlTextExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenCountersTest {
+
+    private final TokenCounter cl100k = new BpeTokenCounter(EncodingType.CL100K_BASE);
+    private final TokenCounter approximate = TokenCounters.approximate();
+
+    @Test
+    void forModel_usesBpeForOpenAiModelsAndTheEstimateOtherwise() {
+        // When / Then
+        assertEquals("o200k_base", TokenCounters.forModel("auto", "openai", "gpt-4o-mini").name());
+        assertEquals("cl100k_base", TokenCounters.forModel("auto", "openrouter", "openai/gpt-4").name());
+        assertEquals("o200k_base", TokenCounters.forModel("auto", "openai", "some-future-model").name());
+        assertSame(approximate, TokenCounters.forModel("auto", "ollama", "llama3.2"));
+        assertEquals("cl100k_base", TokenCounters.forModel("cl100k_base", "ollama", "llama3.2").name());
+        assertSame(approximate, TokenCounters.forModel("approximate", "openai", "gpt-4o"));
+        assertSame(approximate, TokenCounters.forModel("no-such-vocabulary", "ollama", "llama3.2"));
+    }
+
+    @Test
+    void bpe_countsSpecialTokensAsPlainText() {
+        // When
+        int tokens = cl100k.count("page text <|endoftext|> more");
+
+        // Then
+        assertTrue(tokens > 5);
+    }
+
+    @Test
+    void truncate_keepsThePrefixThatFits() {
+        // Given
+        String text = "Retrieval augmented generation combines search with language models. ".repeat(20);
+
+        // When / Then
+        for (TokenCounter counter : new TokenCounter[]{cl100k, approximate}) {
+            String cut = counter.truncate(text, 50);
+            assertTrue(text.startsWith(cut), counter.name());
+            assertTrue(counter.count(cut) <= 50, counter.name() + " kept " + counter.count(cut));
+            assertTrue(counter.count(cut) >= 45, counter.name() + " kept only " + counter.count(cut));
+            assertSame(text, counter.truncate(text, 10_000));
+        }
+    }
+
+    @Test
+    void truncate_doesNotSplitMultiByteCharacters() {
+        // Given
+        String text = "深度研究助手使用搜索引擎和语言模型。".repeat(5);
+
+        // When
+        String cut = cl100k.truncate(text, 7);
+
+        // Then
+        assertTrue(text.startsWith(cut));
+        assertTrue(cl100k.count(cut) <= 7);
+    }
+
+    @Test
+    void approximate_staysCloseToBpeOnProseAndErrsHighElsewhere() throws IOException {
+        // Given
+        String prose = HtmlTextExtractor.extract(new StringReader(corpusPage("news-article.html")),
+                "https://example.com/", Integer.MAX_VALUE, true);
+        String url = "https://www.example.com/research/2024/05/deep-research-agents?utm_source=feed&id=12345";
+        String chinese = "深度研究助手使用搜索引擎和语言模型来回答复杂的问题。";
+
+        // When
+        double proseRatio = (double) approximate.count(prose) / cl100k.count(prose);
+
+        // Then
+        assertTrue(proseRatio > 0.8 && proseRatio < 1.3, "prose estimate off by " + proseRatio);
+        assertTrue(approximate.count(url) >= cl100k.count(url));
+        assertTrue(approximate.count(chinese) >= cl100k.count(chinese) * 0.8);
+        // A flat four characters per token undercounts the Chinese sentence several times over
+        assertTrue(chinese.length() / 4 < cl100k.count(chinese) / 2);
+    }
+
+    private static String corpusPage(String file) throws IOException {
+        try (InputStream in = TokenCountersTest.class.getResourceAsStream("/extraction-corpus/" + file)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.skanga.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void write_storesEntryWithoutLeavingTempFiles() throws IOException {
+        // Given
+        DiskStore store = new DiskStore(directory);
+
+        // When
+        long size = store.write("entry", Map.of("text", "value"));
+
+        // Then
+        assertTrue(size > 0);
+        assertEquals("value", store.read("entry", Map.class).orElseThrow().get("text"));
+        assertEquals(0, tempFiles());
+    }
+
+    @Test
+    void write_removesTempFileWhenTheWriteFails() throws IOException {
+        // Given: a value Jackson cannot serialize
+        DiskStore store = new DiskStore(directory);
+
+        // When
+        long size = store.write("entry", new Object());
+
+        // Then
+        assertEquals(0, size);
+        assertTrue(store.list().isEmpty());
+        assertEquals(0, tempFiles());
+    }
+
+    private long tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".tmp")).count();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.skanga.util;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import com.skanga.token.BpeTokenCounter;
+import com.skanga.token.TokenCounter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the main-content extractor over the saved pages in src/test/resources/extraction-corpus
+ * and checks its token reduction against full-page text, counted with the cl100k_base
+ * vocabulary. Each page lists sentences that must survive extraction and boilerplate that must
+ * not. Extraction time over the same pages is measured by HtmlToMarkdownBenchmark.
+ */
+class HtmlTextExtractorCorpusTest {
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final TokenCounter TOKENS = new BpeTokenCounter(EncodingType.CL100K_BASE);
+
+    private record CorpusPage(String file, List<String> mustKeep, List<String> mustDrop) {
+    }
+
+    private static final List<CorpusPage> CORPUS = List.of(
+            new CorpusPage("news-article.html",
+                    List.of("City council approves new bike lane network",
+                            "forty-two kilometres of arterial roads",
+                            "Funding and costs",
+                            "could triple within three years"),
+                    List.of("Politics", "Skip to content", "Share on Facebook", "Advertisement", "Bus fares to rise",
+                            "Heatwave warning", "morning briefing", "Privacy policy", "We use cookies", "Nobody asked them")),
+            new CorpusPage("docs-page.html",
+                    List.of("Connection pooling", "Sizing the pool", "Pool.builder()",
+                            "validates a connection with a lightweight ping"),
+                    List.of("API reference", "Quickstart", "Troubleshooting", "Documentation licensed", "TLS →")),
+            new CorpusPage("wiki-article.html",
+                    List.of("Honey bee", "eusocial flying insect", "The waggle dance is used by foragers"),
+                    List.of("Random article", "Cite this page", "1 Etymology", "Megachilidae",
+                            "Insects described in 1758", "Mobile view", "Honeybee Democracy")),
+            new CorpusPage("blog-post.html",
+                    List.of("Why our builds got 3x faster", "Caching the dependency directory",
+                            "median pipeline down to thirteen minutes"),
+                    List.of("Careers", "Share it with your team", "chaos experiments", "We are hiring",
+                            "uses cookies", "RSS", "Share this", "Docker layer caching",
+                            "help us deliver", "7 min read")));
+
+    @Test
+    void mainContentExtraction_keepsArticleAndCutsTokens() throws IOException {
+        long fullTokens = 0;
+        long mainTokens = 0;
+        for (CorpusPage page : CORPUS) {
+            String html = load(page.file());
+
+            String full = HtmlTextExtractor.extract(new StringReader(html), page.file(), UNLIMITED, false);
+            String main = HtmlTextExtractor.extract(new StringReader(html), page.file(), UNLIMITED, true);
+            for (String kept : page.mustKeep()) {
+                assertTrue(main.contains(kept), page.file() + " lost: " + kept + "\n" + main);
+            }
+            for (String dropped : page.mustDrop()) {
+                assertTrue(full.contains(dropped), page.file() + " corpus check, full text lacks: " + dropped);
+                assertFalse(main.contains(dropped), page.file() + " kept boilerplate: " + dropped + "\n" + main);
+            }
+            fullTokens += TOKENS.count(full);
+            mainTokens += TOKENS.count(main);
+        }
+        double reduction = 1.0 - (double) mainTokens / fullTokens;
+        assertTrue(reduction >= 0.3, String.format(Locale.ROOT,
+                "expected at least 30%% fewer tokens, got %.1f%% (%d -> %d)", reduction * 100, fullTokens, mainTokens));
+    }
+
+    private static String load(String file) throws IOException {
+        try (InputStream in = HtmlTextExtractorCorpusTest.class.getResourceAsStream("/extraction-corpus/" + file)) {
+            assertNotNull(in, "missing corpus page " + file);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
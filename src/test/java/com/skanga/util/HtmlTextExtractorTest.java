@@ -0,0 +1,121 @@
+package com.skanga.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HtmlTextExtractorTest {
+
+    @Test
+    void extract_keepsAllVisibleTextWithoutMainContentFilter() {
+        // Given
+        String html = "<html><head><title>T</title><script>var x;</script></head><body>"
+                + "<nav><a href='/'>Home</a></nav><p>Body text.</p><footer>Footer</footer></body></html>";
+
+        // When
+        String text = HtmlTextExtractor.extract(new StringReader(html), "http://example.com", 1000);
+
+        // Then
+        assertEquals("[Home](http://example.com/)\n\nBody text.\n\nFooter", text);
+    }
+
+    @Test
+    void extract_writesHeadingsListsTablesCodeAndQuotesAsMarkdown() {
+        // Given
+        String html = "<body><h2>Setup  <em>guide</em></h2>"
+                + "<p>Run the\n   <strong>installer</strong>, then <code>init</code>.<br>Done.</p>"
+                + "<ol start='3'><li>First</li><li>Second<ul><li>Nested <b>bold</b></li></ul></li></ol>"
+                + "<table><thead><tr><th>Name</th><th>Value</th></tr></thead>"
+                + "<tbody><tr><td>a|b</td><td><p>1</p><p>2</p></td></tr></tbody></table>"
+                + "<pre><code>int x = 1;\n  x++;\n</code></pre>"
+                + "<blockquote><p>Quoted one.</p><p>Quoted two.</p></blockquote></body>";
+
+        // When
+        String markdown = HtmlTextExtractor.extract(new StringReader(html), "http://example.com", 10_000);
+
+        // Then
+        assertEquals(String.join("\n",
+                "## Setup *guide*",
+                "",
+                "Run the **installer**, then `init`.",
+                "Done.",
+                "",
+                "3. First",
+                "4. Second",
+                "   - Nested **bold**",
+                "",
+                "| Name | Value |",
+                "| --- | --- |",
+                "| a\\|b | 1 2 |",
+                "",
+                "```",
+                "int x = 1;",
+                "  x++;",
+                "```",
+                "",
+                "> Quoted one.",
+                ">",
+                "> Quoted two."), markdown);
+    }
+
+    @Test
+    void extract_keepsTextAroundNestedBlocksInDocumentOrder() {
+        // Given
+        String html = "<body><div>Intro <p>para</p> outro</div>"
+                + "<section>Lead <b>bold</b><h2>Title</h2>Body text<div><p>Deep</p> tail</div> end</section></body>";
+
+        // When
+        String markdown = HtmlTextExtractor.extract(new StringReader(html), "http://example.com", 1000);
+
+        // Then
+        assertEquals("Intro\n\npara\n\noutro\n\nLead **bold**\n\n## Title\n\nBody text\n\nDeep\n\ntail\n\nend",
+                markdown);
+    }
+
+    @Test
+    void extract_stopsAtOutputCap() {
+        // Given
+        String html = "<body>" + "<h2>Section</h2><ul><li>item one</li><li>item two</li></ul>".repeat(1000) + "</body>";
+
+        // When
+        String markdown = HtmlTextExtractor.extract(new StringReader(html), "http://example.com", 30);
+
+        // Then
+        assertEquals("## Section\n\n- item one\n- item ", markdown);
+    }
+
+    @Test
+    void extract_mainContentDropsNavigationFootersAndLinkLists() {
+        // Given
+        String html = "<body><header><h1>Site name</h1><ul><li><a href='/a'>Section A</a></li></ul></header>"
+                + "<main><article><header><h1>Article title</h1></header>"
+                + "<p>First paragraph with a <a href='/ref'>reference</a> in it.</p>"
+                + "<ul><li><a href='/1'>Related one</a></li><li><a href='/2'>Related two</a></li></ul>"
+                + "<div class='share-buttons'><p>Share this article with friends.</p></div>"
+                + "<p>Second paragraph.</p></article></main>"
+                + "<aside><p>Sidebar text.</p></aside><footer><p>Copyright.</p></footer>"
+                + "<div id='cookie-notice'><p>We use cookies.</p></div></body>";
+
+        // When
+        String text = HtmlTextExtractor.extract(new StringReader(html), "http://example.com", 1000, true);
+
+        // Then
+        assertEquals("# Article title\n\nFirst paragraph with a [reference](http://example.com/ref) in it.\n\n"
+                + "Second paragraph.", text);
+    }
+
+    @Test
+    void extract_mainContentBudgetCountsOnlyKeptText() {
+        // Given: a long menu before the article
+        String menu = "<ul class='menu'>" + "<li><a href='#'>Menu entry</a></li>".repeat(200) + "</ul>";
+        String html = "<body>" + menu + "<p>The article starts here and goes on.</p></body>";
+
+        // When
+        String text = HtmlTextExtractor.extract(new StringReader(html), "http://example.com", 24, true);
+
+        // Then
+        assertEquals("The article starts here ", text);
+    }
+}
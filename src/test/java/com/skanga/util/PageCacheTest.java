@@ -0,0 +1,125 @@
+package com.skanga.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.http.HttpHeaders;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void put_storesFreshPageThatSurvivesRestart() {
+        // Given
+        PageCache cache = new PageCache(true, directory, 1_000_000);
+
+        // When
+        cache.put("http://example.com/a", 100, false, "Page text", headers(Map.of(
+                "Cache-Control", "public, max-age=3600",
+                "ETag", "\"v1\"")));
+        PageCache reloaded = new PageCache(true, directory, 1_000_000);
+
+        // Then
+        PageCache.CachedPage page = reloaded.get("http://example.com/a", 100, false).orElseThrow();
+        assertEquals("Page text", page.text());
+        assertEquals("\"v1\"", page.etag());
+        assertTrue(page.isFresh());
+        assertEquals(1L, reloaded.getStats().get("hits"));
+    }
+
+    @Test
+    void put_keepsStalePagesWithValidatorsButSkipsUnusableOnes() {
+        // Given
+        PageCache cache = new PageCache(true, directory, 1_000_000);
+
+        // When
+        cache.put("http://example.com/revalidate", 100, false, "text", headers(Map.of(
+                "Cache-Control", "no-cache", "ETag", "\"v1\"")));
+        cache.put("http://example.com/no-store", 100, false, "text", headers(Map.of(
+                "Cache-Control", "no-store", "ETag", "\"v1\"")));
+        cache.put("http://example.com/no-validators", 100, false, "text", headers(Map.of()));
+
+        // Then
+        PageCache.CachedPage stale = cache.get("http://example.com/revalidate", 100, false).orElseThrow();
+        assertFalse(stale.isFresh());
+        assertTrue(stale.hasValidators());
+        assertTrue(cache.get("http://example.com/no-store", 100, false).isEmpty());
+        assertTrue(cache.get("http://example.com/no-validators", 100, false).isEmpty());
+    }
+
+    @Test
+    void get_ignoresPagesExtractedWithDifferentBudget() {
+        // Given
+        PageCache cache = new PageCache(true, directory, 1_000_000);
+        cache.put("http://example.com/a", 100, false, "short", headers(Map.of("Cache-Control", "max-age=60")));
+
+        // When / Then
+        assertTrue(cache.get("http://example.com/a", 4000, false).isEmpty());
+    }
+
+    @Test
+    void get_ignoresPagesExtractedInTheOtherMode() {
+        // Given
+        PageCache cache = new PageCache(true, directory, 1_000_000);
+        cache.put("http://example.com/a", 100, false, "Menu Article Footer", headers(Map.of("Cache-Control", "max-age=60")));
+
+        // When / Then
+        assertTrue(cache.get("http://example.com/a", 100, true).isEmpty());
+        assertTrue(cache.get("http://example.com/a", 100, false).isPresent());
+    }
+
+    @Test
+    void revalidated_refreshesExpiryAndKeepsText() {
+        // Given
+        PageCache cache = new PageCache(true, directory, 1_000_000);
+        cache.put("http://example.com/a", 100, false, "Page text", headers(Map.of(
+                "Cache-Control", "max-age=0", "ETag", "\"v1\"")));
+        PageCache.CachedPage stale = cache.get("http://example.com/a", 100, false).orElseThrow();
+
+        // When
+        PageCache.CachedPage refreshed = cache.revalidated(stale, headers(Map.of("Cache-Control", "max-age=600")));
+
+        // Then
+        assertEquals("Page text", refreshed.text());
+        assertEquals("\"v1\"", refreshed.etag());
+        assertTrue(cache.get("http://example.com/a", 100, false).orElseThrow().isFresh());
+        assertEquals(1L, cache.getStats().get("revalidated"));
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedPagesOverByteBudget() {
+        // Given: room for roughly two entries
+        String text = "x".repeat(400);
+        Map<String, String> cacheable = Map.of("Cache-Control", "max-age=3600");
+        PageCache cache = new PageCache(true, directory, 1_300);
+        cache.put("http://example.com/1", 100, false, text, headers(cacheable));
+        cache.put("http://example.com/2", 100, false, text, headers(cacheable));
+        cache.get("http://example.com/1", 100, false);
+
+        // When
+        cache.put("http://example.com/3", 100, false, text, headers(cacheable));
+
+        // Then
+        assertTrue(cache.get("http://example.com/1", 100, false).isPresent());
+        assertTrue(cache.get("http://example.com/2", 100, false).isEmpty());
+        assertTrue(cache.get("http://example.com/3", 100, false).isPresent());
+        assertEquals(1L, cache.getStats().get("evictions"));
+        assertTrue((Long) cache.getStats().get("bytes") <= 1_300);
+    }
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        Map<String, List<String>> multi = new HashMap<>();
+        values.forEach((name, value) -> multi.put(name, List.of(value)));
+        return HttpHeaders.of(multi, (name, value) -> true);
+    }
+}
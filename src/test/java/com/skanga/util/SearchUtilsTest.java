@@ -61,4 +61,56 @@ class SearchUtilsTest {
 
         assertEquals("* Title 1 : http://example.com/1\n* Title 2 : http://example.com/2", formatted);
     }
+
+    @Test
+    void mergeAndDeduplicate_keepsFirstResultPerUrl() {
+        SearchResult a = new SearchResult("A", "a", "http://a", 0.9);
+        SearchResult b = new SearchResult("B", "b", "http://b", 0.8);
+        SearchResult aAgain = new SearchResult("A again", "a", "http://a", 0.5);
+        SearchResult error = new SearchResult("Search Error", "failed", "", 0.1);
+
+        List<SearchResult> merged = SearchUtils.mergeAndDeduplicate(List.of(List.of(a, error), List.of(aAgain, b, error)));
+
+        assertEquals(List.of(a, error, b, error), merged);
+    }
+
+    @Test
+    void mergeAndDeduplicate_matchesUrlVariantsOfTheSamePage() {
+        SearchResult page = new SearchResult("Guide", "first query", "https://example.com/guide", 0.9);
+        SearchResult variant = new SearchResult("Guide", "second query", "http://www.example.com/guide/?utm_source=ddg", 0.8);
+        SearchResult other = new SearchResult("Other", "second query", "https://example.com/other", 0.7);
+
+        List<SearchResult> merged = SearchUtils.mergeAndDeduplicate(List.of(List.of(page), List.of(variant, other)));
+
+        assertEquals(List.of(page, other), merged);
+    }
+
+    @Test
+    void canonicalUrl_ignoresSpellingDifferencesBetweenEngines() {
+        String canonical = SearchUtils.canonicalUrl("https://example.com/guide?page=2");
+
+        assertEquals(canonical, SearchUtils.canonicalUrl("http://WWW.Example.com:80/guide/?utm_source=ddg&page=2#intro"));
+        assertEquals(canonical, SearchUtils.canonicalUrl(" https://example.com/guide?page=2&fbclid=abc "));
+        assertEquals("example.com:8080/guide", SearchUtils.canonicalUrl("https://example.com:8080/guide"));
+        assertEquals("not a url", SearchUtils.canonicalUrl("not a url"));
+    }
+
+    @Test
+    void reciprocalRankFusion_ranksPagesFoundBySeveralListsFirst() {
+        SearchResult shared = new SearchResult("Shared", "from first", "https://shared.example/page", 0.4);
+        SearchResult sharedAgain = new SearchResult("Shared again", "from second", "http://www.shared.example/page/", 0.9);
+        SearchResult onlyFirst = new SearchResult("Only first", "a", "https://first.example", 0.9);
+        SearchResult onlySecond = new SearchResult("Only second", "b", "https://second.example", 0.9);
+        SearchResult error = new SearchResult("Search Error", "failed", "", 0.1);
+
+        List<SearchResult> fused = SearchUtils.reciprocalRankFusion(
+                List.of(List.of(onlyFirst, shared), List.of(error, sharedAgain, onlySecond)), 60, 2);
+
+        assertEquals(2, fused.size());
+        // Second in one list and first in the other, so ahead of either single-list page; the best ranked copy is kept
+        assertEquals("Shared again", fused.get(0).getTitle());
+        assertEquals((1.0 / 62 + 1.0 / 61) / (2.0 / 61), fused.get(0).getScore(), 1e-9);
+        assertEquals("Only first", fused.get(1).getTitle());
+        assertEquals(0.5, fused.get(1).getScore(), 1e-9);
+    }
 }
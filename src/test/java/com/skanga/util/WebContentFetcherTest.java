@@ -1,20 +1,40 @@
 package com.skanga.util;
 
+import com.skanga.config.ResearchConfiguration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,7 +44,7 @@ class WebContentFetcherTest {
     private HttpClient httpClient;
 
     @Mock
-    private HttpResponse<String> httpResponse;
+    private HttpResponse<InputStream> httpResponse;
 
     private WebContentFetcher webContentFetcher;
 
@@ -37,9 +57,10 @@ class WebContentFetcherTest {
     void fetchRawContent_success() throws IOException, InterruptedException {
         // Given
         String url = "http://example.com";
-        String html = "<html><body><h1>Title</h1><p>Content</p></body></html>";
+        String html = "<html><body><article><h1>Title</h1><p>Content</p></article></body></html>";
         when(httpResponse.statusCode()).thenReturn(200);
-        when(httpResponse.body()).thenReturn(html);
+        when(httpResponse.body()).thenReturn(stream(html));
+        when(httpResponse.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
         when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(httpResponse);
 
         // When
@@ -47,7 +68,7 @@ class WebContentFetcherTest {
 
         // Then
         assertTrue(result.isPresent());
-        assertEquals("Title Content", result.get());
+        assertEquals("# Title\n\nContent", result.get());
     }
 
     @Test
@@ -55,6 +76,7 @@ class WebContentFetcherTest {
         // Given
         String url = "http://example.com";
         when(httpResponse.statusCode()).thenReturn(404);
+        when(httpResponse.body()).thenReturn(stream(""));
         when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(httpResponse);
 
         // When
@@ -76,4 +98,317 @@ class WebContentFetcherTest {
         // Then
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    void fetchAll_fetchesConcurrentlyAndKeepsResultOrder() {
+        // Given
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(invocation -> {
+                    HttpRequest request = invocation.getArgument(0);
+                    String path = request.uri().getPath();
+                    long delayMs = path.equals("/slow") ? 300 : 10;
+                    return CompletableFuture.supplyAsync(() -> response("<html><body>" + path + "</body></html>"),
+                            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+                });
+
+        // When
+        long start = System.nanoTime();
+        List<Optional<String>> pages = webContentFetcher.fetchAll(
+                List.of("http://a.example/slow", "http://b.example/fast", "http://c.example/slow"));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertEquals(List.of(Optional.of("/slow"), Optional.of("/fast"), Optional.of("/slow")), pages);
+        assertTrue(elapsedMs < 550, "pages should be fetched concurrently, took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void fetchRawContentAsync_respectsPerHostAndGlobalCaps() throws Exception {
+        // Given
+        ResearchConfiguration.Fetch fetchConfig = new ResearchConfiguration.Fetch();
+        fetchConfig.setMaxPerHost(1);
+        fetchConfig.setMaxConcurrent(2);
+        webContentFetcher = new WebContentFetcher(httpClient, fetchConfig);
+        List<CompletableFuture<HttpResponse<InputStream>>> inFlight = new CopyOnWriteArrayList<>();
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(invocation -> {
+                    CompletableFuture<HttpResponse<InputStream>> pending = new CompletableFuture<>();
+                    inFlight.add(pending);
+                    return pending;
+                });
+
+        // When
+        CompletableFuture<Optional<String>> first = webContentFetcher.fetchRawContentAsync("http://same.example/1");
+        CompletableFuture<Optional<String>> second = webContentFetcher.fetchRawContentAsync("http://same.example/2");
+        CompletableFuture<Optional<String>> other = webContentFetcher.fetchRawContentAsync("http://other.example/1");
+        CompletableFuture<Optional<String>> overGlobalCap = webContentFetcher.fetchRawContentAsync("http://third.example/1");
+
+        // Then: one request per host, two overall
+        assertEquals(2, inFlight.size());
+        inFlight.get(0).complete(response("<html><body>one</body></html>"));
+        assertEquals(Optional.of("one"), first.join());
+        // The freed global permit goes to the request that queued for it first
+        assertEquals(3, inFlight.size());
+        inFlight.get(1).complete(response("<html><body>other</body></html>"));
+        assertEquals(Optional.of("other"), other.join());
+        assertEquals(4, inFlight.size());
+        inFlight.get(2).completeExceptionally(new IOException("timed out"));
+        inFlight.get(3).complete(response("<html><body>two</body></html>"));
+        assertEquals(Optional.empty(), overGlobalCap.get(5, TimeUnit.SECONDS));
+        assertEquals(Optional.of("two"), second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fetchRawContentAsync_cancelStopsQueuedAndInFlightFetchesAndFreesTheirPermits() throws Exception {
+        // Given: one fetch in flight and one queued behind it for the only permit
+        ResearchConfiguration.Fetch fetchConfig = new ResearchConfiguration.Fetch();
+        fetchConfig.setMaxPerHost(1);
+        fetchConfig.setMaxConcurrent(1);
+        webContentFetcher = new WebContentFetcher(httpClient, fetchConfig);
+        List<CompletableFuture<HttpResponse<InputStream>>> inFlight = new CopyOnWriteArrayList<>();
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(invocation -> {
+                    CompletableFuture<HttpResponse<InputStream>> pending = new CompletableFuture<>();
+                    inFlight.add(pending);
+                    return pending;
+                });
+        CompletableFuture<Optional<String>> sent = webContentFetcher.fetchRawContentAsync("http://same.example/1");
+        CompletableFuture<Optional<String>> queued = webContentFetcher.fetchRawContentAsync("http://same.example/2");
+
+        // When
+        queued.cancel(true);
+        sent.cancel(true);
+        CompletableFuture<Optional<String>> next = webContentFetcher.fetchRawContentAsync("http://other.example/1");
+
+        // Then: the request in flight was aborted, the queued one never sent, and the permit moved on
+        assertTrue(inFlight.get(0).isCancelled());
+        assertEquals(2, inFlight.size());
+        inFlight.get(1).complete(response("<html><body>next</body></html>"));
+        assertEquals(Optional.of("next"), next.get(5, TimeUnit.SECONDS));
+        assertEquals(2, inFlight.size());
+    }
+
+    @Test
+    void fetchRawContent_stopsReadingOnceTextBudgetIsFilled() throws IOException, InterruptedException {
+        // Given: an endless page of paragraphs
+        webContentFetcher = new WebContentFetcher(httpClient, new ResearchConfiguration.Fetch(), 50);
+        byte[] paragraph = "<p>The quick brown fox jumps over the lazy dog.</p>".getBytes(StandardCharsets.UTF_8);
+        CountingInputStream body = new CountingInputStream(new InputStream() {
+            private long position;
+
+            @Override
+            public int read() {
+                return paragraph[(int) (position++ % paragraph.length)];
+            }
+        });
+        HttpResponse<InputStream> response = response(body);
+        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(response);
+
+        // When
+        Optional<String> result = webContentFetcher.fetchRawContent("http://example.com/endless");
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(50, result.get().length());
+        assertTrue(result.get().startsWith("The quick brown fox jumps over the lazy dog."));
+        assertTrue(body.count < 64 * 1024, "read " + body.count + " bytes");
+        assertTrue(body.closed);
+    }
+
+    @Test
+    void fetchRawContent_capsDownloadedBytes() throws IOException, InterruptedException {
+        // Given
+        ResearchConfiguration.Fetch fetchConfig = new ResearchConfiguration.Fetch();
+        fetchConfig.setMaxBytes(DataSize.ofBytes(40));
+        webContentFetcher = new WebContentFetcher(httpClient, fetchConfig);
+        HttpResponse<InputStream> response = response(stream("<html><body><article><p>Kept</p>" + "<p>Dropped</p>".repeat(100) + "</article></body></html>"));
+        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(response);
+
+        // When
+        Optional<String> result = webContentFetcher.fetchRawContent("http://example.com/big");
+
+        // Then
+        assertTrue(result.isPresent());
+        assertTrue(result.get().startsWith("Kept"));
+        assertTrue(result.get().length() < 20, result.get());
+    }
+
+    @Test
+    void fetchRawContent_decodesCharsetFromHeaderOrMetaTag() throws IOException, InterruptedException {
+        // Given
+        byte[] latin1 = "<html><body><article><p>Café</p></article></body></html>".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] metaLatin1 = "<html><head><meta charset=\"iso-8859-1\"></head><body><article><p>Crème</p></article></body></html>"
+                .getBytes(StandardCharsets.ISO_8859_1);
+        HttpResponse<InputStream> withHeader = response(new ByteArrayInputStream(latin1));
+        when(withHeader.headers()).thenReturn(HttpHeaders.of(
+                Map.of("Content-Type", List.of("text/html; charset=ISO-8859-1")), (name, value) -> true));
+        HttpResponse<InputStream> withMeta = response(new ByteArrayInputStream(metaLatin1));
+        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(withHeader)
+                .thenReturn(withMeta);
+
+        // When
+        Optional<String> fromHeader = webContentFetcher.fetchRawContent("http://example.com/header");
+        Optional<String> fromMeta = webContentFetcher.fetchRawContent("http://example.com/meta");
+
+        // Then
+        assertEquals(Optional.of("Café"), fromHeader);
+        assertEquals(Optional.of("Crème"), fromMeta);
+    }
+
+    @Test
+    void fetchRawContent_servesFreshPagesFromCacheAndRevalidatesStaleOnes(@TempDir Path cacheDir)
+            throws IOException, InterruptedException {
+        // Given
+        PageCache pageCache = new PageCache(true, cacheDir, 1_000_000);
+        webContentFetcher = new WebContentFetcher(httpClient, new ResearchConfiguration.Fetch(), 4000, pageCache);
+        HttpResponse<InputStream> fresh = response("<article><p>Fresh</p></article>");
+        when(fresh.headers()).thenReturn(HttpHeaders.of(Map.of("Cache-Control", List.of("max-age=3600")),
+                (name, value) -> true));
+        HttpResponse<InputStream> stale = response("<article><p>Stale</p></article>");
+        when(stale.headers()).thenReturn(HttpHeaders.of(Map.of(
+                "Cache-Control", List.of("no-cache"), "ETag", List.of("\"v1\"")), (name, value) -> true));
+        HttpResponse<InputStream> notModified = response("");
+        when(notModified.statusCode()).thenReturn(304);
+        List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(invocation -> {
+                    HttpRequest request = invocation.getArgument(0);
+                    requests.add(request);
+                    if (request.uri().getPath().equals("/fresh")) {
+                        return fresh;
+                    }
+                    return request.headers().firstValue("If-None-Match").isPresent() ? notModified : stale;
+                });
+
+        // When
+        webContentFetcher.fetchRawContent("http://example.com/fresh");
+        webContentFetcher.fetchRawContent("http://example.com/stale");
+        Optional<String> cachedFresh = webContentFetcher.fetchRawContent("http://example.com/fresh");
+        Optional<String> revalidated = webContentFetcher.fetchRawContent("http://example.com/stale");
+
+        // Then
+        assertEquals(Optional.of("Fresh"), cachedFresh);
+        assertEquals(Optional.of("Stale"), revalidated);
+        assertEquals(3, requests.size());
+        assertEquals(Optional.of("\"v1\""), requests.get(2).headers().firstValue("If-None-Match"));
+        assertEquals(1L, webContentFetcher.getCacheStats().get("hits"));
+        assertEquals(1L, webContentFetcher.getCacheStats().get("revalidated"));
+    }
+
+    @Test
+    void fetchRawContent_rejectsBinaryAndOversizedBodiesAndSkipsThemLater() throws IOException, InterruptedException {
+        // Given
+        CountingInputStream pdfBody = new CountingInputStream(stream("%PDF-1.7 binary"));
+        HttpResponse<InputStream> pdf = response(pdfBody);
+        when(pdf.headers()).thenReturn(HttpHeaders.of(
+                Map.of("Content-Type", List.of("application/pdf")), (name, value) -> true));
+        HttpResponse<InputStream> huge = response("<p>Huge</p>");
+        when(huge.headers()).thenReturn(HttpHeaders.of(Map.of(
+                "Content-Type", List.of("text/html"), "Content-Length", List.of("50000000")), (name, value) -> true));
+        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(invocation -> {
+                    HttpRequest request = invocation.getArgument(0);
+                    return request.uri().getPath().endsWith(".pdf") ? pdf : huge;
+                });
+
+        // When
+        Optional<String> pdfContent = webContentFetcher.fetchRawContent("http://example.com/paper.pdf");
+        Optional<String> hugeContent = webContentFetcher.fetchRawContent("http://example.com/dump");
+        Optional<String> pdfAgain = webContentFetcher.fetchRawContentAsync("http://example.com/paper.pdf").join();
+
+        // Then
+        assertTrue(pdfContent.isEmpty());
+        assertTrue(hugeContent.isEmpty());
+        assertTrue(pdfAgain.isEmpty());
+        assertEquals(0, pdfBody.count);
+        assertTrue(pdfBody.closed);
+        verify(httpClient, times(2)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        verify(httpClient, never()).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        Map<String, Object> stats = webContentFetcher.getScreeningStats();
+        assertEquals(1L, stats.get("rejectedContentType"));
+        assertEquals(1L, stats.get("rejectedSize"));
+        assertEquals(1L, stats.get("skippedUnfetchable"));
+    }
+
+    @Test
+    void fetchRawContent_readsPlainTextWithoutHtmlParsing() throws IOException, InterruptedException {
+        // Given
+        HttpResponse<InputStream> text = response(stream("Line one <not a tag>\n\n  Line two"));
+        when(text.headers()).thenReturn(HttpHeaders.of(
+                Map.of("Content-Type", List.of("text/plain; charset=utf-8")), (name, value) -> true));
+        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(text);
+
+        // When
+        Optional<String> result = webContentFetcher.fetchRawContent("http://example.com/notes.txt");
+
+        // Then
+        assertEquals(Optional.of("Line one <not a tag> Line two"), result);
+    }
+
+    @Test
+    void fetchRawContent_remembersPagesThatAreGone() throws IOException, InterruptedException {
+        // Given
+        when(httpResponse.statusCode()).thenReturn(404);
+        when(httpResponse.body()).thenReturn(stream(""));
+        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(httpResponse);
+
+        // When
+        webContentFetcher.fetchRawContent("http://example.com/missing");
+        Optional<String> again = webContentFetcher.fetchRawContent("http://example.com/missing");
+
+        // Then
+        assertTrue(again.isEmpty());
+        verify(httpClient, times(1)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    private static HttpResponse<InputStream> response(String body) {
+        return response(stream(body));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<InputStream> response(InputStream body) {
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.body()).thenReturn(body);
+        lenient().when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        return response;
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+        boolean closed;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
 }